@@ -1,6 +1,7 @@
 package com.avast.bytes;
 
 
+import java.nio.ByteOrder;
 import java.util.Comparator;
 
 public abstract class AbstractBytesComparator
@@ -19,10 +20,60 @@ public abstract class AbstractBytesComparator
         this.shorterIsLess = shorterIsLess;
     }
 
+    /**
+     * Returns {@code true} if shorter Bytes are taken as less when one of the compared Bytes is a prefix of the other.
+     *
+     * @return the order of Bytes with a common prefix
+     */
+    public boolean isShorterIsLess() {
+        return shorterIsLess;
+    }
+
+    /**
+     * Returns length of the longest common prefix of the given Bytes, i.e. number of leading bytes considered
+     * equal by this comparator.
+     *
+     * @param a first Bytes
+     * @param b second Bytes
+     * @return length of the common prefix
+     */
+    public int commonPrefixLength(Bytes a, Bytes b) {
+        int n = Math.min(a.size(), b.size());
+        for (int position = skipEqualWords(a, b, n); position < n; position++) {
+            if (compare(a.byteAt(position), b.byteAt(position)) != 0) {
+                return position;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns {@code true} if this comparator supports {@link #normalizedKey(long)}, which allows sorting with
+     * {@link BytesSort} using radix sort. The default implementation returns {@code false}.
+     *
+     * @return {@code true} if normalized keys are supported
+     */
+    public boolean supportsNormalizedKeys() {
+        return false;
+    }
+
+    /**
+     * Converts 8 bytes (in big-endian order) to a key whose unsigned comparison ({@link Long#compareUnsigned(long, long)})
+     * gives the same result as this comparator applied to the 8 bytes. Only supported if
+     * {@link #supportsNormalizedKeys()} returns {@code true}.
+     *
+     * @param bigEndianBytes 8 bytes composed to a big-endian value
+     * @return normalized key
+     * @throws UnsupportedOperationException if normalized keys are not supported
+     */
+    public long normalizedKey(long bigEndianBytes) {
+        throw new UnsupportedOperationException("Normalized keys are not supported by " + getClass().getName());
+    }
+
     @Override
     public int compare(Bytes a, Bytes b) {
         int n = Math.min(a.size(), b.size());
-        for (int position = 0; position < n; position++) {
+        for (int position = skipEqualWords(a, b, n); position < n; position++) {
             int cmp = compare(a.byteAt(position), b.byteAt(position));
             if (cmp != 0) {
                 return cmp;
@@ -32,4 +83,16 @@ public abstract class AbstractBytesComparator
     }
 
     protected abstract int compare(byte a, byte b);
+
+    /**
+     * Returns position of the first 8-byte word that differs (or the start of the last incomplete word).
+     * Only equal bytes are skipped, those compare as equal in any order.
+     */
+    private static int skipEqualWords(Bytes a, Bytes b, int n) {
+        int position = 0;
+        while (position + Long.BYTES <= n && a.getLong(position, ByteOrder.BIG_ENDIAN) == b.getLong(position, ByteOrder.BIG_ENDIAN)) {
+            position += Long.BYTES;
+        }
+        return position;
+    }
 }
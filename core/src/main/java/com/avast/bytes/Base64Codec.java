@@ -0,0 +1,306 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.ByteArrayBytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Base64 codec that reads and writes {@link Bytes} directly.
+ * <p>
+ * The data is processed segment by segment (see {@link Bytes#asReadOnlyByteBufferList()}) using the {@link ByteBuffer}
+ * API of {@link Base64.Encoder} and {@link Base64.Decoder}, and the result is written into a {@link Bytes.BuilderStream}
+ * sized exactly for the output. Incomplete groups at segment boundaries of {@link ConcatBytes} are carried over
+ * to the next segment, so the input is never flattened.
+ * <p>
+ * Use {@link #BASIC} for the standard alphabet (RFC 4648 section 4) and {@link #URL} for the URL and filename safe
+ * alphabet (RFC 4648 section 5). Both produce padded output, use {@link #withoutPadding()} to omit the padding.
+ */
+public final class Base64Codec {
+
+    /**
+     * Codec using the standard Base64 alphabet.
+     */
+    public static final Base64Codec BASIC = new Base64Codec(Base64.getEncoder(), Base64.getDecoder(), true);
+
+    /**
+     * Codec using the URL and filename safe Base64 alphabet.
+     */
+    public static final Base64Codec URL = new Base64Codec(Base64.getUrlEncoder(), Base64.getUrlDecoder(), true);
+
+    /**
+     * Size of the input chunk passed to the encoder at once (multiple of 3).
+     */
+    private static final int ENCODE_CHUNK_SIZE = 3 * 4096;
+
+    /**
+     * Size of the input chunk passed to the decoder at once (multiple of 4).
+     */
+    private static final int DECODE_CHUNK_SIZE = 4 * 4096;
+
+    private final Base64.Encoder encoder;
+    private final Base64.Decoder decoder;
+    private final boolean padding;
+
+    private Base64Codec(Base64.Encoder encoder, Base64.Decoder decoder, boolean padding) {
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.padding = padding;
+    }
+
+    /**
+     * Returns codec with the same alphabet which does not add padding at the end of the encoded data.
+     * Decoding accepts both padded and unpadded input regardless of this setting.
+     *
+     * @return codec that does not add padding
+     */
+    public Base64Codec withoutPadding() {
+        return padding ? new Base64Codec(encoder.withoutPadding(), decoder, false) : this;
+    }
+
+    /**
+     * Returns length of the encoded form of data of the given length.
+     *
+     * @param size length of data to encode
+     * @return length of the encoded data
+     */
+    public int encodedLength(int size) {
+        final int remainder = size % 3;
+        if (padding || remainder == 0) {
+            return (size / 3 + (remainder == 0 ? 0 : 1)) * 4;
+        }
+        return size / 3 * 4 + remainder + 1;
+    }
+
+    /**
+     * Encodes the given {@link Bytes} to Base64 string.
+     *
+     * @param bytes bytes to encode
+     * @return Base64 string
+     */
+    public String encode(Bytes bytes) {
+        return encodeToBytes(bytes).toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Encodes the given {@link Bytes} to Base64 (in ASCII).
+     *
+     * @param bytes bytes to encode
+     * @return {@link Bytes} containing ASCII characters of the encoded form
+     */
+    public Bytes encodeToBytes(Bytes bytes) {
+        try (Bytes.BuilderStream builder = ByteArrayBytes.newBuilder(encodedLength(bytes.size()))) {
+            encodeTo(bytes, builder);
+            return builder.toBytes();
+        } catch (IOException e) {
+            // the builder does not throw
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encodes the given {@link Bytes} to Base64 (in ASCII) and writes the result to the given stream.
+     * The stream is not closed.
+     *
+     * @param bytes bytes to encode
+     * @param out   stream to write the encoded data to
+     * @throws IOException if writing to the stream fails
+     */
+    public void encodeTo(Bytes bytes, OutputStream out) throws IOException {
+        final byte[] carry = new byte[3];
+        int carryLength = 0;
+
+        for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+            final ByteBuffer input = segment.duplicate();
+
+            if (carryLength > 0) {
+                while (carryLength < 3 && input.hasRemaining()) {
+                    carry[carryLength++] = input.get();
+                }
+                if (carryLength < 3) {
+                    continue;
+                }
+                out.write(encoder.encode(carry));
+                carryLength = 0;
+            }
+
+            while (input.remaining() >= 3) {
+                final int chunkLength = Math.min(ENCODE_CHUNK_SIZE, input.remaining() / 3 * 3);
+                write(out, encoder.encode(chunk(input, chunkLength)));
+            }
+
+            while (input.hasRemaining()) {
+                carry[carryLength++] = input.get();
+            }
+        }
+
+        if (carryLength > 0) {
+            write(out, encoder.encode(ByteBuffer.wrap(carry, 0, carryLength)));
+        }
+    }
+
+    /**
+     * Decodes the given Base64 string.
+     *
+     * @param encoded Base64 string
+     * @return decoded {@link Bytes}
+     * @throws IllegalArgumentException if the input is not a valid Base64 string
+     */
+    public Bytes decode(CharSequence encoded) {
+        final int length = encoded.length();
+        if (length == 0) {
+            return Bytes.empty();
+        }
+        final byte[] chunk = new byte[Math.min(DECODE_CHUNK_SIZE, length)];
+
+        try (Bytes.BuilderStream builder = ByteArrayBytes.newBuilder(decodedLength(length, encoded.charAt(length - 1), length > 1 ? encoded.charAt(length - 2) : 0))) {
+            for (int start = 0; start < length; start += chunk.length) {
+                final int chunkLength = Math.min(chunk.length, length - start);
+                for (int i = 0; i < chunkLength; i++) {
+                    final char ch = encoded.charAt(start + i);
+                    if (ch > 0x7F) {
+                        throw new IllegalArgumentException("Illegal base64 character at index " + (start + i) + ": " + ch);
+                    }
+                    chunk[i] = (byte) ch;
+                }
+                write(builder, decodeChunk(ByteBuffer.wrap(chunk, 0, chunkLength), start + chunkLength, length));
+            }
+            return builder.toBytes();
+        } catch (IOException e) {
+            // the builder does not throw
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the given {@link Bytes} containing Base64 (in ASCII).
+     *
+     * @param encoded Base64 encoded data
+     * @return decoded {@link Bytes}
+     * @throws IllegalArgumentException if the input is not valid Base64
+     */
+    public Bytes decode(Bytes encoded) {
+        final int length = encoded.size();
+        if (length == 0) {
+            return Bytes.empty();
+        }
+        final byte[] carry = new byte[4];
+        int carryLength = 0;
+        // number of input bytes passed to the decoder or to the carry
+        int consumed = 0;
+
+        try (Bytes.BuilderStream builder = ByteArrayBytes.newBuilder(decodedLength(length, encoded.byteAt(length - 1), length > 1 ? encoded.byteAt(length - 2) : 0))) {
+            for (ByteBuffer segment : encoded.asReadOnlyByteBufferList()) {
+                final ByteBuffer input = segment.duplicate();
+
+                if (carryLength > 0) {
+                    while (carryLength < 4 && input.hasRemaining()) {
+                        carry[carryLength++] = input.get();
+                        consumed++;
+                    }
+                    if (carryLength < 4) {
+                        continue;
+                    }
+                    write(builder, decodeChunk(ByteBuffer.wrap(carry), consumed, length));
+                    carryLength = 0;
+                }
+
+                while (input.remaining() >= 4) {
+                    final int chunkLength = Math.min(DECODE_CHUNK_SIZE, input.remaining() / 4 * 4);
+                    consumed += chunkLength;
+                    write(builder, decodeChunk(chunk(input, chunkLength), consumed, length));
+                }
+
+                while (input.hasRemaining()) {
+                    carry[carryLength++] = input.get();
+                    consumed++;
+                }
+            }
+
+            if (carryLength > 0) {
+                write(builder, decoder.decode(ByteBuffer.wrap(carry, 0, carryLength)));
+            }
+            return builder.toBytes();
+        } catch (IOException e) {
+            // the builder does not throw
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Wraps the given stream so that all data written to the returned stream are Base64 encoded before being written
+     * to the given one. Closing the returned stream writes the final padding and closes the given stream.
+     *
+     * @param out stream to write the encoded data to
+     * @return stream encoding data written to it
+     */
+    public OutputStream newEncodingStream(OutputStream out) {
+        return encoder.wrap(out);
+    }
+
+    /**
+     * Wraps the given stream of Base64 (in ASCII) so that the data read from the returned stream are decoded.
+     *
+     * @param in stream of Base64 encoded data
+     * @return stream of decoded data
+     */
+    public InputStream newDecodingStream(InputStream in) {
+        return decoder.wrap(in);
+    }
+
+    /**
+     * Returns stream of data decoded from the given {@link Bytes} containing Base64 (in ASCII).
+     * The data are decoded lazily while reading the stream.
+     *
+     * @param encoded Base64 encoded data
+     * @return stream of decoded data
+     */
+    public InputStream newDecodingStream(Bytes encoded) {
+        return decoder.wrap(encoded.newInputStream());
+    }
+
+    /**
+     * Decodes a chunk of whole groups ending at the given offset of the input. The decoder accepts padding only
+     * at the end of the chunk, so padding is rejected at the end of any chunk but the last one.
+     */
+    private ByteBuffer decodeChunk(ByteBuffer chunk, int end, int length) {
+        if (end < length && chunk.get(chunk.limit() - 1) == '=') {
+            throw new IllegalArgumentException("Illegal base64 padding before index " + end);
+        }
+        return decoder.decode(chunk);
+    }
+
+    private static int decodedLength(int length, int last, int secondToLast) {
+        int padding = 0;
+        if (last == '=') {
+            padding++;
+            if (secondToLast == '=') {
+                padding++;
+            }
+        }
+        final int unpadded = length - padding;
+        return unpadded / 4 * 3 + Math.max(0, unpadded % 4 - 1);
+    }
+
+    /**
+     * Returns buffer with the following {@code length} bytes of the input and moves position of the input after them.
+     */
+    private static ByteBuffer chunk(ByteBuffer input, int length) {
+        final ByteBuffer chunk = input.slice();
+        ((Buffer) chunk).limit(length);
+        ((Buffer) input).position(input.position() + length);
+        return chunk;
+    }
+
+    private static void write(OutputStream out, ByteBuffer data) throws IOException {
+        // the encoder and decoder always return buffers backed by an array
+        out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.BitwiseKernels;
+import com.avast.bytes.internal.UnsafeBytes;
+
+/**
+ * Bitwise operations over {@link Bytes}, e.g. for combining bitmaps.
+ * <p>
+ * The data is processed 8 bytes at a time segment by segment (see {@link Bytes#asReadOnlyByteBufferList()}), so no
+ * intermediate copy of the operands is created, not even for {@link ConcatBytes}. Every result is written directly
+ * into a new exactly sized array. For in-place variants see {@link com.avast.bytes.jdk.BytesBuffer}.
+ */
+public final class Bitwise {
+
+    private Bitwise() {
+    }
+
+    /**
+     * @return {@code a & b}
+     * @throws IllegalArgumentException if the operands have different sizes
+     */
+    public static Bytes and(final Bytes a, final Bytes b) {
+        return combine(BitwiseKernels.Op.AND, a, b);
+    }
+
+    /**
+     * @return {@code a | b}
+     * @throws IllegalArgumentException if the operands have different sizes
+     */
+    public static Bytes or(final Bytes a, final Bytes b) {
+        return combine(BitwiseKernels.Op.OR, a, b);
+    }
+
+    /**
+     * @return {@code a ^ b}
+     * @throws IllegalArgumentException if the operands have different sizes
+     */
+    public static Bytes xor(final Bytes a, final Bytes b) {
+        return combine(BitwiseKernels.Op.XOR, a, b);
+    }
+
+    /**
+     * @return {@code ~a}
+     */
+    public static Bytes not(final Bytes a) {
+        final byte[] result = new byte[a.size()];
+        BitwiseKernels.not(a.asReadOnlyByteBufferList(), result, 0);
+        return UnsafeBytes.unsafeWrap(result);
+    }
+
+    /**
+     * Xors the data with the key repeated over the whole data (the operation is its own inverse).
+     *
+     * @param data data to xor
+     * @param key  non-empty key
+     * @return {@code data[i] ^ key[i % key.size()]} for all bytes of the data
+     */
+    public static Bytes xorWithKey(final Bytes data, final Bytes key) {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Key cannot be empty");
+        }
+        final byte[] result = new byte[data.size()];
+        BitwiseKernels.xorWithKey(data.asReadOnlyByteBufferList(), key.toByteArray(), result, 0);
+        return UnsafeBytes.unsafeWrap(result);
+    }
+
+    /**
+     * @return number of bits set in the data
+     */
+    public static long popcount(final Bytes a) {
+        return BitwiseKernels.popcount(a.asReadOnlyByteBufferList());
+    }
+
+    private static Bytes combine(final BitwiseKernels.Op op, final Bytes a, final Bytes b) {
+        if (a.size() != b.size()) {
+            throw new IllegalArgumentException("Operands have different sizes: " + a.size() + ", " + b.size());
+        }
+        final byte[] result = new byte[a.size()];
+        BitwiseKernels.combine(op, a.asReadOnlyByteBufferList(), b.asReadOnlyByteBufferList(), result, 0, result.length);
+        return UnsafeBytes.unsafeWrap(result);
+    }
+
+}
@@ -2,12 +2,21 @@ package com.avast.bytes;
 
 import com.avast.bytes.jdk.ByteArrayBytes;
 import com.avast.bytes.jdk.ByteBufferBytes;
+import com.avast.bytes.jdk.BytesBuffer;
+import com.avast.bytes.jdk.SmallBytes;
+import com.avast.bytes.internal.TextCodec;
+import com.avast.bytes.internal.UnsafeBytes;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents an immutable sequence (or string) of bytes.
@@ -17,6 +26,9 @@ import java.nio.charset.StandardCharsets;
  * <p>
  * The encapsulated data can be read either by direct access to absolute index ({@link #byteAt(int)}
  * or via {@link java.io.InputStream} (see {@link #newInputStream()}.
+ * <p>
+ * The primitive and varint accessors ({@link #getInt(int, ByteOrder)}, {@link #getVarint64(int)} etc.) of all
+ * implementations throw {@link IndexOutOfBoundsException} itself when reading out of range.
  */
 public interface Bytes {
 
@@ -52,6 +64,139 @@ public interface Bytes {
      */
     byte byteAt(int index);
 
+    /**
+     * Returns byte at the specified index as unsigned value.
+     *
+     * @param index (zero-based) index
+     * @return byte at the specified index in range 0-255
+     * @throws IndexOutOfBoundsException if the specified index is invalid
+     */
+    default int getUnsignedByte(int index) {
+        return byteAt(index) & 0xFF;
+    }
+
+    /**
+     * Returns {@code short} stored in 2 bytes starting at the specified index.
+     *
+     * @param index (zero-based) index of the first byte
+     * @param order byte order of the value
+     * @return value at the specified index
+     * @throws IndexOutOfBoundsException if the specified index is invalid or there are not enough bytes
+     */
+    default short getShort(int index, ByteOrder order) {
+        return (short) Utils.readLong(this, index, Short.BYTES, order);
+    }
+
+    /**
+     * Returns unsigned 16-bit value stored in 2 bytes starting at the specified index.
+     *
+     * @param index (zero-based) index of the first byte
+     * @param order byte order of the value
+     * @return value at the specified index in range 0-65535
+     * @throws IndexOutOfBoundsException if the specified index is invalid or there are not enough bytes
+     */
+    default int getUnsignedShort(int index, ByteOrder order) {
+        return getShort(index, order) & 0xFFFF;
+    }
+
+    /**
+     * Returns {@code int} stored in 4 bytes starting at the specified index.
+     *
+     * @param index (zero-based) index of the first byte
+     * @param order byte order of the value
+     * @return value at the specified index
+     * @throws IndexOutOfBoundsException if the specified index is invalid or there are not enough bytes
+     */
+    default int getInt(int index, ByteOrder order) {
+        return (int) Utils.readLong(this, index, Integer.BYTES, order);
+    }
+
+    /**
+     * Returns unsigned 32-bit value stored in 4 bytes starting at the specified index.
+     *
+     * @param index (zero-based) index of the first byte
+     * @param order byte order of the value
+     * @return value at the specified index in range 0-4294967295
+     * @throws IndexOutOfBoundsException if the specified index is invalid or there are not enough bytes
+     */
+    default long getUnsignedInt(int index, ByteOrder order) {
+        return getInt(index, order) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns {@code long} stored in 8 bytes starting at the specified index.
+     *
+     * @param index (zero-based) index of the first byte
+     * @param order byte order of the value
+     * @return value at the specified index
+     * @throws IndexOutOfBoundsException if the specified index is invalid or there are not enough bytes
+     */
+    default long getLong(int index, ByteOrder order) {
+        return Utils.readLong(this, index, Long.BYTES, order);
+    }
+
+    /**
+     * Returns {@code float} stored in 4 bytes starting at the specified index.
+     *
+     * @param index (zero-based) index of the first byte
+     * @param order byte order of the value
+     * @return value at the specified index
+     * @throws IndexOutOfBoundsException if the specified index is invalid or there are not enough bytes
+     */
+    default float getFloat(int index, ByteOrder order) {
+        return Float.intBitsToFloat(getInt(index, order));
+    }
+
+    /**
+     * Returns {@code double} stored in 8 bytes starting at the specified index.
+     *
+     * @param index (zero-based) index of the first byte
+     * @param order byte order of the value
+     * @return value at the specified index
+     * @throws IndexOutOfBoundsException if the specified index is invalid or there are not enough bytes
+     */
+    default double getDouble(int index, ByteOrder order) {
+        return Double.longBitsToDouble(getLong(index, order));
+    }
+
+    /**
+     * Returns value of a varint (as used by Google Protocol Buffers) starting at the specified index
+     * truncated to 32 bits. Use {@link #varintLength(int)} to get the number of bytes the varint occupies.
+     *
+     * @param index (zero-based) index of the first byte of the varint
+     * @return value of the varint
+     * @throws IndexOutOfBoundsException if the specified index is invalid or the varint is truncated
+     * @throws IllegalArgumentException  if the varint is longer than 10 bytes
+     */
+    default int getVarint32(int index) {
+        return (int) getVarint64(index);
+    }
+
+    /**
+     * Returns value of a varint (as used by Google Protocol Buffers) starting at the specified index.
+     * Use {@link #varintLength(int)} to get the number of bytes the varint occupies.
+     *
+     * @param index (zero-based) index of the first byte of the varint
+     * @return value of the varint
+     * @throws IndexOutOfBoundsException if the specified index is invalid or the varint is truncated
+     * @throws IllegalArgumentException  if the varint is longer than 10 bytes
+     */
+    default long getVarint64(int index) {
+        return Utils.readVarint(this, index);
+    }
+
+    /**
+     * Returns number of bytes occupied by the varint starting at the specified index.
+     *
+     * @param index (zero-based) index of the first byte of the varint
+     * @return length of the varint in bytes (1-10)
+     * @throws IndexOutOfBoundsException if the specified index is invalid or the varint is truncated
+     * @throws IllegalArgumentException  if the varint is longer than 10 bytes
+     */
+    default int varintLength(int index) {
+        return Utils.varintLength(this, index);
+    }
+
     /**
      * Converts this {@link Bytes} to array of bytes.
      * This operation always copying and allocation of a new byte array.
@@ -69,6 +214,18 @@ public interface Bytes {
      */
     ByteBuffer toReadOnlyByteBuffer();
 
+    /**
+     * Returns the content of this {@link Bytes} as a list of read-only {@link java.nio.ByteBuffer}s,
+     * one for each backing segment (the data of each buffer is between its position and limit).
+     * Unlike {@link #toReadOnlyByteBuffer()}, this does not copy data of implementations composed of multiple
+     * segments (e.g. {@link ConcatBytes}), so it is the preferred way of bulk-reading the data.
+     *
+     * @return list of read-only {@link java.nio.ByteBuffer}s containing data of this {@link Bytes}
+     */
+    default List<ByteBuffer> asReadOnlyByteBufferList() {
+        return Collections.singletonList(toReadOnlyByteBuffer());
+    }
+
     /**
      * Converts this {@link Bytes} to {@link String} in the specified charset.
      * This operation has the same characteristics in terms of allocation and copying
@@ -80,20 +237,57 @@ public interface Bytes {
     String toString(Charset charset);
 
     /**
-     * Converts content of this {@link Bytes} to hex string. It uses data provided by `toByteArray`, which means it probably
-     * creates a copy of the data (but that depends on the implementation of the `toByteArray`).
+     * Converts content of this {@link Bytes} to lowercase hex string.
+     * The data is read segment by segment, no intermediate copy is created.
      *
-     * Note: Implementation was copied from avast.utils.ByteUtils
      * @return hex string representation
+     * @see Hex
      */
     default String toHexString() {
-        byte[] arr = toByteArray();
-        char[] result = new char[arr.length * 2];
-        for (int i = 0; i < arr.length; ++i) {
-            result[i * 2] = Constants.HEX_ARRAY[(arr[i] >> 4) & 0xF];
-            result[i * 2 + 1] = Constants.HEX_ARRAY[(arr[i] & 0xF)];
-        }
-        return new String(result);
+        return Hex.encode(this);
+    }
+
+    /**
+     * Feeds the data of this {@link Bytes} into the given {@link MessageDigest} and completes the computation.
+     * The data is fed segment by segment without copying: arrays backing the segments directly, direct and mapped
+     * buffers through {@link MessageDigest#update(ByteBuffer)}.
+     *
+     * @param digest digest to update; it is reset after the computation
+     * @return the resulting hash
+     */
+    default byte[] digest(MessageDigest digest) {
+        return Checksums.digest(this, digest);
+    }
+
+    /**
+     * Computes CRC32 checksum of the data.
+     * The data is read segment by segment without copying.
+     *
+     * @return CRC32 checksum as unsigned 32-bit value
+     */
+    default long crc32() {
+        return Checksums.crc32(this);
+    }
+
+    /**
+     * Computes CRC32C (Castagnoli) checksum of the data.
+     * The data is read segment by segment without copying.
+     * Hardware accelerated {@code java.util.zip.CRC32C} is used if available (JDK 9+).
+     *
+     * @return CRC32C checksum as unsigned 32-bit value
+     */
+    default long crc32c() {
+        return Checksums.crc32c(this);
+    }
+
+    /**
+     * Computes Adler-32 checksum of the data.
+     * The data is read segment by segment without copying.
+     *
+     * @return Adler-32 checksum as unsigned 32-bit value
+     */
+    default long adler32() {
+        return Checksums.adler32(this);
     }
 
     /**
@@ -110,6 +304,81 @@ public interface Bytes {
      */
     InputStream newInputStream();
 
+    /**
+     * Returns new {@link BytesReader} that sequentially reads data contained in this {@link Bytes}.
+     *
+     * @return new {@link BytesReader} positioned at the beginning of this {@link Bytes}
+     */
+    default BytesReader newReader() {
+        return new BytesReader(this);
+    }
+
+    /**
+     * Returns new {@link Reader} that decodes text contained in this {@link Bytes} in the specified charset.
+     * The text is decoded incrementally, directly from the underlying segments (see {@link #asReadOnlyByteBufferList()}),
+     * so it's suitable for large payloads. Malformed input is replaced like in {@link #toString(Charset)}.
+     *
+     * @param charset charset to be used when decoding the bytes
+     * @return new {@link Reader} of the decoded text
+     */
+    default Reader newReader(Charset charset) {
+        return TextCodec.newReader(this, charset);
+    }
+
+    /**
+     * Returns approximate number of bytes of data kept reachable by this instance, i.e. the size of its backing storage.
+     * It is greater than {@link #size()} for views (see {@link #view(int, int)}) that keep alive the whole data
+     * they were created from. The default implementation returns {@link #size()}.
+     *
+     * @return size of the retained backing storage in bytes
+     */
+    default long retainedSize() {
+        return size();
+    }
+
+    /**
+     * Returns {@code true} if this instance shares its backing storage with other data, i.e. it retains more memory
+     * than its size (see {@link #retainedSize()}).
+     *
+     * @return {@code true} if the backing storage is larger than this instance
+     */
+    default boolean isShared() {
+        return retainedSize() > size();
+    }
+
+    /**
+     * Returns {@link Bytes} with the same data that do not retain much more memory than their size. If the backing
+     * storage of this instance is much larger than its size (e.g. a small view of a large array), the data is copied
+     * into a new exactly sized instance, otherwise this instance is returned.
+     * <p>
+     * Use this before storing small views for a long time (in caches, maps etc.), so that they don't keep
+     * the original data alive.
+     *
+     * @return compact instance with the same data
+     */
+    default Bytes compact() {
+        if (!Utils.shouldCompact(retainedSize(), size())) {
+            return this;
+        }
+        final int size = size();
+        if (size <= SmallBytes.MAX_SIZE) {
+            return copyFrom(toByteArray());
+        }
+        // the array is a new copy, so it can be wrapped without copying it again
+        return UnsafeBytes.unsafeWrap(toByteArray());
+    }
+
+    /**
+     * Returns a mutable copy of this {@link Bytes}. The copy is copy-on-write, the data is copied only when
+     * the buffer is modified for the first time.
+     *
+     * @return new mutable buffer with the data of this instance
+     * @see BytesBuffer
+     */
+    default BytesBuffer mutableCopy() {
+        return BytesBuffer.copyOf(this);
+    }
+
     /**
      * Returns {@link Bytes} that is a view into this one. The
      * view begins at the specified {@code beginIndex} and
@@ -157,17 +426,22 @@ public interface Bytes {
 
     /**
      * Convenience method for creating {@link Bytes} from byte array.
-     * Equivalent to {@code ByteArrayBytes.copyFrom(bytes)}.
+     * Equivalent to {@code ByteArrayBytes.copyFrom(bytes)}, except that data of at most {@link SmallBytes#MAX_SIZE}
+     * bytes is copied into the more compact {@link SmallBytes}.
      */
     static Bytes copyFrom(byte[] bytes) {
-        return ByteArrayBytes.copyFrom(bytes);
+        return copyFrom(bytes, 0, bytes.length);
     }
 
     /**
      * Convenience method for creating {@link Bytes} from byte array.
-     * Equivalent to {@code ByteArrayBytes.copyFrom(bytes, off, len)}.
+     * Equivalent to {@code ByteArrayBytes.copyFrom(bytes, off, len)}, except that data of at most
+     * {@link SmallBytes#MAX_SIZE} bytes is copied into the more compact {@link SmallBytes}.
      */
     static Bytes copyFrom(byte[] bytes, int off, int len) {
+        if (len > 0 && len <= SmallBytes.MAX_SIZE) {
+            return SmallBytes.copyFrom(bytes, off, len);
+        }
         return ByteArrayBytes.copyFrom(bytes, off, len);
     }
 
@@ -181,10 +455,20 @@ public interface Bytes {
 
     /**
      * Convenience method for creating {@link Bytes} from {@link String} in given {@link Charset}.
-     * Equivalent to {@code Bytes.copyFrom(string.getBytes(charset))}.
+     * Equivalent to {@code Bytes.copyFrom(string.getBytes(charset))}, but the encoded array is not copied again.
      */
     static Bytes copyFrom(String string, Charset charset) {
-        return copyFrom(string.getBytes(charset));
+        return copyFrom((CharSequence) string, charset);
+    }
+
+    /**
+     * Convenience method for creating {@link Bytes} from {@link CharSequence} in given {@link Charset}.
+     * The text is encoded into an exactly sized array, which is not copied again (UTF-8 is encoded directly
+     * from the {@link CharSequence}). Like {@link #copyFrom(byte[])}, small values are returned as {@link SmallBytes}.
+     */
+    static Bytes copyFrom(CharSequence text, Charset charset) {
+        final Bytes encoded = TextCodec.encode(text, charset);
+        return encoded.size() > 0 && encoded.size() <= SmallBytes.MAX_SIZE ? SmallBytes.copyFrom(encoded.toByteArray()) : encoded;
     }
 
     /**
@@ -196,23 +480,10 @@ public interface Bytes {
 
     /**
      * Convenience method for creating {@link Bytes} from HEX {@link String}.
+     * Equivalent to {@code Hex.decode(hexString)}; like {@link #copyFrom(byte[])}, small values are returned
+     * as {@link SmallBytes}.
      */
     static Bytes copyFromHex(String hexString) {
-        final int length = hexString.length();
-        if (length % 2 != 0) {
-            throw new IllegalArgumentException("HexString needs to be even-length: " + hexString);
-        }
-
-        try {
-            byte[] result = new byte[length / 2];
-            for (int i = 0; i < length; i += 2) {
-                int high = Utils.hexToBin(hexString.charAt(i));
-                int low = Utils.hexToBin(hexString.charAt(i + 1));
-                result[i >> 1] = (byte) ((high << 4) + low);
-            }
-            return copyFrom(result);
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("HexString contains illegal characters: " + hexString, e);
-        }
+        return Hex.decode(hexString);
     }
 }
@@ -0,0 +1,367 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.UnsafeBytes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of {@link Bytes} packed into a single {@link Bytes} instead of one object and one array per element.
+ * Elements are zero-copy views (see {@link Bytes#view(int, int)}) of the packed data and are accessible by index
+ * in O(1).
+ * <p>
+ * The packed form ({@link #toBytes()}, {@link #wrap(Bytes)}) is the data of all the elements followed by a table
+ * of offsets and the number of elements (all values are 32-bit big-endian):
+ * <pre>
+ * data        (concatenated elements)
+ * offsets     (count + 1 values, start of each element in data; the last one is the length of data)
+ * count
+ * </pre>
+ * The table is read lazily, so {@link #wrap(Bytes)} takes O(1) time and the packed form can be used directly
+ * from a memory-mapped file or a received buffer (wrapped e.g. using {@link UnsafeBytes#unsafeWrap(ByteBuffer)}).
+ * The table is at the end, so that {@link Builder} writes the whole batch into a single buffer without copying.
+ * <p>
+ * Alternatively, the elements can be encoded in a compact length-prefixed form ({@link #encodeLengthPrefixed(Collection)},
+ * {@link #decodeLengthPrefixed(Bytes)}): number of elements followed by each element prefixed by its length,
+ * all values being varints (as used by Google Protocol Buffers).
+ */
+public final class BytesBatch extends AbstractList<Bytes> implements RandomAccess {
+
+    private final Bytes source;
+
+    private final int count;
+
+    /**
+     * Position of the offsets table in the packed form; {@code -1} for batches decoded from the length-prefixed form.
+     */
+    private final int tableStart;
+
+    /**
+     * Positions of the length prefixes of the elements in the length-prefixed form; {@code null} for the packed form.
+     */
+    private final int[] prefixPositions;
+
+    private BytesBatch(final Bytes source, final int count, final int tableStart, final int[] prefixPositions) {
+        this.source = source;
+        this.count = count;
+        this.tableStart = tableStart;
+        this.prefixPositions = prefixPositions;
+    }
+
+    /**
+     * Wraps {@link Bytes} in the packed form without copying.
+     * Only the trailer is validated, offsets of the elements are validated when they are accessed.
+     *
+     * @param packed packed batch (e.g. returned by {@link #toBytes()})
+     * @return batch backed by the given {@link Bytes}
+     * @throws IllegalArgumentException if the data is not a valid packed batch
+     */
+    public static BytesBatch wrap(final Bytes packed) {
+        final int size = packed.size();
+        if (size < 2 * Integer.BYTES) {
+            throw new IllegalArgumentException("Invalid batch of " + size + " bytes");
+        }
+        final int count = packed.getInt(size - Integer.BYTES, ByteOrder.BIG_ENDIAN);
+        final long tableStart = size - Integer.BYTES - (count + 1L) * Integer.BYTES;
+        if (count < 0 || tableStart < 0
+                || packed.getInt((int) tableStart, ByteOrder.BIG_ENDIAN) != 0
+                || packed.getInt(size - 2 * Integer.BYTES, ByteOrder.BIG_ENDIAN) != tableStart) {
+            throw new IllegalArgumentException("Invalid batch trailer");
+        }
+        return new BytesBatch(packed, count, (int) tableStart, null);
+    }
+
+    /**
+     * Creates batch containing copy of the given {@link Bytes}.
+     *
+     * @param elements elements of the batch
+     * @return new batch
+     */
+    public static BytesBatch of(final Collection<? extends Bytes> elements) {
+        final Builder builder = new Builder(elements.size(), 0);
+        for (Bytes element : elements) {
+            builder.append(element);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Decodes the length-prefixed form. The elements are views of the given {@link Bytes}.
+     *
+     * @param encoded length-prefixed elements (e.g. returned by {@link #encodeLengthPrefixed(Collection)})
+     * @return batch of the decoded elements
+     * @throws IllegalArgumentException if the data is not valid length-prefixed form
+     */
+    public static BytesBatch decodeLengthPrefixed(final Bytes encoded) {
+        try {
+            final int count = encoded.getVarint32(0);
+            if (count < 0 || count > encoded.size()) {
+                throw new IllegalArgumentException("Invalid number of elements: " + count);
+            }
+            final int[] positions = new int[count];
+            int position = encoded.varintLength(0);
+            for (int i = 0; i < count; i++) {
+                positions[i] = position;
+                final int length = encoded.getVarint32(position);
+                position += encoded.varintLength(position);
+                if (length < 0 || length > encoded.size() - position) {
+                    throw new IllegalArgumentException("Invalid length of element " + i + ": " + length);
+                }
+                position += length;
+            }
+            if (position != encoded.size()) {
+                throw new IllegalArgumentException((encoded.size() - position) + " trailing bytes after the last element");
+            }
+            return new BytesBatch(encoded, count, -1, positions);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated length-prefixed batch", e);
+        }
+    }
+
+    /**
+     * Encodes the elements in the length-prefixed form.
+     *
+     * @param elements elements to encode
+     * @return new {@link Bytes} with the encoded elements
+     */
+    public static Bytes encodeLengthPrefixed(final Collection<? extends Bytes> elements) {
+        long encodedSize = Utils.varintSize(elements.size());
+        for (Bytes element : elements) {
+            encodedSize += Utils.varintSize(element.size()) + element.size();
+        }
+        if (encodedSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Size of Bytes cannot exceed " + Integer.MAX_VALUE + " bytes");
+        }
+
+        final byte[] encoded = new byte[(int) encodedSize];
+        int position = Utils.writeVarint(encoded, 0, elements.size());
+        for (Bytes element : elements) {
+            position = Utils.writeVarint(encoded, position, element.size());
+            position = copy(element, encoded, position);
+        }
+        return UnsafeBytes.unsafeWrap(encoded);
+    }
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return number of elements
+     */
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns view of the element at the specified index.
+     *
+     * @param index index of the element
+     * @return the element
+     * @throws IndexOutOfBoundsException if the index is out of range
+     * @throws IllegalArgumentException  if the offsets table of a wrapped batch is corrupted
+     */
+    @Override
+    public Bytes get(final int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        if (prefixPositions != null) {
+            final int position = prefixPositions[index];
+            final int begin = position + source.varintLength(position);
+            return source.view(begin, begin + source.getVarint32(position));
+        }
+
+        final int offsetIndex = tableStart + index * Integer.BYTES;
+        final int begin = source.getInt(offsetIndex, ByteOrder.BIG_ENDIAN);
+        final int end = source.getInt(offsetIndex + Integer.BYTES, ByteOrder.BIG_ENDIAN);
+        if (begin < 0 || begin > end || end > tableStart) {
+            throw new IllegalArgumentException("Invalid offsets of element " + index + ": " + begin + "-" + end);
+        }
+        return source.view(begin, end);
+    }
+
+    /**
+     * Returns the packed form of this batch. Batches created by {@link Builder} or {@link #wrap(Bytes)} return
+     * their backing {@link Bytes}, decoded length-prefixed batches are copied.
+     *
+     * @return packed form of this batch
+     */
+    public Bytes toBytes() {
+        if (prefixPositions == null) {
+            return source;
+        }
+        return of(this).source;
+    }
+
+    /**
+     * Encodes this batch in the length-prefixed form. Decoded length-prefixed batches return their backing
+     * {@link Bytes}.
+     *
+     * @return length-prefixed form of this batch
+     */
+    public Bytes encodeLengthPrefixed() {
+        if (prefixPositions != null) {
+            return source;
+        }
+        return encodeLengthPrefixed(this);
+    }
+
+    /**
+     * Creates new {@link Builder}.
+     *
+     * @return new builder
+     */
+    public static Builder newBuilder() {
+        return new Builder(16, 256);
+    }
+
+    /**
+     * Creates new {@link Builder} with the specified initial capacity (more elements and bytes can be appended however).
+     *
+     * @param expectedCount    expected number of elements
+     * @param expectedDataSize expected total size of the elements
+     * @return new builder
+     */
+    public static Builder newBuilder(final int expectedCount, final int expectedDataSize) {
+        if (expectedCount < 0 || expectedDataSize < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + expectedCount + ", " + expectedDataSize);
+        }
+        return new Builder(expectedCount, expectedDataSize);
+    }
+
+    private static int copy(final Bytes bytes, final byte[] dest, int position) {
+        for (ByteBuffer buffer : bytes.asReadOnlyByteBufferList()) {
+            final int n = buffer.remaining();
+            buffer.get(dest, position, n);
+            position += n;
+        }
+        return position;
+    }
+
+    /**
+     * Packs elements into a single growing array; appending doesn't allocate anything per element and
+     * {@link #build()} writes the offsets table after the data, so the array is wrapped without copying.
+     * <p>
+     * Instances are NOT thread-safe.
+     */
+    public static final class Builder {
+
+        private byte[] data;
+
+        private int dataSize = 0;
+
+        /**
+         * Start of each appended element in data.
+         */
+        private int[] offsets;
+
+        private int count = 0;
+
+        private Builder(final int expectedCount, final int expectedDataSize) {
+            this.offsets = new int[Math.max(expectedCount, 1)];
+            this.data = new byte[(int) Math.min(Integer.MAX_VALUE - 8, expectedDataSize + (expectedCount + 2L) * Integer.BYTES)];
+        }
+
+        /**
+         * Returns number of elements appended so far.
+         *
+         * @return number of appended elements
+         */
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Appends copy of the given {@link Bytes}.
+         *
+         * @param bytes element to append
+         * @return this builder
+         */
+        public Builder append(final Bytes bytes) {
+            final int position = startElement(bytes.size());
+            copy(bytes, data, position);
+            return this;
+        }
+
+        /**
+         * Appends copy of the given array.
+         *
+         * @param bytes element to append
+         * @return this builder
+         */
+        public Builder append(final byte[] bytes) {
+            return append(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Appends copy of the specified part of the given array.
+         *
+         * @param bytes  array containing the element
+         * @param offset offset of the first byte of the element
+         * @param length length of the element
+         * @return this builder
+         */
+        public Builder append(final byte[] bytes, final int offset, final int length) {
+            if (offset < 0 || length < 0 || length > bytes.length - offset) {
+                throw new ArrayIndexOutOfBoundsException("Invalid range " + offset + "+" + length + " for array of length " + bytes.length);
+            }
+            final int position = startElement(length);
+            System.arraycopy(bytes, offset, data, position, length);
+            return this;
+        }
+
+        /**
+         * Returns the batch of all appended elements and resets this builder, so it can be used for building
+         * another batch.
+         *
+         * @return new batch
+         */
+        public BytesBatch build() {
+            ensureCapacity((count + 2L) * Integer.BYTES);
+            final ByteBuffer table = ByteBuffer.wrap(data, dataSize, (count + 2) * Integer.BYTES);
+            for (int i = 0; i < count; i++) {
+                table.putInt(offsets[i]);
+            }
+            table.putInt(dataSize);
+            table.putInt(count);
+
+            final int tableStart = dataSize;
+            final BytesBatch batch = new BytesBatch(UnsafeBytes.unsafeWrap(data, 0, table.position()), count, tableStart, null);
+            // the array is owned by the batch now
+            data = new byte[Math.min(data.length, 256)];
+            dataSize = 0;
+            count = 0;
+            return batch;
+        }
+
+        /**
+         * Reserves space for an element and returns its position in data.
+         */
+        private int startElement(final int length) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            ensureCapacity(length);
+            final int position = dataSize;
+            offsets[count++] = position;
+            dataSize += length;
+            return position;
+        }
+
+        private void ensureCapacity(final long n) {
+            final long required = dataSize + n;
+            if (required > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Size of BytesBatch cannot exceed " + (Integer.MAX_VALUE - 8) + " bytes");
+            }
+            if (required > data.length) {
+                data = Arrays.copyOf(data, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, data.length * 2L)));
+            }
+        }
+
+    }
+
+}
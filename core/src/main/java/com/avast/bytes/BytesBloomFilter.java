@@ -0,0 +1,369 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.UnsafeBytes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of {@link Bytes} keys: a compact set that answers "definitely not present" or "probably present".
+ * <p>
+ * Each key is hashed once by a 64-bit hash that reads the key word by word and does not depend on its segmentation,
+ * the bit positions are derived from it by double hashing. The filter is either standard (the bits are spread over the whole
+ * bit array) or blocked (all bits of a key are in a single 64-byte block, i.e. one cache line, which makes lookups
+ * faster). Keys are not spread evenly over the blocks, so a blocked filter needs more bits for the same false positive
+ * rate: it is sized by a model of the distribution of keys per block, which makes it about 4% larger than a standard
+ * one for the rate of 1% and about 15% larger for 0.01%.
+ * <p>
+ * Inserts are lock-free: bits are set by atomic compare-and-set of 64-bit words, so {@link #put(Bytes)} and
+ * {@link #mightContain(Bytes)} can be called from any number of threads.
+ * <p>
+ * {@link #toBytes()} serializes the filter (a header followed by the little-endian words), {@link #copyFrom(Bytes)} creates
+ * a modifiable copy and {@link #wrap(Bytes)} creates a read-only filter that queries the serialized form directly, e.g.
+ * a memory-mapped file, without loading it on heap.
+ */
+public final class BytesBloomFilter {
+
+    private static final int MAGIC = 0x424C4F4D; // "BLOM"
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int STANDARD = 0;
+
+    private static final int BLOCKED = 1;
+
+    private static final int BLOCK_WORDS = 8;
+
+    private static final int BLOCK_BITS = BLOCK_WORDS * Long.SIZE;
+
+    private static final int MAX_HASH_COUNT = 30;
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Number of bit positions within a block taken from a single 64-bit hash.
+     */
+    private static final int BITS_PER_HASH = Long.SIZE / 9;
+
+    /**
+     * Maximum number of words that can be serialized into {@link Bytes}.
+     */
+    private static final long MAX_WORDS = (Integer.MAX_VALUE - HEADER_SIZE) / Long.BYTES / BLOCK_WORDS * BLOCK_WORDS;
+
+    private final int variant;
+
+    private final int hashCount;
+
+    private final long bitSize;
+
+    /**
+     * Words of a modifiable filter, {@code null} for a read-only one.
+     */
+    private final AtomicLongArray words;
+
+    /**
+     * Serialized filter of a read-only filter, {@code null} for a modifiable one.
+     */
+    private final Bytes serialized;
+
+    private BytesBloomFilter(final int variant, final int hashCount, final long bitSize, final AtomicLongArray words, final Bytes serialized) {
+        this.variant = variant;
+        this.hashCount = hashCount;
+        this.bitSize = bitSize;
+        this.words = words;
+        this.serialized = serialized;
+    }
+
+    /**
+     * Creates standard filter sized for the expected number of keys and the desired false positive rate.
+     *
+     * @param expectedInsertions expected number of keys
+     * @param falsePositiveRate  desired false positive rate, e.g. 0.01
+     * @return new empty filter
+     * @throws IllegalArgumentException if the filter would not fit in {@link Bytes}
+     */
+    public static BytesBloomFilter create(final long expectedInsertions, final double falsePositiveRate) {
+        return create(STANDARD, expectedInsertions, falsePositiveRate);
+    }
+
+    /**
+     * Creates blocked filter sized for the expected number of keys and the desired false positive rate.
+     * The filter is larger than a standard one with the same rate, see {@link BytesBloomFilter}.
+     *
+     * @param expectedInsertions expected number of keys
+     * @param falsePositiveRate  desired false positive rate, e.g. 0.01
+     * @return new empty filter
+     * @throws IllegalArgumentException if the filter would not fit in {@link Bytes}
+     */
+    public static BytesBloomFilter createBlocked(final long expectedInsertions, final double falsePositiveRate) {
+        return create(BLOCKED, expectedInsertions, falsePositiveRate);
+    }
+
+    private static BytesBloomFilter create(final int variant, final long expectedInsertions, final double falsePositiveRate) {
+        if (expectedInsertions <= 0 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Invalid expected insertions or false positive rate: " + expectedInsertions + ", " + falsePositiveRate);
+        }
+        final double ln2 = Math.log(2);
+        double bitsPerKey = -Math.log(falsePositiveRate) / (ln2 * ln2);
+        if (variant == BLOCKED) {
+            while (blockedFalsePositiveRate(bitsPerKey, blockedHashCount(bitsPerKey)) > falsePositiveRate) {
+                bitsPerKey *= 1.01;
+            }
+        }
+        // whole blocks of words, so that both variants have the same layout
+        final long words = ((long) Math.ceil(expectedInsertions * bitsPerKey / Long.SIZE) + BLOCK_WORDS - 1) / BLOCK_WORDS * BLOCK_WORDS;
+        if (words > MAX_WORDS) {
+            throw new IllegalArgumentException("Filter of " + words + " words would exceed maximum size of Bytes");
+        }
+        final double actualBitsPerKey = words * Long.SIZE / (double) expectedInsertions;
+        final int hashCount = variant == BLOCKED
+                ? blockedHashCount(actualBitsPerKey)
+                : (int) Math.max(1, Math.min(MAX_HASH_COUNT, Math.round(actualBitsPerKey * ln2)));
+        return new BytesBloomFilter(variant, hashCount, words * Long.SIZE, new AtomicLongArray((int) words), null);
+    }
+
+    /**
+     * Number of hashes minimizing the false positive rate of a blocked filter.
+     */
+    private static int blockedHashCount(final double bitsPerKey) {
+        int best = 1;
+        double bestRate = 1;
+        for (int k = 1; k <= MAX_HASH_COUNT; k++) {
+            final double rate = blockedFalsePositiveRate(bitsPerKey, k);
+            if (rate < bestRate) {
+                best = k;
+                bestRate = rate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * False positive rate of a blocked filter: the rate of a standard filter of one block, weighted by the Poisson
+     * distribution of the number of keys per block.
+     */
+    private static double blockedFalsePositiveRate(final double bitsPerKey, final int hashCount) {
+        final double mean = BLOCK_BITS / bitsPerKey;
+        final double missProbability = 1 - 1.0 / BLOCK_BITS;
+        double probability = Math.exp(-mean);
+        double rate = 0;
+        for (int keys = 0; keys < mean + 20 * Math.sqrt(mean) + 20; keys++) {
+            if (keys > 0) {
+                probability *= mean / keys;
+            }
+            rate += probability * Math.pow(1 - Math.pow(missProbability, (double) hashCount * keys), hashCount);
+        }
+        return rate;
+    }
+
+    /**
+     * Creates modifiable copy of a serialized filter.
+     *
+     * @param serialized filter serialized by {@link #toBytes()}
+     * @return new filter
+     * @throws IllegalArgumentException if the data is not a serialized filter
+     */
+    public static BytesBloomFilter copyFrom(final Bytes serialized) {
+        final BytesBloomFilter filter = wrap(serialized);
+        final int count = (int) (filter.bitSize / Long.SIZE);
+        final AtomicLongArray words = new AtomicLongArray(count);
+        for (int i = 0; i < count; i++) {
+            words.set(i, filter.word(i));
+        }
+        return new BytesBloomFilter(filter.variant, filter.hashCount, filter.bitSize, words, null);
+    }
+
+    /**
+     * Creates read-only filter backed directly by the serialized filter (without copying it).
+     *
+     * @param serialized filter serialized by {@link #toBytes()}, e.g. a mapped file
+     * @return read-only filter
+     * @throws IllegalArgumentException if the data is not a serialized filter
+     */
+    public static BytesBloomFilter wrap(final Bytes serialized) {
+        if (serialized.size() < HEADER_SIZE || serialized.getInt(0, ByteOrder.LITTLE_ENDIAN) != MAGIC) {
+            throw new IllegalArgumentException("Not a serialized Bloom filter");
+        }
+        final int variant = serialized.byteAt(4);
+        final int hashCount = serialized.byteAt(5);
+        final long bitSize = serialized.getLong(8, ByteOrder.LITTLE_ENDIAN);
+        if ((variant != STANDARD && variant != BLOCKED) || hashCount < 1 || bitSize <= 0 || bitSize % (BLOCK_WORDS * Long.SIZE) != 0
+                || bitSize / Long.SIZE != (serialized.size() - HEADER_SIZE) / Long.BYTES || (serialized.size() - HEADER_SIZE) % Long.BYTES != 0) {
+            throw new IllegalArgumentException("Malformed serialized Bloom filter");
+        }
+        return new BytesBloomFilter(variant, hashCount, bitSize, null, serialized);
+    }
+
+    /**
+     * Adds the key.
+     *
+     * @param key the key
+     * @return {@code true} if any bit has changed, i.e. the key has definitely not been present
+     * @throws UnsupportedOperationException if the filter is read-only (see {@link #wrap(Bytes)})
+     */
+    public boolean put(final Bytes key) {
+        if (words == null) {
+            throw new UnsupportedOperationException("Bloom filter is read-only");
+        }
+        final long h1 = Hashing.hash64(key);
+        boolean changed = false;
+        if (variant == BLOCKED) {
+            final int block = block(h1);
+            long bits = mix(h1 ^ SEED);
+            for (int i = 0; i < hashCount; i++) {
+                final int bit = blockBit(bits, i);
+                changed |= setBit(block + (bit >>> 6), 1L << bit);
+                if (i % BITS_PER_HASH == BITS_PER_HASH - 1) {
+                    bits = mix(bits);
+                }
+            }
+        } else {
+            final long h2 = secondHash(h1);
+            for (int i = 0; i < hashCount; i++) {
+                final long bit = ((h1 + i * h2) >>> 1) % bitSize;
+                changed |= setBit((int) (bit >>> 6), 1L << bit);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns {@code true} if the key might have been added, {@code false} if it has definitely not been added.
+     *
+     * @param key the key
+     * @return {@code false} if the key is not present
+     */
+    public boolean mightContain(final Bytes key) {
+        final long h1 = Hashing.hash64(key);
+        if (variant == BLOCKED) {
+            final int block = block(h1);
+            long bits = mix(h1 ^ SEED);
+            for (int i = 0; i < hashCount; i++) {
+                final int bit = blockBit(bits, i);
+                if ((word(block + (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+                if (i % BITS_PER_HASH == BITS_PER_HASH - 1) {
+                    bits = mix(bits);
+                }
+            }
+        } else {
+            final long h2 = secondHash(h1);
+            for (int i = 0; i < hashCount; i++) {
+                final long bit = ((h1 + i * h2) >>> 1) % bitSize;
+                if ((word((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if this is a blocked filter
+     */
+    public boolean isBlocked() {
+        return variant == BLOCKED;
+    }
+
+    /**
+     * @return number of bits per key
+     */
+    public int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * @return size of the bit array
+     */
+    public long bitSize() {
+        return bitSize;
+    }
+
+    /**
+     * Counts bits set, e.g. for estimating the fill ratio. Not atomic with respect to concurrent inserts.
+     *
+     * @return number of bits set
+     */
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < bitSize / Long.SIZE; i++) {
+            count += Long.bitCount(word(i));
+        }
+        return count;
+    }
+
+    /**
+     * Serializes the filter. Concurrent inserts may or may not be included.
+     *
+     * @return serialized filter
+     */
+    public Bytes toBytes() {
+        if (serialized != null) {
+            return serialized;
+        }
+        final int count = words.length();
+        final ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + count * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(0, MAGIC);
+        out.put(4, (byte) variant);
+        out.put(5, (byte) hashCount);
+        out.putLong(8, bitSize);
+        for (int i = 0; i < count; i++) {
+            out.putLong(HEADER_SIZE + i * Long.BYTES, words.get(i));
+        }
+        return UnsafeBytes.unsafeWrap(out.array());
+    }
+
+    @Override
+    public String toString() {
+        return "BytesBloomFilter(" + (isBlocked() ? "blocked, " : "") + "bits:" + bitSize + ", hashes:" + hashCount + ")";
+    }
+
+    private long word(final int index) {
+        return words != null ? words.get(index) : serialized.getLong(HEADER_SIZE + index * Long.BYTES, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private boolean setBit(final int index, final long mask) {
+        long word = words.get(index);
+        while ((word & mask) == 0) {
+            if (words.compareAndSet(index, word, word | mask)) {
+                return true;
+            }
+            word = words.get(index);
+        }
+        return false;
+    }
+
+    /**
+     * Index of the first word of the block of the key, taken from the high bits of the first hash.
+     */
+    private int block(final long h1) {
+        final long blocks = bitSize / BLOCK_BITS;
+        return (int) (((h1 >>> 32) * blocks) >>> 32) * BLOCK_WORDS;
+    }
+
+    /**
+     * Position (0-511) of the {@code i}-th bit of the key within its block. Positions are consecutive 9-bit fields
+     * of a second hash, which is independent of the bits choosing the block; when they are used up, the hash
+     * is mixed again.
+     */
+    private static int blockBit(final long bits, final int i) {
+        return (int) (bits >>> (9 * (i % BITS_PER_HASH))) & (BLOCK_BITS - 1);
+    }
+
+    private static long secondHash(final long h1) {
+        // the result is odd so that the positions do not repeat
+        return mix(h1 ^ SEED) | 1;
+    }
+
+    /**
+     * Finalizer of MurmurHash3.
+     */
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+}
@@ -9,8 +9,29 @@ package com.avast.bytes;
  */
 public class BytesComparator extends AbstractBytesComparator {
 
+    public BytesComparator() {
+    }
+
+    /**
+     * @param shorterIsLess Shorter Bytes will be taken as less if true. For example, 0x01 &lt; 0x0102
+     */
+    public BytesComparator(boolean shorterIsLess) {
+        super(shorterIsLess);
+    }
+
     @Override
     protected int compare(byte a, byte b) {
         return a - b;
     }
+
+    @Override
+    public boolean supportsNormalizedKeys() {
+        return true;
+    }
+
+    @Override
+    public long normalizedKey(long bigEndianBytes) {
+        // flipping the sign bit of every byte maps signed order to unsigned order
+        return bigEndianBytes ^ 0x8080808080808080L;
+    }
 }
@@ -0,0 +1,220 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.BytesBuffer;
+
+/**
+ * Binary deltas between two versions of data, for transferring only the changes to a party that already has
+ * the previous version.
+ * <p>
+ * {@link #compute(Bytes, Bytes)} finds blocks of the base in the target using a rolling hash (as rsync does): the base is
+ * indexed in non-overlapping blocks, the target is scanned byte by byte and every match is extended in both directions.
+ * The delta is a sequence of instructions, each starting with a varint {@code length << 1 | type}:
+ * <ul>
+ * <li>ADD (type 0) followed by {@code length} literal bytes of the target</li>
+ * <li>COPY (type 1) followed by a varint offset of {@code length} bytes in the base</li>
+ * </ul>
+ * The instructions are preceded by varint sizes of the base and of the target, which are verified when the delta is applied.
+ * <p>
+ * {@link #apply(Bytes, Bytes)} does not copy the data of large instructions: the result is {@link ConcatBytes}
+ * of views of the base and of the literals in the delta.
+ */
+public final class BytesDelta {
+
+    /**
+     * Default size of the matched blocks.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 32;
+
+    private static final int ADD = 0;
+
+    private static final int COPY = 1;
+
+    /**
+     * Multiplier of the rolling polynomial hash.
+     */
+    private static final long PRIME = 0x100000001B3L;
+
+    private BytesDelta() {
+    }
+
+    /**
+     * Computes delta transforming the base into the target using the default block size.
+     *
+     * @param base   the previous version of the data
+     * @param target the new version of the data
+     * @return encoded delta
+     */
+    public static Bytes compute(final Bytes base, final Bytes target) {
+        return compute(base, target, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Computes delta transforming the base into the target. Smaller blocks find more matches at the cost of a larger index
+     * of the base; the base and the target are copied into arrays while the delta is computed.
+     *
+     * @param base      the previous version of the data
+     * @param target    the new version of the data
+     * @param blockSize size of the matched blocks (the shortest copied data)
+     * @return encoded delta
+     */
+    public static Bytes compute(final Bytes base, final Bytes target, final int blockSize) {
+        if (blockSize < 4) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        }
+        final byte[] b = base.toByteArray();
+        final byte[] t = target.toByteArray();
+        final BytesBuffer out = new BytesBuffer(Math.max(32, t.length / 8));
+        writeVarint(out, b.length);
+        writeVarint(out, t.length);
+
+        if (t.length < blockSize || b.length < blockSize) {
+            writeAdd(out, t, 0, t.length);
+            return out.freeze();
+        }
+
+        final int blocks = b.length / blockSize;
+        final int bits = Math.max(4, 33 - Integer.numberOfLeadingZeros(blocks));
+        final int[] table = new int[1 << bits];
+        for (int i = 0; i < blocks; i++) {
+            final int offset = i * blockSize;
+            final int slot = slot(hash(b, offset, blockSize), bits);
+            if (table[slot] == 0) {
+                // keep the first occurrence
+                table[slot] = offset + 1;
+            }
+        }
+
+        long power = 1;
+        for (int i = 1; i < blockSize; i++) {
+            power *= PRIME;
+        }
+
+        int position = 0;
+        int literalStart = 0;
+        long h = hash(t, 0, blockSize);
+        while (position + blockSize <= t.length) {
+            final int candidate = table[slot(h, bits)] - 1;
+            if (candidate >= 0 && equal(b, candidate, t, position, blockSize)) {
+                int start = position;
+                int baseStart = candidate;
+                while (start > literalStart && baseStart > 0 && b[baseStart - 1] == t[start - 1]) {
+                    start--;
+                    baseStart--;
+                }
+                int end = position + blockSize;
+                int baseEnd = candidate + blockSize;
+                while (end < t.length && baseEnd < b.length && b[baseEnd] == t[end]) {
+                    end++;
+                    baseEnd++;
+                }
+                writeAdd(out, t, literalStart, start - literalStart);
+                writeInstruction(out, COPY, end - start);
+                writeVarint(out, baseStart);
+                position = end;
+                literalStart = end;
+                if (position + blockSize <= t.length) {
+                    h = hash(t, position, blockSize);
+                }
+            } else {
+                if (position + blockSize < t.length) {
+                    h = (h - (t[position] & 0xFF) * power) * PRIME + (t[position + blockSize] & 0xFF);
+                }
+                position++;
+            }
+        }
+        writeAdd(out, t, literalStart, t.length - literalStart);
+        return out.freeze();
+    }
+
+    /**
+     * Applies delta to the base. Copied parts of the base and large literals are referenced without copying.
+     *
+     * @param base  the previous version of the data, which the delta was computed from
+     * @param delta delta computed by {@link #compute(Bytes, Bytes, int)}
+     * @return the new version of the data
+     * @throws IllegalArgumentException if the delta is malformed or it was computed from a base of a different size
+     */
+    public static Bytes apply(final Bytes base, final Bytes delta) {
+        try {
+            int position = 0;
+            final long baseSize = delta.getVarint64(position);
+            position += delta.varintLength(position);
+            final long targetSize = delta.getVarint64(position);
+            position += delta.varintLength(position);
+            if (baseSize != base.size()) {
+                throw new IllegalArgumentException("Delta was computed from base of size " + baseSize + ", not " + base.size());
+            }
+
+            final ConcatBytes.Builder builder = ConcatBytes.newBuilder();
+            while (position < delta.size()) {
+                final long instruction = delta.getVarint64(position);
+                position += delta.varintLength(position);
+                final long length = instruction >>> 1;
+                if (length > targetSize - builder.size()) {
+                    throw new IllegalArgumentException("Malformed delta: instruction at index " + position + " exceeds the target size");
+                }
+                if ((instruction & 1) == ADD) {
+                    if (length > delta.size() - position) {
+                        throw new IllegalArgumentException("Malformed delta: truncated literal at index " + position);
+                    }
+                    builder.append(delta, position, position + (int) length);
+                    position += (int) length;
+                } else {
+                    final long offset = delta.getVarint64(position);
+                    position += delta.varintLength(position);
+                    if (offset < 0 || offset > base.size() - length) {
+                        throw new IllegalArgumentException("Malformed delta: copy of " + offset + "+" + length + " is out of the base");
+                    }
+                    builder.append(base, (int) offset, (int) (offset + length));
+                }
+            }
+            if (builder.size() != targetSize) {
+                throw new IllegalArgumentException("Malformed delta: target has " + builder.size() + " bytes instead of " + targetSize);
+            }
+            return builder.build();
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed delta: truncated varint", e);
+        }
+    }
+
+    private static void writeAdd(final BytesBuffer out, final byte[] data, final int offset, final int length) {
+        if (length > 0) {
+            writeInstruction(out, ADD, length);
+            out.append(data, offset, length);
+        }
+    }
+
+    private static void writeInstruction(final BytesBuffer out, final int type, final int length) {
+        writeVarint(out, (long) length << 1 | type);
+    }
+
+    private static void writeVarint(final BytesBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.append((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.append((byte) value);
+    }
+
+    private static long hash(final byte[] data, final int offset, final int length) {
+        long h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = h * PRIME + (data[i] & 0xFF);
+        }
+        return h;
+    }
+
+    private static int slot(final long hash, final int bits) {
+        return (int) ((hash * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+    }
+
+    private static boolean equal(final byte[] a, final int aOffset, final byte[] b, final int bOffset, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
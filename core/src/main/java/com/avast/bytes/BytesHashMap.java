@@ -0,0 +1,193 @@
+package com.avast.bytes;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Hash map with {@link Bytes} keys optimized for large numbers of entries and frequent lookups.
+ * <p>
+ * Unlike {@code HashMap<Bytes, V>}, the map does not allocate an object per entry: data of the keys is copied into
+ * a single array and the map keeps their cached 64-bit hashes, so lookups hash the looked-up key once, compare
+ * hashes first and compare the data 8 bytes at a time. Any {@link Bytes} implementation (including views and
+ * {@link ConcatBytes}) can be used for lookups without copying it; equal data means equal keys regardless
+ * of the implementation. The map uses open addressing with linear probing and grows incrementally.
+ * <p>
+ * Keys passed to {@link #forEach(BiConsumer)} are views of the internal array, they remain valid (and immutable)
+ * even after the map is modified, but keep the array alive.
+ * <p>
+ * {@code null} values are not supported. Instances are NOT thread-safe.
+ *
+ * @param <V> type of values
+ * @see BytesToLongMap
+ */
+public final class BytesHashMap<V> {
+
+    private final Table table;
+
+    /**
+     * Creates empty map.
+     */
+    public BytesHashMap() {
+        this(0);
+    }
+
+    /**
+     * Creates empty map with capacity for the given number of entries.
+     *
+     * @param expectedSize expected number of entries
+     */
+    public BytesHashMap(int expectedSize) {
+        this.table = new Table(expectedSize);
+    }
+
+    /**
+     * Returns number of entries in the map.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Returns {@code true} if there are no entries in the map.
+     *
+     * @return {@code true} if the map is empty
+     */
+    public boolean isEmpty() {
+        return table.size() == 0;
+    }
+
+    /**
+     * Returns the value associated with the given key.
+     *
+     * @param key key to look up
+     * @return the value or {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Bytes key) {
+        final int id = table.find(key);
+        return id < 0 ? null : (V) table.values[id];
+    }
+
+    /**
+     * Returns {@code true} if there is a value associated with the given key.
+     *
+     * @param key key to look up
+     * @return {@code true} if the map contains the key
+     */
+    public boolean containsKey(Bytes key) {
+        return table.find(key) >= 0;
+    }
+
+    /**
+     * Associates the value with the given key. The data of the key is copied into the map.
+     *
+     * @param key   key
+     * @param value value (not {@code null})
+     * @return the previous value associated with the key or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V put(Bytes key, V value) {
+        checkValue(value);
+        final int id = table.findOrInsert(key);
+        if (id < 0) {
+            table.values[-id - 1] = value;
+            return null;
+        }
+        final V previous = (V) table.values[id];
+        table.values[id] = value;
+        return previous;
+    }
+
+    /**
+     * Returns the value associated with the given key; if there is none, computes it and adds it to the map.
+     *
+     * @param key      key
+     * @param function function computing the value from the key (it must not modify this map)
+     * @return the current (existing or computed) value associated with the key
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(Bytes key, Function<? super Bytes, ? extends V> function) {
+        final int id = table.find(key);
+        if (id >= 0) {
+            return (V) table.values[id];
+        }
+        final V value = function.apply(key);
+        checkValue(value);
+        table.values[-table.findOrInsert(key) - 1] = value;
+        return value;
+    }
+
+    /**
+     * Removes the value associated with the given key.
+     *
+     * @param key key
+     * @return the removed value or {@code null} if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Bytes key) {
+        final int id = table.find(key);
+        if (id < 0) {
+            return null;
+        }
+        final V previous = (V) table.values[id];
+        table.remove(key);
+        return previous;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Calls the given action for every entry of the map (in insertion order unless the map has been compacted
+     * after removals).
+     *
+     * @param action action to call
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super Bytes, ? super V> action) {
+        for (int id = table.nextEntry(0); id >= 0; id = table.nextEntry(id + 1)) {
+            action.accept(table.key(id), (V) table.values[id]);
+        }
+    }
+
+    private static void checkValue(Object value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not supported");
+        }
+    }
+
+    private static final class Table extends BytesKeyTable {
+
+        private Object[] values;
+
+        private Table(int expectedSize) {
+            super(expectedSize);
+            values = new Object[capacity()];
+        }
+
+        @Override
+        void resizeValues(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void moveValue(int from, int to) {
+            values[to] = values[from];
+            values[from] = null;
+        }
+
+        @Override
+        void clearValue(int id) {
+            values[id] = null;
+        }
+
+    }
+
+}
@@ -0,0 +1,248 @@
+package com.avast.bytes;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in instrumentation of the {@link Bytes} implementations in this library: copied and allocated bytes per operation,
+ * shapes of created {@link ConcatBytes}, reallocations of builders and slow paths.
+ * <p>
+ * The instrumentation is disabled by default. It's enabled by installing a {@link Listener} using
+ * {@link #setListener(Listener)}; when no listener is installed, every instrumented site costs only a read of a field
+ * and a {@code null} check. {@link Counters} is a ready-made thread-safe listener aggregating the events.
+ * <p>
+ * The library targets Java 8, so it can't emit JFR events itself. To get JFR events (e.g. for copies larger than some
+ * threshold), install a listener that commits a custom {@code jdk.jfr.Event} from {@link Listener#onCopy(Operation, int)}.
+ * <p>
+ * Only the listener is public; the events are recorded by the implementations through an internal class, so users
+ * can't inject events of their own.
+ */
+public final class BytesInstrumentation {
+
+    private static volatile Listener listener;
+
+    private BytesInstrumentation() {
+    }
+
+    /**
+     * Instrumented operations.
+     */
+    public enum Operation {
+        /**
+         * Copying into a new array ({@link Bytes#toByteArray()}).
+         */
+        TO_BYTE_ARRAY,
+        /**
+         * Copying into a new buffer ({@link Bytes#toReadOnlyByteBuffer()} of implementations that can't wrap their data).
+         */
+        TO_BYTE_BUFFER,
+        /**
+         * Decoding into a {@link String} ({@link Bytes#toString(java.nio.charset.Charset)}).
+         */
+        TO_STRING,
+        /**
+         * Reading from {@link java.io.InputStream} ({@code readFrom} methods of the implementations).
+         */
+        READ_STREAM,
+        /**
+         * Buffers of {@link Bytes.BuilderStream}.
+         */
+        BUILDER,
+        /**
+         * Buffers merging small fragments in {@link ConcatBytes.Builder}.
+         */
+        CONCAT_BUILDER,
+        /**
+         * Reading of primitive values composed from single bytes (e.g. values spanning segments of {@link ConcatBytes}).
+         */
+        PRIMITIVE_READ
+    }
+
+    /**
+     * Receives instrumentation events. Methods are called synchronously by the thread performing the operation,
+     * so they must be thread-safe and fast. All methods do nothing by default.
+     */
+    public interface Listener {
+
+        /**
+         * Called when data is copied.
+         *
+         * @param operation the copying operation
+         * @param bytes     number of copied bytes
+         */
+        default void onCopy(Operation operation, int bytes) {
+        }
+
+        /**
+         * Called when a buffer is allocated.
+         *
+         * @param operation the allocating operation
+         * @param bytes     size of the allocated buffer
+         */
+        default void onAllocation(Operation operation, int bytes) {
+        }
+
+        /**
+         * Called when {@link ConcatBytes} is created from a list of segments.
+         *
+         * @param segments number of segments in the chain
+         * @param depth    depth of nesting ({@code 1} if no segment is {@link ConcatBytes})
+         */
+        default void onConcat(int segments, int depth) {
+        }
+
+        /**
+         * Called when a builder grows its buffer (and copies the data written so far).
+         *
+         * @param oldCapacity capacity of the previous buffer
+         * @param newCapacity capacity of the new buffer
+         */
+        default void onBuilderReallocation(int oldCapacity, int newCapacity) {
+        }
+
+        /**
+         * Called when an operation takes a slow path.
+         *
+         * @param operation the operation
+         */
+        default void onSlowPath(Operation operation) {
+        }
+
+    }
+
+    /**
+     * Installs the listener, replacing the previous one.
+     *
+     * @param listener listener receiving the events, or {@code null} to disable the instrumentation
+     */
+    public static void setListener(final Listener listener) {
+        BytesInstrumentation.listener = listener;
+    }
+
+    /**
+     * @return the installed listener, or {@code null} if the instrumentation is disabled
+     */
+    public static Listener getListener() {
+        return listener;
+    }
+
+    /**
+     * {@link Listener} aggregating the events into counters. It's thread-safe and uses {@link LongAdder}s,
+     * so it scales well under contention.
+     */
+    public static final class Counters implements Listener {
+
+        private static final int OPERATIONS = Operation.values().length;
+
+        private final LongAdder[] copies = newAdders();
+        private final LongAdder[] copiedBytes = newAdders();
+        private final LongAdder[] allocations = newAdders();
+        private final LongAdder[] allocatedBytes = newAdders();
+        private final LongAdder[] slowPaths = newAdders();
+        private final LongAdder concats = new LongAdder();
+        private final LongAdder concatSegments = new LongAdder();
+        private final LongAccumulator maxConcatDepth = new LongAccumulator(Math::max, 0);
+        private final LongAdder builderReallocations = new LongAdder();
+
+        private static LongAdder[] newAdders() {
+            final LongAdder[] adders = new LongAdder[OPERATIONS];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+
+        @Override
+        public void onCopy(final Operation operation, final int bytes) {
+            copies[operation.ordinal()].increment();
+            copiedBytes[operation.ordinal()].add(bytes);
+        }
+
+        @Override
+        public void onAllocation(final Operation operation, final int bytes) {
+            allocations[operation.ordinal()].increment();
+            allocatedBytes[operation.ordinal()].add(bytes);
+        }
+
+        @Override
+        public void onConcat(final int segments, final int depth) {
+            concats.increment();
+            concatSegments.add(segments);
+            maxConcatDepth.accumulate(depth);
+        }
+
+        @Override
+        public void onBuilderReallocation(final int oldCapacity, final int newCapacity) {
+            builderReallocations.increment();
+        }
+
+        @Override
+        public void onSlowPath(final Operation operation) {
+            slowPaths[operation.ordinal()].increment();
+        }
+
+        public long copies(final Operation operation) {
+            return copies[operation.ordinal()].sum();
+        }
+
+        public long copiedBytes(final Operation operation) {
+            return copiedBytes[operation.ordinal()].sum();
+        }
+
+        public long allocations(final Operation operation) {
+            return allocations[operation.ordinal()].sum();
+        }
+
+        public long allocatedBytes(final Operation operation) {
+            return allocatedBytes[operation.ordinal()].sum();
+        }
+
+        public long slowPaths(final Operation operation) {
+            return slowPaths[operation.ordinal()].sum();
+        }
+
+        /**
+         * @return number of created {@link ConcatBytes} (not counting views)
+         */
+        public long concats() {
+            return concats.sum();
+        }
+
+        /**
+         * @return total number of segments of the created {@link ConcatBytes}
+         */
+        public long concatSegments() {
+            return concatSegments.sum();
+        }
+
+        /**
+         * @return maximum depth of nesting of the created {@link ConcatBytes}
+         */
+        public long maxConcatDepth() {
+            return maxConcatDepth.get();
+        }
+
+        public long builderReallocations() {
+            return builderReallocations.sum();
+        }
+
+        /**
+         * Resets all counters to zero. Events recorded concurrently with the reset may or may not be counted.
+         */
+        public void reset() {
+            for (int i = 0; i < OPERATIONS; i++) {
+                copies[i].reset();
+                copiedBytes[i].reset();
+                allocations[i].reset();
+                allocatedBytes[i].reset();
+                slowPaths[i].reset();
+            }
+            concats.reset();
+            concatSegments.reset();
+            maxConcatDepth.reset();
+            builderReallocations.reset();
+        }
+
+    }
+
+}
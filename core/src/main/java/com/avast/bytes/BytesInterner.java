@@ -0,0 +1,246 @@
+package com.avast.bytes;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of canonical {@link Bytes} instances (similar to {@link String#intern()}).
+ * <p>
+ * {@link #intern(Bytes)} returns a previously interned instance equal to the given one if there is any,
+ * so applications holding many equal {@link Bytes} (hashes, identifiers, paths) can keep only one copy of them.
+ * Instances are compared using {@link Object#equals(Object)} and {@link Object#hashCode()}, so all implementations
+ * of {@link AbstractBytes} are interchangeable.
+ * <p>
+ * The cache is split into independently locked stripes to scale across cores. Every stripe keeps at most
+ * {@code maxEntries / stripes} entries and evicts the least recently used one when full.
+ * <p>
+ * The instance is thread-safe.
+ */
+public final class BytesInterner {
+
+    private static final int DEFAULT_STRIPES = 16;
+
+    private final Stripe[] stripes;
+
+    private final int stripeMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * Creates interner keeping at most approximately {@code maxEntries} instances.
+     *
+     * @param maxEntries maximum number of interned instances
+     */
+    public BytesInterner(int maxEntries) {
+        this(maxEntries, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates interner keeping at most approximately {@code maxEntries} instances.
+     *
+     * @param maxEntries       maximum number of interned instances
+     * @param concurrencyLevel expected number of concurrently interning threads (rounded up to power of two)
+     */
+    public BytesInterner(int maxEntries, int concurrencyLevel) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Invalid maximum number of entries: " + maxEntries);
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Invalid concurrency level: " + concurrencyLevel);
+        }
+
+        int stripeCount = Integer.highestOneBit(Math.min(concurrencyLevel, maxEntries));
+        if (stripeCount < Math.min(concurrencyLevel, maxEntries)) {
+            stripeCount <<= 1;
+        }
+        final int maxEntriesPerStripe = Math.max(1, maxEntries / stripeCount);
+
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(maxEntriesPerStripe);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Returns canonical instance equal to the given {@link Bytes}. If there is no such instance yet,
+     * the given one becomes canonical.
+     * <p>
+     * Note that the given instance is kept as it is, so a small view keeps alive the whole data it was
+     * created from.
+     *
+     * @param bytes bytes to intern
+     * @return canonical instance equal to the given one
+     */
+    public Bytes intern(Bytes bytes) {
+        final Stripe stripe = stripeFor(bytes);
+        final Bytes canonical;
+        synchronized (stripe) {
+            canonical = stripe.putIfAbsent(bytes, bytes);
+        }
+
+        if (canonical == null) {
+            misses.increment();
+            return bytes;
+        }
+
+        hits.increment();
+        if (canonical != bytes) {
+            savedBytes.add(bytes.size());
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns canonical instance equal to the given {@link Bytes} if it has been interned (and not evicted yet).
+     * Unlike {@link #intern(Bytes)}, this does not intern the given instance.
+     *
+     * @param bytes bytes to look up
+     * @return canonical instance equal to the given one or {@code null}
+     */
+    public Bytes get(Bytes bytes) {
+        final Stripe stripe = stripeFor(bytes);
+        synchronized (stripe) {
+            return stripe.get(bytes);
+        }
+    }
+
+    /**
+     * Returns number of currently interned instances.
+     *
+     * @return number of interned instances
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all interned instances. Statistics are not reset.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns snapshot of statistics of this interner.
+     *
+     * @return current statistics
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), savedBytes.sum(), size());
+    }
+
+    private Stripe stripeFor(Bytes bytes) {
+        final int h = bytes.hashCode();
+        // spread higher bits, the low ones are mostly determined by the last byte
+        return stripes[(h ^ (h >>> 16) ^ (h >>> 24)) & stripeMask];
+    }
+
+    private final class Stripe extends LinkedHashMap<Bytes, Bytes> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        private Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Bytes, Bytes> eldest) {
+            if (size() > maxEntries) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    /**
+     * Statistics of {@link BytesInterner}.
+     */
+    public static final class Stats {
+
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long savedBytes;
+        private final int size;
+
+        private Stats(long hits, long misses, long evictions, long savedBytes, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.savedBytes = savedBytes;
+            this.size = size;
+        }
+
+        /**
+         * Returns number of {@link #intern(Bytes)} calls that returned a previously interned instance.
+         */
+        public long hits() {
+            return hits;
+        }
+
+        /**
+         * Returns number of {@link #intern(Bytes)} calls that made the given instance canonical.
+         */
+        public long misses() {
+            return misses;
+        }
+
+        /**
+         * Returns ratio of hits to all {@link #intern(Bytes)} calls (0 if there were no calls).
+         */
+        public double hitRate() {
+            final long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        /**
+         * Returns number of instances evicted because the interner was full.
+         */
+        public long evictions() {
+            return evictions;
+        }
+
+        /**
+         * Returns total size of data of duplicates replaced by a canonical instance, i.e. memory that
+         * may have been saved if the callers dropped the duplicates.
+         */
+        public long savedBytes() {
+            return savedBytes;
+        }
+
+        /**
+         * Returns number of interned instances at the time of the snapshot.
+         */
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return "BytesInterner.Stats(hits: " + hits + ", misses: " + misses + ", evictions: " + evictions +
+                    ", savedBytes: " + savedBytes + ", size: " + size + ")";
+        }
+
+    }
+
+}
@@ -0,0 +1,441 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.UnsafeBytes;
+import com.avast.bytes.jdk.SmallBytes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open-addressing hash table of {@link Bytes} keys shared by {@link BytesHashMap} and {@link BytesToLongMap}.
+ * <p>
+ * Entries are identified by ids allocated sequentially. Data of the keys is copied into a single growing array (slab),
+ * every entry stores the offset and length of its key and its 64-bit hash (see {@link Hashing}), so neither probing
+ * nor resizing ever rehashes the keys. Subclasses store values in arrays indexed by the entry id.
+ * <p>
+ * The slot table uses linear probing with backward-shift deletion (no tombstones). When the table grows, the old one
+ * is kept until all entries are migrated to the new one; the migration proceeds in small steps on every
+ * modification, so no single operation pays for rehashing of the whole table.
+ * <p>
+ * Removed entries leave garbage in the entry arrays and in the slab; it is reclaimed (without moving the slab
+ * in place) when the arrays would otherwise have to grow.
+ */
+abstract class BytesKeyTable {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private static final int MIGRATION_STEP = 16;
+
+    /**
+     * Data of the keys. Bytes once written are never modified, compaction copies the live keys to a new array.
+     */
+    private byte[] slab;
+    private ByteBuffer slabBuffer;
+    private int slabSize;
+    private int slabGarbage;
+
+    private long[] hashes;
+    private int[] offsets;
+    /**
+     * Length of the key or -1 for removed entries.
+     */
+    private int[] lengths;
+
+    /**
+     * Number of allocated ids (including removed entries).
+     */
+    private int entryCount;
+    private int size;
+
+    /**
+     * Slot table; slots contain id + 1, zero is an empty slot.
+     */
+    private int[] slots;
+    private int mask;
+
+    private int[] oldSlots;
+    private int oldMask;
+    /**
+     * Entries with ids below {@code migrated} have been moved to the new table, the migration ends
+     * at {@code migrationEnd}.
+     */
+    private int migrated;
+    private int migrationEnd;
+
+    BytesKeyTable(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Invalid expected size: " + expectedSize);
+        }
+        final int entries = Math.max(MIN_CAPACITY, expectedSize);
+        allocate(entries, Math.max(MIN_CAPACITY, entries * 8));
+    }
+
+    /**
+     * Grows the value array to the given capacity. Subclasses allocate the initial array of {@link #capacity()}
+     * in their constructors.
+     */
+    abstract void resizeValues(int capacity);
+
+    /**
+     * Moves the value of the entry (used by compaction, {@code to <= from}).
+     */
+    abstract void moveValue(int from, int to);
+
+    /**
+     * Releases the value of the removed entry.
+     */
+    abstract void clearValue(int id);
+
+    final int size() {
+        return size;
+    }
+
+    final int capacity() {
+        return hashes.length;
+    }
+
+    /**
+     * @return id of the entry with the given key or -1
+     */
+    final int find(Bytes key) {
+        final List<ByteBuffer> segments = segments(key);
+        return find(key, segments, hash(key, segments));
+    }
+
+    /**
+     * @return id of the entry with the given key (inserted if there is none yet), encoded as {@code -id - 1}
+     * if the entry has just been inserted
+     */
+    final int findOrInsert(Bytes key) {
+        final List<ByteBuffer> segments = segments(key);
+        final long hash = hash(key, segments);
+        final int id = find(key, segments, hash);
+        if (id >= 0) {
+            return id;
+        }
+        return -insert(key, segments, hash) - 1;
+    }
+
+    /**
+     * @return id of the removed entry or -1 if there was none
+     */
+    final int remove(Bytes key) {
+        final List<ByteBuffer> segments = segments(key);
+        final long hash = hash(key, segments);
+
+        final int slot = probe(slots, mask, key, segments, hash);
+        final int id;
+        if (slot >= 0) {
+            id = slots[slot] - 1;
+            deleteSlot(slot);
+        } else if (oldSlots != null) {
+            // the old table is never modified, the entry is just marked as removed
+            final int oldSlot = probe(oldSlots, oldMask, key, segments, hash);
+            if (oldSlot < 0) {
+                return -1;
+            }
+            id = oldSlots[oldSlot] - 1;
+        } else {
+            return -1;
+        }
+
+        slabGarbage += lengths[id];
+        lengths[id] = -1;
+        size--;
+        clearValue(id);
+        migrate(MIGRATION_STEP);
+        return id;
+    }
+
+    final void clear() {
+        for (int id = 0; id < entryCount; id++) {
+            if (lengths[id] >= 0) {
+                clearValue(id);
+            }
+        }
+        Arrays.fill(slots, 0);
+        oldSlots = null;
+        // keys returned by key(int) may still refer to the old slab
+        slab = new byte[slab.length];
+        slabBuffer = ByteBuffer.wrap(slab);
+        slabSize = 0;
+        slabGarbage = 0;
+        entryCount = 0;
+        size = 0;
+    }
+
+    /**
+     * @return id of the first live entry with id greater than or equal to the given one or -1
+     */
+    final int nextEntry(int id) {
+        for (; id < entryCount; id++) {
+            if (lengths[id] >= 0) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the key of the entry as a view of the slab (the slab is never modified, so the view stays valid).
+     */
+    final Bytes key(int id) {
+        return UnsafeBytes.unsafeWrap(slab, offsets[id], lengths[id]);
+    }
+
+    /**
+     * Returns segments of the key or {@code null} for {@link SmallBytes}, which have no backing buffer (their
+     * {@link Bytes#asReadOnlyByteBufferList()} copies the data), so they are read by the word accessors instead.
+     */
+    private static List<ByteBuffer> segments(Bytes key) {
+        return key instanceof SmallBytes ? null : key.asReadOnlyByteBufferList();
+    }
+
+    private static long hash(Bytes key, List<ByteBuffer> segments) {
+        return segments == null ? Hashing.hash64(key, 0) : Hashing.hash64(segments, key.size(), 0);
+    }
+
+    private int find(Bytes key, List<ByteBuffer> segments, long hash) {
+        int slot = probe(slots, mask, key, segments, hash);
+        if (slot >= 0) {
+            return slots[slot] - 1;
+        }
+        if (oldSlots != null) {
+            slot = probe(oldSlots, oldMask, key, segments, hash);
+            if (slot >= 0) {
+                return oldSlots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the slot containing the key or -1
+     */
+    private int probe(int[] table, int tableMask, Bytes key, List<ByteBuffer> segments, long hash) {
+        final int length = key.size();
+        for (int i = (int) hash & tableMask; ; i = (i + 1) & tableMask) {
+            final int s = table[i];
+            if (s == 0) {
+                return -1;
+            }
+            final int id = s - 1;
+            // removed entries have length -1, so they never match
+            if (hashes[id] == hash && lengths[id] == length && keyEquals(offsets[id], key, segments)) {
+                return i;
+            }
+        }
+    }
+
+    private boolean keyEquals(int offset, Bytes key, List<ByteBuffer> segments) {
+        if (segments == null) {
+            final int n = key.size();
+            int i = 0;
+            for (; i + Long.BYTES <= n; i += Long.BYTES) {
+                if (slabBuffer.getLong(offset + i) != key.getLong(i, ByteOrder.BIG_ENDIAN)) {
+                    return false;
+                }
+            }
+            for (; i < n; i++) {
+                if (slab[offset + i] != key.byteAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (ByteBuffer buffer : segments) {
+            // the slab buffer is big-endian, the words must be read in the same order
+            final ByteBuffer segment = buffer.order() == ByteOrder.BIG_ENDIAN ? buffer : buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+            final int position = segment.position();
+            final int n = segment.remaining();
+            int i = 0;
+            for (; i + Long.BYTES <= n; i += Long.BYTES) {
+                if (slabBuffer.getLong(offset + i) != segment.getLong(position + i)) {
+                    return false;
+                }
+            }
+            for (; i < n; i++) {
+                if (slab[offset + i] != segment.get(position + i)) {
+                    return false;
+                }
+            }
+            offset += n;
+        }
+        return true;
+    }
+
+    private int insert(Bytes key, List<ByteBuffer> segments, long hash) {
+        final int length = key.size();
+        migrate(MIGRATION_STEP);
+        ensureEntryCapacity(length);
+        // before the id is allocated, so that the new entry is not among the entries to migrate
+        if (size + 1 > threshold(slots.length)) {
+            startResize();
+        }
+
+        final int id = entryCount++;
+        int offset = slabSize;
+        hashes[id] = hash;
+        offsets[id] = offset;
+        lengths[id] = length;
+        if (segments == null) {
+            int i = 0;
+            for (; i + Long.BYTES <= length; i += Long.BYTES) {
+                slabBuffer.putLong(offset + i, key.getLong(i, ByteOrder.BIG_ENDIAN));
+            }
+            for (; i < length; i++) {
+                slab[offset + i] = key.byteAt(i);
+            }
+            offset += length;
+        } else {
+            for (ByteBuffer segment : segments) {
+                final int n = segment.remaining();
+                segment.duplicate().get(slab, offset, n);
+                offset += n;
+            }
+        }
+        slabSize = offset;
+        size++;
+        place(slots, mask, id);
+        return id;
+    }
+
+    private void ensureEntryCapacity(int keyLength) {
+        final boolean entriesFull = entryCount == hashes.length;
+        final boolean slabFull = slab.length - slabSize < keyLength;
+        if (!entriesFull && !slabFull) {
+            return;
+        }
+
+        final int dead = entryCount - size;
+        if ((entriesFull && dead >= entryCount / 4) || (slabFull && slabGarbage >= slabSize / 4)) {
+            compact();
+        }
+        if (entryCount == hashes.length) {
+            growEntries(hashes.length * 2);
+        }
+        if (slab.length - slabSize < keyLength) {
+            final long newLength = Math.max((long) slab.length * 2, (long) slabSize + keyLength);
+            if (newLength > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Total size of keys exceeds maximum array size");
+            }
+            slab = Arrays.copyOf(slab, (int) newLength);
+            slabBuffer = ByteBuffer.wrap(slab);
+        }
+    }
+
+    private void growEntries(int capacity) {
+        hashes = Arrays.copyOf(hashes, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        resizeValues(capacity);
+    }
+
+    /**
+     * Moves live entries to the beginning of the entry arrays and their keys to a new slab, then rebuilds the table.
+     */
+    private void compact() {
+        final byte[] newSlab = new byte[slab.length];
+        int newSlabSize = 0;
+        int newId = 0;
+        for (int id = 0; id < entryCount; id++) {
+            final int length = lengths[id];
+            if (length < 0) {
+                continue;
+            }
+            System.arraycopy(slab, offsets[id], newSlab, newSlabSize, length);
+            hashes[newId] = hashes[id];
+            offsets[newId] = newSlabSize;
+            lengths[newId] = length;
+            if (newId != id) {
+                moveValue(id, newId);
+            }
+            newSlabSize += length;
+            newId++;
+        }
+
+        slab = newSlab;
+        slabBuffer = ByteBuffer.wrap(slab);
+        slabSize = newSlabSize;
+        slabGarbage = 0;
+        entryCount = newId;
+
+        oldSlots = null;
+        Arrays.fill(slots, 0);
+        for (int id = 0; id < entryCount; id++) {
+            place(slots, mask, id);
+        }
+    }
+
+    private void startResize() {
+        // finish the previous migration, if any
+        migrate(Integer.MAX_VALUE);
+        oldSlots = slots;
+        oldMask = mask;
+        slots = new int[oldSlots.length * 2];
+        mask = slots.length - 1;
+        migrated = 0;
+        migrationEnd = entryCount;
+        migrate(MIGRATION_STEP);
+    }
+
+    private void migrate(int count) {
+        if (oldSlots == null) {
+            return;
+        }
+        for (; count > 0 && migrated < migrationEnd; count--) {
+            final int id = migrated++;
+            if (lengths[id] >= 0) {
+                place(slots, mask, id);
+            }
+        }
+        if (migrated == migrationEnd) {
+            oldSlots = null;
+        }
+    }
+
+    private void place(int[] table, int tableMask, int id) {
+        int i = (int) hashes[id] & tableMask;
+        while (table[i] != 0) {
+            i = (i + 1) & tableMask;
+        }
+        table[i] = id + 1;
+    }
+
+    private void deleteSlot(int slot) {
+        // backward-shift deletion: move following entries of the cluster to fill the gap
+        int gap = slot;
+        slots[gap] = 0;
+        for (int i = (gap + 1) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            final int home = (int) hashes[slots[i] - 1] & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                slots[gap] = slots[i];
+                slots[i] = 0;
+                gap = i;
+            }
+        }
+    }
+
+    private void allocate(int entries, int slabLength) {
+        slab = new byte[slabLength];
+        slabBuffer = ByteBuffer.wrap(slab);
+        hashes = new long[entries];
+        offsets = new int[entries];
+        lengths = new int[entries];
+
+        int tableSize = MIN_CAPACITY;
+        while (threshold(tableSize) < entries) {
+            tableSize <<= 1;
+        }
+        slots = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    private static int threshold(int tableSize) {
+        // maximum load factor 0.75
+        return tableSize - (tableSize >>> 2);
+    }
+
+}
@@ -0,0 +1,344 @@
+package com.avast.bytes;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sequential reader (cursor) over {@link Bytes}.
+ * <p>
+ * Unlike {@link Bytes#newInputStream()}, the reader never throws {@link java.io.IOException}, supports reading
+ * primitive values in both byte orders (big-endian by default, see {@link #order(ByteOrder)}) and
+ * {@link #readBytes(int)} returns a zero-copy view instead of copying the data.
+ * <p>
+ * The reader reads directly from the segments of the data (see {@link Bytes#asReadOnlyByteBufferList()}),
+ * so moving to the next segment of {@link ConcatBytes} is O(1) and random {@link #position(int)} is O(log N)
+ * in the number of segments. Reading past the end throws {@link IndexOutOfBoundsException}.
+ * <p>
+ * Instances are NOT thread-safe. Create new instance by calling {@link Bytes#newReader()}.
+ */
+public final class BytesReader {
+
+    private final Bytes bytes;
+
+    private final List<ByteBuffer> segments;
+
+    /**
+     * Position of the first byte of each segment; the last item is the total size.
+     */
+    private final int[] segmentStarts;
+
+    private int segmentIndex;
+
+    /**
+     * Duplicate of the current segment, its position is the position of the reader within the segment.
+     */
+    private ByteBuffer current;
+
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+
+    BytesReader(final Bytes bytes) {
+        this.bytes = bytes;
+        this.segments = bytes.asReadOnlyByteBufferList();
+        this.segmentStarts = new int[segments.size() + 1];
+        int start = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            segmentStarts[i] = start;
+            start += segments.get(i).remaining();
+        }
+        segmentStarts[segments.size()] = start;
+        enterSegment(0);
+    }
+
+    /**
+     * Returns the byte order used for reading multi-byte values.
+     *
+     * @return current byte order
+     */
+    public ByteOrder order() {
+        return order;
+    }
+
+    /**
+     * Sets the byte order used for reading multi-byte values.
+     *
+     * @param order new byte order
+     * @return this reader
+     */
+    public BytesReader order(final ByteOrder order) {
+        this.order = order;
+        if (current != null) {
+            current.order(order);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the current position, i.e. index of the next byte to be read.
+     *
+     * @return current position
+     */
+    public int position() {
+        if (current == null) {
+            return segmentStarts[segmentIndex];
+        }
+        return segmentStarts[segmentIndex] + current.position() - segments.get(segmentIndex).position();
+    }
+
+    /**
+     * Moves the reader to the specified position.
+     *
+     * @param newPosition new position
+     * @return this reader
+     * @throws IndexOutOfBoundsException if the position is negative or greater than size of the data
+     */
+    public BytesReader position(final int newPosition) {
+        if (newPosition < 0 || newPosition > size()) {
+            throw new IndexOutOfBoundsException("Invalid position " + newPosition + " for size " + size());
+        }
+        int i = Arrays.binarySearch(segmentStarts, 0, segments.size(), newPosition);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        if (i < 0) {
+            // no segments at all
+            i = 0;
+        }
+        enterSegment(i);
+        if (current != null) {
+            ((Buffer) current).position(current.position() + newPosition - segmentStarts[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Returns number of bytes between the current position and the end of the data.
+     *
+     * @return number of remaining bytes
+     */
+    public int remaining() {
+        return size() - position();
+    }
+
+    /**
+     * Returns {@code true} if there is at least one byte left to be read.
+     *
+     * @return {@code true} if there are remaining bytes
+     */
+    public boolean hasRemaining() {
+        return remaining() > 0;
+    }
+
+    /**
+     * Skips the specified number of bytes.
+     *
+     * @param n number of bytes to skip
+     * @return this reader
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public BytesReader skip(final int n) {
+        checkRemaining(n);
+        if (current != null && current.remaining() > n) {
+            ((Buffer) current).position(current.position() + n);
+            return this;
+        }
+        return position(position() + n);
+    }
+
+    /**
+     * Reads a byte.
+     *
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public byte readByte() {
+        if (current == null || !current.hasRemaining()) {
+            nextSegment();
+        }
+        return current.get();
+    }
+
+    /**
+     * Reads a byte as unsigned value in range 0-255.
+     *
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public int readUnsignedByte() {
+        return readByte() & 0xFF;
+    }
+
+    /**
+     * Reads {@code short} (2 bytes) in the current byte order.
+     *
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public short readShort() {
+        if (current != null && current.remaining() >= Short.BYTES) {
+            return current.getShort();
+        }
+        return (short) composeLong(Short.BYTES);
+    }
+
+    /**
+     * Reads unsigned 16-bit value (2 bytes) in the current byte order.
+     *
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public int readUnsignedShort() {
+        return readShort() & 0xFFFF;
+    }
+
+    /**
+     * Reads {@code int} (4 bytes) in the current byte order.
+     *
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public int readInt() {
+        if (current != null && current.remaining() >= Integer.BYTES) {
+            return current.getInt();
+        }
+        return (int) composeLong(Integer.BYTES);
+    }
+
+    /**
+     * Reads unsigned 32-bit value (4 bytes) in the current byte order.
+     *
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public long readUnsignedInt() {
+        return readInt() & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Reads {@code long} (8 bytes) in the current byte order.
+     *
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public long readLong() {
+        if (current != null && current.remaining() >= Long.BYTES) {
+            return current.getLong();
+        }
+        return composeLong(Long.BYTES);
+    }
+
+    /**
+     * Reads {@code float} (4 bytes) in the current byte order.
+     *
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    /**
+     * Reads {@code double} (8 bytes) in the current byte order.
+     *
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Reads varint (as used by Google Protocol Buffers) truncated to 32 bits.
+     *
+     * @return value of the varint
+     * @throws IndexOutOfBoundsException if the varint is truncated
+     * @throws IllegalArgumentException  if the varint is longer than 10 bytes
+     */
+    public int readVarint32() {
+        return (int) readVarint64();
+    }
+
+    /**
+     * Reads varint (as used by Google Protocol Buffers).
+     *
+     * @return value of the varint
+     * @throws IndexOutOfBoundsException if the varint is truncated
+     * @throws IllegalArgumentException  if the varint is longer than 10 bytes
+     */
+    public long readVarint64() {
+        long value = 0;
+        for (int i = 0; i < Utils.MAX_VARINT_LENGTH; i++) {
+            final byte b = readByte();
+            value |= (long) (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint ending at position " + position());
+    }
+
+    /**
+     * Returns the following {@code n} bytes as a view (zero-copy) and moves the position after them.
+     *
+     * @param n number of bytes
+     * @return view of the following {@code n} bytes
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public Bytes readBytes(final int n) {
+        checkRemaining(n);
+        final int start = position();
+        skip(n);
+        return bytes.view(start, start + n);
+    }
+
+    /**
+     * Copies the following {@code length} bytes to the given array and moves the position after them.
+     *
+     * @param dest   destination array
+     * @param offset offset in the destination array
+     * @param length number of bytes to copy
+     * @throws IndexOutOfBoundsException if there are not enough remaining bytes
+     */
+    public void readFully(final byte[] dest, final int offset, final int length) {
+        checkRemaining(length);
+        int copied = 0;
+        while (copied < length) {
+            if (current == null || !current.hasRemaining()) {
+                nextSegment();
+            }
+            final int n = Math.min(current.remaining(), length - copied);
+            current.get(dest, offset + copied, n);
+            copied += n;
+        }
+    }
+
+    private int size() {
+        return segmentStarts[segments.size()];
+    }
+
+    private long composeLong(final int count) {
+        checkRemaining(count);
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 8) | (readByte() & 0xFF);
+        }
+        return Utils.toOrder(value, count, order);
+    }
+
+    private void checkRemaining(final int n) {
+        if (n < 0 || n > remaining()) {
+            throw new IndexOutOfBoundsException("Cannot read " + n + " bytes, only " + remaining() + " remaining");
+        }
+    }
+
+    private void nextSegment() {
+        int i = segmentIndex + 1;
+        // skip empty segments
+        while (i < segments.size() && !segments.get(i).hasRemaining()) {
+            i++;
+        }
+        if (i >= segments.size()) {
+            throw new IndexOutOfBoundsException("No remaining bytes at position " + size());
+        }
+        enterSegment(i);
+    }
+
+    private void enterSegment(final int i) {
+        segmentIndex = i;
+        current = i < segments.size() ? segments.get(i).duplicate().order(order) : null;
+    }
+
+}
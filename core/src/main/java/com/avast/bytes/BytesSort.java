@@ -0,0 +1,346 @@
+package com.avast.bytes;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * Sorting of large collections of {@link Bytes} in the order of {@link UnsignedBytesComparator} or
+ * {@link BytesComparator} (or any {@link AbstractBytesComparator} supporting normalized keys).
+ * <p>
+ * The sort is a most-significant-digit radix sort over normalized keys: the first 8 bytes of every element are read
+ * once into a {@code long} (see {@link AbstractBytesComparator#normalizedKey(long)}), the elements are distributed
+ * by the bytes of the keys, and only elements whose keys are equal read the next 8 bytes. Small groups are sorted
+ * by insertion sort comparing the cached keys first and calling the comparator only on ties. The result is exactly
+ * the order of the comparator, including {@link AbstractBytesComparator#isShorterIsLess()}.
+ * <p>
+ * Comparators not supporting normalized keys are sorted using {@link Arrays#sort(Object[], Comparator)}.
+ */
+public final class BytesSort {
+
+    /**
+     * Groups smaller than this are sorted by insertion sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Groups larger than this are sorted in parallel by {@link #parallelSort(Bytes[], AbstractBytesComparator)}.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private BytesSort() {
+    }
+
+    /**
+     * Sorts the given array in the order of the given comparator.
+     *
+     * @param array      array to sort
+     * @param comparator comparator defining the order
+     */
+    public static void sort(Bytes[] array, AbstractBytesComparator comparator) {
+        sort(array, comparator, false);
+    }
+
+    /**
+     * Sorts the given list in the order of the given comparator.
+     *
+     * @param list       list to sort
+     * @param comparator comparator defining the order
+     */
+    public static void sort(List<Bytes> list, AbstractBytesComparator comparator) {
+        final Bytes[] array = list.toArray(new Bytes[0]);
+        sort(array, comparator, false);
+        setAll(list, array);
+    }
+
+    /**
+     * Sorts the given array in the order of the given comparator using the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @param array      array to sort
+     * @param comparator comparator defining the order
+     */
+    public static void parallelSort(Bytes[] array, AbstractBytesComparator comparator) {
+        sort(array, comparator, true);
+    }
+
+    /**
+     * Sorts the given list in the order of the given comparator using the common {@link java.util.concurrent.ForkJoinPool}.
+     *
+     * @param list       list to sort
+     * @param comparator comparator defining the order
+     */
+    public static void parallelSort(List<Bytes> list, AbstractBytesComparator comparator) {
+        final Bytes[] array = list.toArray(new Bytes[0]);
+        sort(array, comparator, true);
+        setAll(list, array);
+    }
+
+    private static void sort(Bytes[] array, AbstractBytesComparator comparator, boolean parallel) {
+        if (!comparator.supportsNormalizedKeys()) {
+            if (parallel) {
+                Arrays.parallelSort(array, comparator);
+            } else {
+                Arrays.sort(array, comparator);
+            }
+            return;
+        }
+        if (array.length < 2) {
+            return;
+        }
+
+        final Sorter sorter = new Sorter(array, comparator);
+        if (parallel && array.length >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, array.length).parallel().forEach(i -> sorter.keys[i] = sorter.key(array[i], 0));
+            new SortTask(sorter, 0, array.length, 0, 0).invoke();
+        } else {
+            for (int i = 0; i < array.length; i++) {
+                sorter.keys[i] = sorter.key(array[i], 0);
+            }
+            sorter.sort(0, array.length, 0, 0, false);
+        }
+    }
+
+    private static void setAll(List<Bytes> list, Bytes[] array) {
+        final ListIterator<Bytes> iterator = list.listIterator();
+        for (Bytes bytes : array) {
+            iterator.next();
+            iterator.set(bytes);
+        }
+    }
+
+    private static final class Sorter {
+
+        private final Bytes[] array;
+        private final AbstractBytesComparator comparator;
+        private final boolean shorterIsLess;
+
+        /**
+         * Normalized keys of the elements at their current depth (each group of elements is at a single depth).
+         */
+        private final long[] keys;
+
+        private final Bytes[] arrayBuffer;
+        private final long[] keysBuffer;
+
+        private Sorter(Bytes[] array, AbstractBytesComparator comparator) {
+            this.array = array;
+            this.comparator = comparator;
+            this.shorterIsLess = comparator.isShorterIsLess();
+            this.keys = new long[array.length];
+            this.arrayBuffer = new Bytes[array.length];
+            this.keysBuffer = new long[array.length];
+        }
+
+        /**
+         * Returns normalized key of 8 bytes starting at {@code offset}. Missing bytes are replaced by the lowest
+         * (or highest if longer Bytes are less) key byte, so an element which is a prefix of another one is never
+         * ordered after it; such elements end up with equal keys and are ordered by length.
+         */
+        private long key(Bytes bytes, int offset) {
+            final int available = bytes.size() - offset;
+            if (available >= Long.BYTES) {
+                return comparator.normalizedKey(bytes.getLong(offset, ByteOrder.BIG_ENDIAN));
+            }
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = (value << 8) | (i < available ? bytes.byteAt(offset + i) & 0xFF : 0);
+            }
+            final long paddingMask = available <= 0 ? -1L : -1L >>> (available << 3);
+            final long key = comparator.normalizedKey(value);
+            return shorterIsLess ? key & ~paddingMask : key | paddingMask;
+        }
+
+        /**
+         * Sorts elements in {@code [from, to)} which have equal bytes before {@code offset} and equal first
+         * {@code keyByte} bytes of their keys.
+         *
+         * @return ranges of groups left to be sorted (only in parallel mode, otherwise they are sorted recursively)
+         */
+        private List<int[]> sort(int from, int to, int offset, int keyByte, boolean parallel) {
+            final List<int[]> pending = parallel ? new ArrayList<>() : null;
+            sort(from, to, offset, keyByte, pending);
+            return pending;
+        }
+
+        private void sort(int from, int to, int offset, int keyByte, List<int[]> pending) {
+            while (true) {
+                if (to - from < 2) {
+                    return;
+                }
+                if (to - from < INSERTION_SORT_THRESHOLD) {
+                    insertionSort(from, to);
+                    return;
+                }
+
+                if (keyByte == Long.BYTES) {
+                    // all keys are equal, continue with the following 8 bytes
+                    final int continuing = nextDepth(from, to, offset);
+                    if (shorterIsLess) {
+                        from = continuing;
+                    } else {
+                        to = continuing;
+                    }
+                    offset += Long.BYTES;
+                    keyByte = 0;
+                    continue;
+                }
+
+                final int[] bucketEnds = distribute(from, to, keyByte);
+                int bucketStart = from;
+                for (int bucketEnd : bucketEnds) {
+                    if (bucketEnd - bucketStart > 1) {
+                        if (pending != null && bucketEnd - bucketStart >= PARALLEL_THRESHOLD) {
+                            pending.add(new int[]{bucketStart, bucketEnd, offset, keyByte + 1});
+                        } else {
+                            sort(bucketStart, bucketEnd, offset, keyByte + 1, pending);
+                        }
+                    }
+                    bucketStart = bucketEnd;
+                }
+                return;
+            }
+        }
+
+        /**
+         * Stable counting sort of the elements by the given byte of their keys.
+         *
+         * @return ends of the non-empty buckets
+         */
+        private int[] distribute(int from, int to, int keyByte) {
+            final int shift = (Long.BYTES - 1 - keyByte) << 3;
+            final int[] counts = new int[256];
+            for (int i = from; i < to; i++) {
+                counts[(int) (keys[i] >>> shift) & 0xFF]++;
+            }
+
+            int nonEmpty = 0;
+            for (int count : counts) {
+                if (count > 0) {
+                    nonEmpty++;
+                }
+            }
+            if (nonEmpty == 1) {
+                return new int[]{to};
+            }
+
+            final int[] bucketEnds = new int[nonEmpty];
+            final int[] positions = new int[256];
+            int position = from;
+            for (int digit = 0, bucket = 0; digit < 256; digit++) {
+                positions[digit] = position;
+                position += counts[digit];
+                if (counts[digit] > 0) {
+                    bucketEnds[bucket++] = position;
+                }
+            }
+
+            for (int i = from; i < to; i++) {
+                final int target = positions[(int) (keys[i] >>> shift) & 0xFF]++;
+                arrayBuffer[target] = array[i];
+                keysBuffer[target] = keys[i];
+            }
+            System.arraycopy(arrayBuffer, from, array, from, to - from);
+            System.arraycopy(keysBuffer, from, keys, from, to - from);
+            return bucketEnds;
+        }
+
+        /**
+         * Moves the elements ending within the current 8 bytes to the beginning (if shorter is less) or to the end
+         * of the range sorted by length, and loads the next keys of the other elements.
+         *
+         * @return index of the first continuing element (if shorter is less) or the end of the continuing elements
+         */
+        private int nextDepth(int from, int to, int offset) {
+            final int nextOffset = offset + Long.BYTES;
+            int endingCount = 0;
+            for (int i = from; i < to; i++) {
+                if (array[i].size() <= nextOffset) {
+                    endingCount++;
+                }
+            }
+
+            final int endingStart = shorterIsLess ? from : to - endingCount;
+            final int continuingStart = shorterIsLess ? from + endingCount : from;
+            int ending = endingStart;
+            int continuing = continuingStart;
+            for (int i = from; i < to; i++) {
+                if (array[i].size() <= nextOffset) {
+                    arrayBuffer[ending++] = array[i];
+                } else {
+                    arrayBuffer[continuing] = array[i];
+                    keysBuffer[continuing] = key(array[i], nextOffset);
+                    continuing++;
+                }
+            }
+            // elements ending here are equal except for their length
+            Arrays.sort(arrayBuffer, endingStart, endingStart + endingCount, shorterIsLess
+                    ? Comparator.comparingInt(Bytes::size)
+                    : Comparator.comparingInt(Bytes::size).reversed());
+
+            System.arraycopy(arrayBuffer, from, array, from, to - from);
+            System.arraycopy(keysBuffer, from, keys, from, to - from);
+            return shorterIsLess ? continuingStart : continuing;
+        }
+
+        private void insertionSort(int from, int to) {
+            for (int i = from + 1; i < to; i++) {
+                final Bytes element = array[i];
+                final long key = keys[i];
+                int j = i - 1;
+                while (j >= from && compare(key, element, keys[j], array[j]) < 0) {
+                    array[j + 1] = array[j];
+                    keys[j + 1] = keys[j];
+                    j--;
+                }
+                array[j + 1] = element;
+                keys[j + 1] = key;
+            }
+        }
+
+        private int compare(long aKey, Bytes a, long bKey, Bytes b) {
+            final int cmp = Long.compareUnsigned(aKey, bKey);
+            return cmp != 0 ? cmp : comparator.compare(a, b);
+        }
+
+    }
+
+    private static final class SortTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Sorter sorter;
+        private final int from;
+        private final int to;
+        private final int offset;
+        private final int keyByte;
+
+        private SortTask(Sorter sorter, int from, int to, int offset, int keyByte) {
+            this.sorter = sorter;
+            this.from = from;
+            this.to = to;
+            this.offset = offset;
+            this.keyByte = keyByte;
+        }
+
+        @Override
+        protected void compute() {
+            final List<int[]> pending = sorter.sort(from, to, offset, keyByte, true);
+            if (pending.isEmpty()) {
+                return;
+            }
+            final List<SortTask> tasks = new ArrayList<>(pending.size());
+            for (int[] group : pending) {
+                tasks.add(new SortTask(sorter, group[0], group[1], group[2], group[3]));
+            }
+            ForkJoinTask.invokeAll(tasks);
+        }
+
+    }
+
+}
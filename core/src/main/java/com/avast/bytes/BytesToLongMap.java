@@ -0,0 +1,158 @@
+package com.avast.bytes;
+
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Hash map from {@link Bytes} keys to primitive {@code long} values (e.g. counters or offsets), without boxing.
+ * <p>
+ * The map has the same structure as {@link BytesHashMap}: data of the keys is stored in a single array together with
+ * their cached 64-bit hashes, values in a {@code long[]}. Any {@link Bytes} implementation can be used for lookups
+ * without copying it.
+ * <p>
+ * Instances are NOT thread-safe.
+ *
+ * @see BytesHashMap
+ */
+public final class BytesToLongMap {
+
+    private final Table table;
+
+    /**
+     * Creates empty map.
+     */
+    public BytesToLongMap() {
+        this(0);
+    }
+
+    /**
+     * Creates empty map with capacity for the given number of entries.
+     *
+     * @param expectedSize expected number of entries
+     */
+    public BytesToLongMap(int expectedSize) {
+        this.table = new Table(expectedSize);
+    }
+
+    /**
+     * Returns number of entries in the map.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Returns {@code true} if there are no entries in the map.
+     *
+     * @return {@code true} if the map is empty
+     */
+    public boolean isEmpty() {
+        return table.size() == 0;
+    }
+
+    /**
+     * Returns the value associated with the given key.
+     *
+     * @param key          key to look up
+     * @param defaultValue value returned if there is no value associated with the key
+     * @return the value or {@code defaultValue} if there is none
+     */
+    public long get(Bytes key, long defaultValue) {
+        final int id = table.find(key);
+        return id < 0 ? defaultValue : table.values[id];
+    }
+
+    /**
+     * Returns {@code true} if there is a value associated with the given key.
+     *
+     * @param key key to look up
+     * @return {@code true} if the map contains the key
+     */
+    public boolean containsKey(Bytes key) {
+        return table.find(key) >= 0;
+    }
+
+    /**
+     * Associates the value with the given key. The data of the key is copied into the map.
+     *
+     * @param key   key
+     * @param value value
+     */
+    public void put(Bytes key, long value) {
+        final int id = table.findOrInsert(key);
+        table.values[id < 0 ? -id - 1 : id] = value;
+    }
+
+    /**
+     * Adds the given delta to the value associated with the given key (missing value is treated as 0).
+     *
+     * @param key   key
+     * @param delta value to add
+     * @return the new value
+     */
+    public long addTo(Bytes key, long delta) {
+        final int id = table.findOrInsert(key);
+        if (id < 0) {
+            return table.values[-id - 1] = delta;
+        }
+        return table.values[id] += delta;
+    }
+
+    /**
+     * Removes the value associated with the given key.
+     *
+     * @param key key
+     * @return {@code true} if there was a value associated with the key
+     */
+    public boolean remove(Bytes key) {
+        return table.remove(key) >= 0;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    /**
+     * Calls the given action for every entry of the map. Keys are views of the internal array of the map,
+     * see {@link BytesHashMap#forEach(java.util.function.BiConsumer)}.
+     *
+     * @param action action to call
+     */
+    public void forEach(ObjLongConsumer<? super Bytes> action) {
+        for (int id = table.nextEntry(0); id >= 0; id = table.nextEntry(id + 1)) {
+            action.accept(table.key(id), table.values[id]);
+        }
+    }
+
+    private static final class Table extends BytesKeyTable {
+
+        private long[] values;
+
+        private Table(int expectedSize) {
+            super(expectedSize);
+            values = new long[capacity()];
+        }
+
+        @Override
+        void resizeValues(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void moveValue(int from, int to) {
+            values[to] = values[from];
+        }
+
+        @Override
+        void clearValue(int id) {
+            values[id] = 0;
+        }
+
+    }
+
+}
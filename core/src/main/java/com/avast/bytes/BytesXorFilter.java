@@ -0,0 +1,207 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.UnsafeBytes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * Immutable XOR filter of {@link Bytes} keys: an approximate membership index built once from a known set of keys,
+ * which is smaller than a {@link BytesBloomFilter} with the same false positive rate (about 9.84 bits per key
+ * for the rate of 1/256) and needs exactly three memory accesses per lookup.
+ * <p>
+ * Every key maps to three 8-bit slots whose xor equals the fingerprint of the key; the slots are assigned by peeling
+ * (the build is retried with a different seed in the rare case it fails). Keys are hashed by the same 64-bit hash
+ * as in {@link BytesBloomFilter}.
+ * <p>
+ * {@link #toBytes()} serializes the filter, {@link #wrap(Bytes)} queries the serialized form directly, e.g.
+ * a memory-mapped file.
+ */
+public final class BytesXorFilter {
+
+    private static final int MAGIC = 0x584F5238; // "XOR8"
+
+    private static final int HEADER_SIZE = 16;
+
+    private final long seed;
+
+    private final int blockLength;
+
+    /**
+     * Serialized filter: the header followed by the slots.
+     */
+    private final Bytes data;
+
+    private BytesXorFilter(final long seed, final int blockLength, final Bytes data) {
+        this.seed = seed;
+        this.blockLength = blockLength;
+        this.data = data;
+    }
+
+    /**
+     * Builds filter of the given keys (duplicates are allowed).
+     *
+     * @param keys the keys
+     * @return new filter
+     * @throws IllegalArgumentException if the filter would not fit in {@link Bytes}
+     */
+    public static BytesXorFilter build(final Collection<? extends Bytes> keys) {
+        long[] hashes = new long[keys.size()];
+        int size = 0;
+        for (Bytes key : keys) {
+            hashes[size++] = Hashing.hash64(key);
+        }
+        // the peeling cannot succeed with duplicate keys
+        Arrays.sort(hashes);
+        size = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[size++] = hashes[i];
+            }
+        }
+        hashes = Arrays.copyOf(hashes, size);
+
+        final long capacity = 32 + (long) Math.ceil(1.23 * size);
+        if (capacity > Integer.MAX_VALUE - HEADER_SIZE - 3) {
+            throw new IllegalArgumentException("Filter of " + size + " keys would exceed maximum size of Bytes");
+        }
+        final int blockLength = (int) (capacity / 3 + 1);
+        final int length = 3 * blockLength;
+
+        final SplittableRandom random = new SplittableRandom(size);
+        final long[] xors = new long[length];
+        final int[] counts = new int[length];
+        final int[] queue = new int[length];
+        final long[] stackHashes = new long[size];
+        final int[] stackSlots = new int[size];
+        while (true) {
+            final long seed = random.nextLong();
+            Arrays.fill(xors, 0);
+            Arrays.fill(counts, 0);
+            for (long hash : hashes) {
+                final long h = mix(hash + seed);
+                for (int j = 0; j < 3; j++) {
+                    final int slot = slot(h, j, blockLength);
+                    xors[slot] ^= hash;
+                    counts[slot]++;
+                }
+            }
+
+            // peel keys that are alone in a slot
+            int queueSize = 0;
+            for (int i = 0; i < length; i++) {
+                if (counts[i] == 1) {
+                    queue[queueSize++] = i;
+                }
+            }
+            int stackSize = 0;
+            while (queueSize > 0) {
+                final int i = queue[--queueSize];
+                if (counts[i] != 1) {
+                    continue;
+                }
+                final long hash = xors[i];
+                stackHashes[stackSize] = hash;
+                stackSlots[stackSize++] = i;
+                final long h = mix(hash + seed);
+                for (int j = 0; j < 3; j++) {
+                    final int slot = slot(h, j, blockLength);
+                    xors[slot] ^= hash;
+                    if (--counts[slot] == 1) {
+                        queue[queueSize++] = slot;
+                    }
+                }
+            }
+            if (stackSize < size) {
+                continue;
+            }
+
+            // assign the slots in the reverse order, so that every key has its own slot still unassigned
+            final byte[] slots = new byte[length];
+            while (stackSize > 0) {
+                final long hash = stackHashes[--stackSize];
+                final int own = stackSlots[stackSize];
+                final long h = mix(hash + seed);
+                int value = fingerprint(h);
+                for (int j = 0; j < 3; j++) {
+                    value ^= slots[slot(h, j, blockLength)];
+                }
+                slots[own] = (byte) value;
+            }
+
+            final ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + length).order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(0, MAGIC);
+            out.putInt(4, blockLength);
+            out.putLong(8, seed);
+            System.arraycopy(slots, 0, out.array(), HEADER_SIZE, length);
+            return new BytesXorFilter(seed, blockLength, UnsafeBytes.unsafeWrap(out.array()));
+        }
+    }
+
+    /**
+     * Creates filter backed directly by the serialized filter (without copying it).
+     *
+     * @param serialized filter serialized by {@link #toBytes()}, e.g. a mapped file
+     * @return the filter
+     * @throws IllegalArgumentException if the data is not a serialized filter
+     */
+    public static BytesXorFilter wrap(final Bytes serialized) {
+        if (serialized.size() < HEADER_SIZE || serialized.getInt(0, ByteOrder.LITTLE_ENDIAN) != MAGIC) {
+            throw new IllegalArgumentException("Not a serialized XOR filter");
+        }
+        final int blockLength = serialized.getInt(4, ByteOrder.LITTLE_ENDIAN);
+        if (blockLength <= 0 || (long) blockLength * 3 != serialized.size() - HEADER_SIZE) {
+            throw new IllegalArgumentException("Malformed serialized XOR filter");
+        }
+        return new BytesXorFilter(serialized.getLong(8, ByteOrder.LITTLE_ENDIAN), blockLength, serialized);
+    }
+
+    /**
+     * Returns {@code true} if the key might be one of the keys of the filter, {@code false} if it is definitely not.
+     *
+     * @param key the key
+     * @return {@code false} if the key is not present
+     */
+    public boolean mightContain(final Bytes key) {
+        final long h = mix(Hashing.hash64(key) + seed);
+        int value = fingerprint(h);
+        for (int j = 0; j < 3; j++) {
+            value ^= data.byteAt(HEADER_SIZE + slot(h, j, blockLength));
+        }
+        return (value & 0xFF) == 0;
+    }
+
+    /**
+     * @return serialized filter
+     */
+    public Bytes toBytes() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "BytesXorFilter(slots:" + 3L * blockLength + ")";
+    }
+
+    /**
+     * Slot in the block {@code j} of the three blocks.
+     */
+    private static int slot(final long h, final int j, final int blockLength) {
+        final long r = Long.rotateLeft(h, 21 * j) & 0xFFFFFFFFL;
+        return (int) ((r * blockLength) >>> 32) + j * blockLength;
+    }
+
+    private static int fingerprint(final long h) {
+        return (int) (h ^ (h >>> 32)) & 0xFF;
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.UnsafeBytes;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * Computes checksums and digests of {@link Bytes} segment by segment without copying the data: arrays backing the heap
+ * segments are fed to the array accepting APIs of the JDK, direct and mapped buffers to the {@link ByteBuffer}
+ * accepting ones (so they stay off-heap).
+ */
+abstract class Checksums {
+
+    /**
+     * Constructor of {@code java.util.zip.CRC32C} (JDK 9+), {@code null} if it's not available.
+     */
+    private static final MethodHandle CRC32C_CONSTRUCTOR;
+
+    /**
+     * {@code java.util.zip.CRC32C#update(ByteBuffer)} (JDK 9+), {@code null} if it's not available.
+     */
+    private static final MethodHandle CRC32C_UPDATE;
+
+    static {
+        MethodHandle constructor = null;
+        MethodHandle update = null;
+        try {
+            final Class<?> crc32c = Class.forName("java.util.zip.CRC32C");
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            constructor = lookup.findConstructor(crc32c, MethodType.methodType(void.class));
+            update = lookup.findVirtual(crc32c, "update", MethodType.methodType(void.class, ByteBuffer.class));
+        } catch (ReflectiveOperationException e) {
+            // JDK 8, the software implementation is used
+        }
+        CRC32C_CONSTRUCTOR = constructor;
+        CRC32C_UPDATE = update;
+    }
+
+    static byte[] digest(Bytes bytes, MessageDigest digest) {
+        feed(bytes, new Sink() {
+            @Override
+            public void accept(byte[] array, int offset, int length) {
+                digest.update(array, offset, length);
+            }
+
+            @Override
+            public void accept(ByteBuffer buffer) {
+                digest.update(buffer);
+            }
+        });
+        return digest.digest();
+    }
+
+    static long crc32(Bytes bytes) {
+        final CRC32 crc = new CRC32();
+        feed(bytes, new Sink() {
+            @Override
+            public void accept(byte[] array, int offset, int length) {
+                crc.update(array, offset, length);
+            }
+
+            @Override
+            public void accept(ByteBuffer buffer) {
+                crc.update(buffer);
+            }
+        });
+        return crc.getValue();
+    }
+
+    static long adler32(Bytes bytes) {
+        final Adler32 adler = new Adler32();
+        feed(bytes, new Sink() {
+            @Override
+            public void accept(byte[] array, int offset, int length) {
+                adler.update(array, offset, length);
+            }
+
+            @Override
+            public void accept(ByteBuffer buffer) {
+                adler.update(buffer);
+            }
+        });
+        return adler.getValue();
+    }
+
+    static long crc32c(Bytes bytes) {
+        if (CRC32C_CONSTRUCTOR == null) {
+            final Crc32c crc = new Crc32c();
+            // the software implementation reads any buffer directly
+            for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+                crc.update(segment);
+            }
+            return crc.getValue();
+        }
+
+        final Checksum crc;
+        try {
+            crc = (Checksum) CRC32C_CONSTRUCTOR.invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // CRC32C does not throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+        feed(bytes, new Sink() {
+            @Override
+            public void accept(byte[] array, int offset, int length) {
+                crc.update(array, offset, length);
+            }
+
+            @Override
+            public void accept(ByteBuffer buffer) {
+                try {
+                    CRC32C_UPDATE.invoke(crc, buffer);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        return crc.getValue();
+    }
+
+    /**
+     * Receives the data: backing arrays of the heap segments and buffers of the others (direct or mapped).
+     */
+    private interface Sink extends UnsafeBytes.ArrayConsumer {
+
+        /**
+         * @param buffer buffer that may be consumed (its position is not used afterwards)
+         */
+        void accept(ByteBuffer buffer);
+
+    }
+
+    /**
+     * Feeds the data segment by segment. The JDK copies heap buffers without an accessible array (all read-only ones)
+     * to a temporary array, so the backing arrays are fed directly; only the other buffers are fed as buffers.
+     */
+    private static void feed(Bytes bytes, Sink sink) {
+        if (bytes instanceof ConcatBytes) {
+            for (Bytes segment : ((ConcatBytes) bytes).segments()) {
+                feed(segment, sink);
+            }
+        } else if (!UnsafeBytes.readArrays(bytes, sink)) {
+            for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+                if (segment.hasArray()) {
+                    sink.accept(segment.array(), segment.arrayOffset() + segment.position(), segment.remaining());
+                } else {
+                    sink.accept(segment.duplicate());
+                }
+            }
+        }
+    }
+
+    /**
+     * Holder of lazily computed checksums of an immutable instance.
+     * The checksums are 32-bit unsigned values, so -1 means not computed yet.
+     */
+    static final class Cache {
+        volatile long crc32 = -1;
+        volatile long crc32c = -1;
+        volatile long adler32 = -1;
+    }
+
+}
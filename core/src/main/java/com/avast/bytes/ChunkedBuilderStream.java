@@ -0,0 +1,172 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.Instrumentation;
+import com.avast.bytes.internal.UnsafeBytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+
+/**
+ * {@link Bytes.BuilderStream} writing the data into chunks that are never reallocated: when a chunk is full,
+ * a new one is allocated (each one twice the size of the previous one, up to the maximum chunk size). Unlike builders
+ * backed by a single growing buffer, the written data is never copied again and the peak memory is only slightly
+ * above the size of the data.
+ * <p>
+ * {@link #toBytes()} returns zero-copy {@link ConcatBytes} of the chunks (or a single chunk if the data fits into one);
+ * it can be called multiple times, because written bytes are never modified.
+ * <p>
+ * Create new instance by calling {@link ConcatBytes#newBuilderStream()}. Instances are NOT thread-safe.
+ */
+public final class ChunkedBuilderStream extends Bytes.BuilderStream {
+
+    static final int DEFAULT_INITIAL_CHUNK_SIZE = 0x400; // 1k
+    static final int DEFAULT_MAX_CHUNK_SIZE = 0x100000; // 1M
+
+    private final int maxChunkSize;
+
+    private int nextChunkSize;
+
+    /**
+     * Full chunks.
+     */
+    private final ArrayList<Bytes> chunks = new ArrayList<>();
+
+    private int chunksSize = 0;
+
+    private byte[] chunk;
+
+    private int position = 0;
+
+    ChunkedBuilderStream(final int initialChunkSize, final int maxChunkSize) {
+        this.nextChunkSize = initialChunkSize;
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    /**
+     * Returns number of bytes written so far.
+     *
+     * @return number of written bytes
+     */
+    public int size() {
+        return chunksSize + position;
+    }
+
+    @Override
+    public Bytes toBytes() {
+        final Bytes tail = position == 0 ? null : UnsafeBytes.unsafeWrap(chunk, 0, position);
+        if (chunks.isEmpty()) {
+            return tail == null ? Bytes.empty() : tail;
+        }
+        if (tail == null && chunks.size() == 1) {
+            return chunks.get(0);
+        }
+        final ArrayList<Bytes> segments = new ArrayList<>(chunks.size() + 1);
+        segments.addAll(chunks);
+        if (tail != null) {
+            segments.add(tail);
+        }
+        return ConcatBytes.wrap(segments);
+    }
+
+    @Override
+    public void write(final int b) {
+        ensureSpace();
+        chunk[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] data, int offset, int length) {
+        if (offset < 0 || length < 0 || length > data.length - offset) {
+            throw new IndexOutOfBoundsException("Invalid range " + offset + "+" + length + " for array of length " + data.length);
+        }
+        while (length > 0) {
+            ensureSpace();
+            final int n = Math.min(length, chunk.length - position);
+            System.arraycopy(data, offset, chunk, position, n);
+            position += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Writes all bytes of the given {@link Bytes}.
+     *
+     * @param bytes bytes to write
+     */
+    public void write(final Bytes bytes) {
+        for (ByteBuffer buffer : bytes.asReadOnlyByteBufferList()) {
+            while (buffer.hasRemaining()) {
+                ensureSpace();
+                final int n = Math.min(buffer.remaining(), chunk.length - position);
+                buffer.get(chunk, position, n);
+                position += n;
+            }
+        }
+    }
+
+    /**
+     * Reads the stream until its end directly into the chunks, blocking if necessary. The stream is not closed.
+     *
+     * @param stream the source stream
+     * @return number of bytes read
+     * @throws IOException if reading from the stream fails
+     */
+    public long writeFrom(final InputStream stream) throws IOException {
+        long total = 0;
+        while (true) {
+            ensureSpace();
+            final int n = stream.read(chunk, position, chunk.length - position);
+            if (n < 0) {
+                return total;
+            }
+            position += n;
+            total += n;
+        }
+    }
+
+    /**
+     * Reads the channel until its end directly into the chunks. The channel is not closed.
+     * <p>
+     * If the channel is in non-blocking mode, only the currently available bytes are read.
+     *
+     * @param channel the source channel
+     * @return number of bytes read
+     * @throws IOException if reading from the channel fails
+     */
+    public long writeFrom(final ReadableByteChannel channel) throws IOException {
+        long total = 0;
+        while (true) {
+            ensureSpace();
+            final int n = channel.read(ByteBuffer.wrap(chunk, position, chunk.length - position));
+            if (n <= 0) {
+                // -1 at the end of the stream, 0 if a non-blocking channel has no more data available
+                return total;
+            }
+            position += n;
+            total += n;
+        }
+    }
+
+    private void ensureSpace() {
+        if (chunk != null && position < chunk.length) {
+            return;
+        }
+        if (chunk != null) {
+            chunks.add(UnsafeBytes.unsafeWrap(chunk));
+            chunksSize += chunk.length;
+        }
+        final int size = Math.min(nextChunkSize, Integer.MAX_VALUE - chunksSize);
+        if (size <= 0) {
+            throw new IllegalStateException("Size of Bytes cannot exceed " + Integer.MAX_VALUE + " bytes");
+        }
+        chunk = new byte[size];
+        position = 0;
+        nextChunkSize = (int) Math.min(maxChunkSize, nextChunkSize * 2L);
+        Instrumentation.recordAllocation(BytesInstrumentation.Operation.BUILDER, size);
+    }
+
+}
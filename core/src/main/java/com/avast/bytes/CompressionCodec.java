@@ -0,0 +1,416 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.UnsafeBytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression codec producing and consuming {@link Bytes} directly.
+ * <p>
+ * The input is fed to {@link Deflater}/{@link Inflater} segment by segment (see {@link Bytes#asReadOnlyByteBufferList()}),
+ * using {@code setInput(ByteBuffer)} on JDK 11+ and a small reusable array on older JDKs. The output is written into
+ * chunks of growing size which are concatenated at the end (see {@link ConcatBytes.Builder}), so the output is never
+ * copied because of buffer regrowth.
+ * <p>
+ * Use {@link #DEFLATE} for raw deflate (RFC 1951), {@link #ZLIB} for zlib format (RFC 1950) and {@link #GZIP}
+ * for gzip format (RFC 1952).
+ */
+public final class CompressionCodec {
+
+    private enum Format {
+        DEFLATE, ZLIB, GZIP
+    }
+
+    /**
+     * Raw deflate (RFC 1951), without any header or trailer.
+     */
+    public static final CompressionCodec DEFLATE = new CompressionCodec(Format.DEFLATE, Deflater.DEFAULT_COMPRESSION);
+
+    /**
+     * Zlib format (RFC 1950), i.e. deflate with zlib header and Adler-32 trailer.
+     */
+    public static final CompressionCodec ZLIB = new CompressionCodec(Format.ZLIB, Deflater.DEFAULT_COMPRESSION);
+
+    /**
+     * Gzip format (RFC 1952), i.e. deflate with gzip header and CRC32 trailer.
+     */
+    public static final CompressionCodec GZIP = new CompressionCodec(Format.GZIP, Deflater.DEFAULT_COMPRESSION);
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_LENGTH = 10;
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final int MIN_CHUNK_SIZE = 0x1000; // 4k
+    private static final int MAX_CHUNK_SIZE = 0x40000; // 256k
+
+    /**
+     * Size of the array used for passing input to {@link Deflater} and {@link Inflater} on JDK older than 11.
+     */
+    private static final int INPUT_CHUNK_SIZE = 0x10000; // 64k
+
+    /**
+     * {@code Deflater#setInput(ByteBuffer)} (JDK 11+), {@code null} if it's not available.
+     */
+    private static final MethodHandle DEFLATER_SET_INPUT = findSetInput(Deflater.class);
+
+    /**
+     * {@code Inflater#setInput(ByteBuffer)} (JDK 11+), {@code null} if it's not available.
+     */
+    private static final MethodHandle INFLATER_SET_INPUT = findSetInput(Inflater.class);
+
+    private final Format format;
+    private final int level;
+
+    private CompressionCodec(Format format, int level) {
+        this.format = format;
+        this.level = level;
+    }
+
+    /**
+     * Returns codec of the same format using the specified compression level.
+     *
+     * @param level compression level (0-9) or {@link Deflater#DEFAULT_COMPRESSION}
+     * @return codec using the specified level
+     */
+    public CompressionCodec withLevel(int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        return new CompressionCodec(format, level);
+    }
+
+    /**
+     * Compresses the given {@link Bytes}.
+     *
+     * @param bytes data to compress
+     * @return compressed data
+     */
+    public Bytes compress(Bytes bytes) {
+        final ChunkedOutput output = new ChunkedOutput(bytes.size() / 4);
+        if (format == Format.GZIP) {
+            output.write(new byte[]{(byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xFF});
+        }
+
+        final Deflater deflater = new Deflater(level, format != Format.ZLIB);
+        try {
+            for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+                if (DEFLATER_SET_INPUT != null) {
+                    invokeSetInput(DEFLATER_SET_INPUT, deflater, segment.duplicate());
+                    deflate(deflater, output);
+                } else {
+                    final ByteBuffer input = segment.duplicate();
+                    final byte[] chunk = new byte[Math.min(INPUT_CHUNK_SIZE, input.remaining())];
+                    while (input.hasRemaining()) {
+                        final int n = Math.min(chunk.length, input.remaining());
+                        input.get(chunk, 0, n);
+                        deflater.setInput(chunk, 0, n);
+                        deflate(deflater, output);
+                    }
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                output.ensureSpace();
+                output.advance(deflater.deflate(output.chunk, output.position, output.chunk.length - output.position));
+            }
+        } finally {
+            deflater.end();
+        }
+
+        if (format == Format.GZIP) {
+            final ByteBuffer trailer = ByteBuffer.allocate(GZIP_TRAILER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) bytes.crc32());
+            trailer.putInt(bytes.size());
+            output.write(trailer.array());
+        }
+        return output.toBytes();
+    }
+
+    /**
+     * Decompresses the given {@link Bytes}.
+     *
+     * @param compressed compressed data
+     * @return decompressed data
+     * @throws DataFormatException if the data is not valid for this format
+     */
+    public Bytes decompress(Bytes compressed) throws DataFormatException {
+        return decompress(compressed, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Decompresses only the beginning of the given {@link Bytes}, i.e. stops once the specified number of bytes has been
+     * produced. This is much cheaper than decompressing the whole data if only a prefix (e.g. a header) is needed.
+     *
+     * @param compressed compressed data
+     * @param maxLength  maximum number of decompressed bytes
+     * @return at most {@code maxLength} bytes of the decompressed data
+     * @throws DataFormatException if the data is not valid for this format
+     */
+    public Bytes decompressPrefix(Bytes compressed, int maxLength) throws DataFormatException {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("Invalid maximum length: " + maxLength);
+        }
+        return decompress(compressed, maxLength);
+    }
+
+    /**
+     * Returns stream that decompresses the given {@link Bytes} lazily while being read.
+     *
+     * @param compressed compressed data
+     * @return stream of decompressed data
+     * @throws IOException if the gzip header is not valid
+     */
+    public InputStream newDecompressingStream(Bytes compressed) throws IOException {
+        switch (format) {
+            case GZIP:
+                return new GZIPInputStream(compressed.newInputStream());
+            case ZLIB:
+                return new InflaterInputStream(compressed.newInputStream());
+            default:
+                return new InflaterInputStream(compressed.newInputStream(), new Inflater(true));
+        }
+    }
+
+    private Bytes decompress(Bytes compressed, int maxLength) throws DataFormatException {
+        final ChunkedOutput output = new ChunkedOutput(compressed.size() * 2);
+        if (format != Format.GZIP) {
+            final Inflater inflater = new Inflater(format == Format.DEFLATE);
+            try {
+                inflate(inflater, compressed, output, maxLength);
+                if (!inflater.finished() && output.size() < maxLength) {
+                    throw new DataFormatException("Unexpected end of compressed data");
+                }
+            } finally {
+                inflater.end();
+            }
+            return output.toBytes();
+        }
+
+        int memberStart = 0;
+        do {
+            final int dataStart = memberStart + gzipHeaderLength(compressed, memberStart);
+            final int outputStart = output.size();
+            final Inflater inflater = new Inflater(true);
+            try {
+                inflate(inflater, compressed.view(dataStart, compressed.size()), output, maxLength);
+                if (output.size() >= maxLength) {
+                    break;
+                }
+                if (!inflater.finished()) {
+                    throw new DataFormatException("Unexpected end of compressed data");
+                }
+
+                final int trailerStart = dataStart + (int) inflater.getBytesRead();
+                if (compressed.size() - trailerStart < GZIP_TRAILER_LENGTH) {
+                    throw new DataFormatException("Missing gzip trailer");
+                }
+                final Bytes member = output.toBytes();
+                if (compressed.getUnsignedInt(trailerStart, ByteOrder.LITTLE_ENDIAN) != member.view(outputStart, member.size()).crc32()) {
+                    throw new DataFormatException("Corrupt gzip trailer: CRC32 mismatch");
+                }
+                if (compressed.getInt(trailerStart + 4, ByteOrder.LITTLE_ENDIAN) != (int) inflater.getBytesWritten()) {
+                    throw new DataFormatException("Corrupt gzip trailer: size mismatch");
+                }
+                memberStart = trailerStart + GZIP_TRAILER_LENGTH;
+            } finally {
+                inflater.end();
+            }
+            // concatenated gzip members
+        } while (compressed.size() - memberStart >= GZIP_HEADER_LENGTH && compressed.getUnsignedShort(memberStart, ByteOrder.LITTLE_ENDIAN) == GZIP_MAGIC);
+
+        return output.toBytes();
+    }
+
+    private static void deflate(Deflater deflater, ChunkedOutput output) {
+        while (!deflater.needsInput()) {
+            output.ensureSpace();
+            output.advance(deflater.deflate(output.chunk, output.position, output.chunk.length - output.position));
+        }
+    }
+
+    private static void inflate(Inflater inflater, Bytes compressed, ChunkedOutput output, int maxLength) throws DataFormatException {
+        for (ByteBuffer segment : compressed.asReadOnlyByteBufferList()) {
+            if (INFLATER_SET_INPUT != null) {
+                invokeSetInput(INFLATER_SET_INPUT, inflater, segment.duplicate());
+                if (!inflate(inflater, output, maxLength)) {
+                    return;
+                }
+            } else {
+                final ByteBuffer input = segment.duplicate();
+                final byte[] chunk = new byte[Math.min(INPUT_CHUNK_SIZE, input.remaining())];
+                while (input.hasRemaining()) {
+                    final int n = Math.min(chunk.length, input.remaining());
+                    input.get(chunk, 0, n);
+                    inflater.setInput(chunk, 0, n);
+                    if (!inflate(inflater, output, maxLength)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Inflates the current input of the inflater.
+     *
+     * @return {@code false} if the inflating should stop (end of the compressed stream or enough data)
+     */
+    private static boolean inflate(Inflater inflater, ChunkedOutput output, int maxLength) throws DataFormatException {
+        while (true) {
+            if (inflater.finished() || output.size() >= maxLength) {
+                return false;
+            }
+            if (inflater.needsDictionary()) {
+                throw new DataFormatException("Preset dictionary is not supported");
+            }
+            output.ensureSpace();
+            final int n = inflater.inflate(output.chunk, output.position, Math.min(output.chunk.length - output.position, maxLength - output.size()));
+            output.advance(n);
+            if (n == 0 && inflater.needsInput()) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return length of the gzip header starting at the specified index
+     */
+    private static int gzipHeaderLength(Bytes compressed, int start) throws DataFormatException {
+        try {
+            if (compressed.getUnsignedShort(start, ByteOrder.LITTLE_ENDIAN) != GZIP_MAGIC) {
+                throw new DataFormatException("Not in gzip format");
+            }
+            if (compressed.byteAt(start + 2) != Deflater.DEFLATED) {
+                throw new DataFormatException("Unsupported gzip compression method");
+            }
+            final int flags = compressed.byteAt(start + 3);
+            int position = start + GZIP_HEADER_LENGTH;
+            if ((flags & FEXTRA) != 0) {
+                position += 2 + compressed.getUnsignedShort(position, ByteOrder.LITTLE_ENDIAN);
+            }
+            if ((flags & FNAME) != 0) {
+                while (compressed.byteAt(position++) != 0) {
+                    // skip zero-terminated file name
+                }
+            }
+            if ((flags & FCOMMENT) != 0) {
+                while (compressed.byteAt(position++) != 0) {
+                    // skip zero-terminated comment
+                }
+            }
+            if ((flags & FHCRC) != 0) {
+                position += 2;
+            }
+            if (position > compressed.size()) {
+                throw new DataFormatException("Truncated gzip header");
+            }
+            return position - start;
+        } catch (IndexOutOfBoundsException e) {
+            throw new DataFormatException("Truncated gzip header");
+        }
+    }
+
+    private static MethodHandle findSetInput(Class<?> clazz) {
+        try {
+            return MethodHandles.publicLookup().findVirtual(clazz, "setInput", MethodType.methodType(void.class, ByteBuffer.class));
+        } catch (ReflectiveOperationException e) {
+            // JDK older than 11, the input is copied into an array
+            return null;
+        }
+    }
+
+    private static void invokeSetInput(MethodHandle setInput, Object target, ByteBuffer input) {
+        try {
+            setInput.invoke(target, input);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // setInput does not throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Output written into chunks of growing size, which are never reallocated.
+     */
+    private static final class ChunkedOutput {
+
+        private final ConcatBytes.Builder builder = ConcatBytes.newBuilder(0);
+
+        private int nextChunkSize;
+
+        private byte[] chunk;
+
+        private int position;
+
+        /**
+         * Start of the part of the current chunk that has not been appended to the builder yet.
+         */
+        private int flushed;
+
+        private ChunkedOutput(int expectedSize) {
+            this.nextChunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, expectedSize));
+        }
+
+        int size() {
+            return builder.size() + position - flushed;
+        }
+
+        void ensureSpace() {
+            if (chunk == null || position == chunk.length) {
+                flush();
+                chunk = new byte[nextChunkSize];
+                position = 0;
+                flushed = 0;
+                nextChunkSize = Math.min(MAX_CHUNK_SIZE, nextChunkSize * 2);
+            }
+        }
+
+        void advance(int n) {
+            position += n;
+        }
+
+        void write(byte[] data) {
+            for (int written = 0; written < data.length; ) {
+                ensureSpace();
+                final int n = Math.min(data.length - written, chunk.length - position);
+                System.arraycopy(data, written, chunk, position, n);
+                position += n;
+                written += n;
+            }
+        }
+
+        Bytes toBytes() {
+            flush();
+            final Bytes result = builder.build();
+            // the builder was reset, keep the result so that the output can be still appended to
+            builder.append(result);
+            return result;
+        }
+
+        private void flush() {
+            if (chunk != null && position > flushed) {
+                // parts of the chunk that were appended to the builder are never modified again
+                builder.append(UnsafeBytes.unsafeWrap(chunk, flushed, position - flushed));
+                flushed = position;
+            }
+        }
+
+    }
+
+}
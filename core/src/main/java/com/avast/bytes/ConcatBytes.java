@@ -1,8 +1,13 @@
 package com.avast.bytes;
 
+import com.avast.bytes.internal.Instrumentation;
+import com.avast.bytes.internal.TextCodec;
+import com.avast.bytes.internal.UnsafeBytes;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.*;
 
@@ -13,6 +18,12 @@ public final class ConcatBytes extends AbstractBytes {
 
     private final ArrayList<Bytes> chain;
 
+    /**
+     * Offsets of the {@link Bytes} in the chain, i.e. {@code offsets[i]} is the global index of the first byte
+     * of {@code chain.get(i)}. The last item is the total size of the chain.
+     */
+    private final int[] offsets;
+
     /**
      * Global offset into the chain of {@link Bytes}. Imagine you would copy all the {@link Bytes} into a single array
      * and this global offset would tell you where you should start reading that array.
@@ -24,20 +35,38 @@ public final class ConcatBytes extends AbstractBytes {
      */
     private final int length;
 
+    /**
+     * Depth of nesting of {@link ConcatBytes} in the chain ({@code 1} if there are no nested {@link ConcatBytes}).
+     */
+    private final int depth;
+
     private ConcatBytes(final int globalOffset,
                         final int length,
-                        final ArrayList<Bytes> bytes) {
+                        final ArrayList<Bytes> bytes,
+                        final int[] offsets,
+                        final int depth) {
         this.globalOffset = globalOffset;
         this.length = length;
         this.chain = bytes;
+        this.offsets = offsets;
+        this.depth = depth;
+    }
+
+    private ConcatBytes(final ArrayList<Bytes> bytes) {
+        this(bytes, computeOffsets(bytes), computeDepth(bytes));
+    }
+
+    private ConcatBytes(final ArrayList<Bytes> bytes, final int[] offsets, final int depth) {
+        this(0, offsets[bytes.size()], bytes, offsets, depth);
+        Instrumentation.recordConcat(bytes.size(), depth);
     }
 
     private ConcatBytes(final List<Bytes> bytesN) {
-        this(0, computeLength(bytesN), copyList(bytesN));
+        this(copyList(bytesN));
     }
 
     private ConcatBytes(final Bytes bytes1, final Bytes bytes2, final Bytes... bytesN) {
-        this(0, computeLength(bytes1, bytes2, bytesN), makeList(bytes1, bytes2, bytesN));
+        this(makeList(bytes1, bytes2, bytesN));
     }
 
     @Override
@@ -51,66 +80,176 @@ public final class ConcatBytes extends AbstractBytes {
             throw new ArrayIndexOutOfBoundsException(index);
         }
 
-        int globalIndex = globalOffset + index;
-        int scannedBytes = 0;
-        for (Bytes bytes : chain) {
-            if (globalIndex < scannedBytes + bytes.size()) {
-                return bytes.byteAt(globalIndex - scannedBytes);
-            } else {
-                scannedBytes += bytes.size();
-            }
-        }
+        final int globalIndex = globalOffset + index;
+        final int i = segmentIndex(globalIndex);
+        return chain.get(i).byteAt(globalIndex - offsets[i]);
+    }
 
-        throw new RuntimeException("This cannot happen.");
+    @Override
+    public short getShort(final int index, final ByteOrder order) {
+        return (short) readLong(index, Short.BYTES, order);
     }
 
     @Override
-    public byte[] toByteArray() {
-        final byte[] copy = new byte[length];
+    public int getInt(final int index, final ByteOrder order) {
+        return (int) readLong(index, Integer.BYTES, order);
+    }
 
-        int scannedBytes = 0;
-        int copiedBytes = 0;
-        boolean first = true;
-        for (Bytes bytes : chain) {
-            // everything is copied already
-            if (copiedBytes == length) {
-                continue;
-            }
+    @Override
+    public long getLong(final int index, final ByteOrder order) {
+        return readLong(index, Long.BYTES, order);
+    }
 
-            // skipping bytes until we reach globalOffset
-            if (scannedBytes + bytes.size() < globalOffset) {
-                scannedBytes += bytes.size();
-                continue;
+    /**
+     * Reads value stored in {@code count} bytes. If the value lies within a single segment of the chain, the read
+     * is delegated to that segment, otherwise the value is composed from bytes of the adjacent segments.
+     */
+    private long readLong(final int index, final int count, final ByteOrder order) {
+        if (index < 0 || index > length - count) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+
+        final int globalIndex = globalOffset + index;
+        int i = segmentIndex(globalIndex);
+        Bytes segment = chain.get(i);
+        int segmentIndex = globalIndex - offsets[i];
+        if (segmentIndex + count <= segment.size()) {
+            switch (count) {
+                case Short.BYTES:
+                    return segment.getShort(segmentIndex, order);
+                case Integer.BYTES:
+                    return segment.getInt(segmentIndex, order);
+                default:
+                    return segment.getLong(segmentIndex, order);
             }
+        }
 
-            byte[] bytesToCopy;
-            if (first) {
-                int from = globalOffset - scannedBytes;
-                int to = from + Math.min(bytes.size() - from, length);
-                bytesToCopy = Arrays.copyOfRange(bytes.toByteArray(), from, to);
-                first = false;
-            } else {
-                bytesToCopy = bytes.toByteArray();
+        long value = 0;
+        for (int read = 0; read < count; read++) {
+            while (segmentIndex == segment.size()) {
+                segment = chain.get(++i);
+                segmentIndex = 0;
             }
+            value = (value << 8) | (segment.byteAt(segmentIndex++) & 0xFF);
+        }
+        Instrumentation.recordSlowPath(BytesInstrumentation.Operation.PRIMITIVE_READ);
+        return Utils.toOrder(value, count, order);
+    }
 
-            int copyLength = Math.min(bytesToCopy.length, length - copiedBytes);
-            System.arraycopy(bytesToCopy, 0, copy, copiedBytes, copyLength);
+    @Override
+    public long getVarint64(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
 
-            copiedBytes += copyLength;
-            scannedBytes += bytes.size();
+        final int globalIndex = globalOffset + index;
+        int i = segmentIndex(globalIndex);
+        Bytes segment = chain.get(i);
+        int segmentIndex = globalIndex - offsets[i];
+        if (segmentIndex + Utils.MAX_VARINT_LENGTH <= segment.size() || offsets[i + 1] >= globalOffset + length) {
+            // the whole varint is in this segment (or it is malformed anyway)
+            return segment.view(0, Math.min(segment.size(), globalOffset + length - offsets[i])).getVarint64(segmentIndex);
         }
 
+        final int available = Math.min(length - index, Utils.MAX_VARINT_LENGTH);
+        long value = 0;
+        for (int read = 0; read < available; read++) {
+            while (segmentIndex == segment.size()) {
+                segment = chain.get(++i);
+                segmentIndex = 0;
+            }
+            final byte b = segment.byteAt(segmentIndex++);
+            value |= (long) (b & 0x7F) << (7 * read);
+            if (b >= 0) {
+                return value;
+            }
+        }
+        if (available < Utils.MAX_VARINT_LENGTH) {
+            throw new IndexOutOfBoundsException(String.valueOf(length));
+        }
+        throw new IllegalArgumentException("Malformed varint at index " + index);
+    }
+
+    /**
+     * Returns index of the segment in the chain containing byte at the specified global index.
+     */
+    private int segmentIndex(final int globalIndex) {
+        int i = Arrays.binarySearch(offsets, 0, chain.size(), globalIndex);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        // skip empty segments
+        while (offsets[i + 1] <= globalIndex) {
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        Instrumentation.recordCopy(BytesInstrumentation.Operation.TO_BYTE_ARRAY, length);
+        return copyData();
+    }
+
+    /**
+     * Copies the data directly from buffers of the segments, without intermediate arrays.
+     */
+    private byte[] copyData() {
+        final byte[] copy = new byte[length];
+        int copiedBytes = 0;
+        for (ByteBuffer buffer : asReadOnlyByteBufferList()) {
+            final int n = buffer.remaining();
+            buffer.get(copy, copiedBytes, n);
+            copiedBytes += n;
+        }
         return copy;
     }
 
     @Override
     public ByteBuffer toReadOnlyByteBuffer() {
-        return ByteBuffer.wrap(toByteArray()).asReadOnlyBuffer();
+        Instrumentation.recordCopy(BytesInstrumentation.Operation.TO_BYTE_BUFFER, length);
+        return ByteBuffer.wrap(copyData()).asReadOnlyBuffer();
+    }
+
+    @Override
+    public List<ByteBuffer> asReadOnlyByteBufferList() {
+        final List<Bytes> segments = segments();
+        final ArrayList<ByteBuffer> buffers = new ArrayList<>(segments.size());
+        for (Bytes segment : segments) {
+            buffers.addAll(segment.asReadOnlyByteBufferList());
+        }
+        return buffers;
+    }
+
+    /**
+     * Returns non-empty {@link Bytes} of the chain covered by this instance; the first and the last one
+     * are limited to the covered range using {@link Bytes#view(int, int)}.
+     */
+    List<Bytes> segments() {
+        if (length == 0) {
+            return Collections.emptyList();
+        }
+
+        final int end = globalOffset + length;
+        final int first = segmentIndex(globalOffset);
+        final int last = segmentIndex(end - 1);
+        final ArrayList<Bytes> segments = new ArrayList<>(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            final Bytes bytes = chain.get(i);
+            if (bytes.isEmpty()) {
+                continue;
+            }
+            final int from = Math.max(globalOffset, offsets[i]) - offsets[i];
+            final int to = Math.min(end, offsets[i + 1]) - offsets[i];
+            segments.add(from == 0 && to == bytes.size() ? bytes : bytes.view(from, to));
+        }
+        return segments;
     }
 
     @Override
     public String toString(Charset charset) {
-        return new String(toByteArray(), charset);
+        Instrumentation.recordCopy(BytesInstrumentation.Operation.TO_STRING, length);
+        return TextCodec.decode(asReadOnlyByteBufferList(), length, charset);
     }
 
     @Override
@@ -179,6 +318,11 @@ public final class ConcatBytes extends AbstractBytes {
 
     }
 
+    /**
+     * {@inheritDoc}
+     * The view references only the segments of the chain it covers. If the range lies within a single segment,
+     * a view of that segment is returned instead of {@link ConcatBytes}.
+     */
     @Override
     public Bytes view(int beginIndex, int endIndex) {
         if (beginIndex < 0) {
@@ -192,7 +336,361 @@ public final class ConcatBytes extends AbstractBytes {
             throw new ArrayIndexOutOfBoundsException(subLen);
         }
 
-        return new ConcatBytes(globalOffset + beginIndex, endIndex - beginIndex, chain);
+        if (subLen == 0) {
+            return Bytes.empty();
+        }
+
+        // keep only the segments covered by the view, so that it does not retain the rest of the chain
+        final int begin = globalOffset + beginIndex;
+        final int end = globalOffset + endIndex;
+        final int first = segmentIndex(begin);
+        final int last = segmentIndex(end - 1);
+        if (first == last) {
+            final Bytes segment = chain.get(first);
+            final int from = begin - offsets[first];
+            final int to = end - offsets[first];
+            return from == 0 && to == segment.size() ? segment : segment.view(from, to);
+        }
+        if (first == 0 && last == chain.size() - 1) {
+            return new ConcatBytes(begin, subLen, chain, offsets, depth);
+        }
+
+        final ArrayList<Bytes> trimmed = new ArrayList<>(chain.subList(first, last + 1));
+        final int[] trimmedOffsets = new int[trimmed.size() + 1];
+        for (int i = 0; i <= trimmed.size(); i++) {
+            trimmedOffsets[i] = offsets[first + i] - offsets[first];
+        }
+        return new ConcatBytes(begin - offsets[first], subLen, trimmed, trimmedOffsets, depth);
+    }
+
+    /**
+     * {@inheritDoc}
+     * This is the sum of the retained sizes of the segments of the chain.
+     */
+    @Override
+    public long retainedSize() {
+        long retained = 0;
+        for (Bytes bytes : chain) {
+            retained += bytes.retainedSize();
+        }
+        return retained;
+    }
+
+    /**
+     * Lazily allocated, so that instances whose checksums are never computed don't pay for it. Only concatenations
+     * cache checksums; they are typically large and computing a checksum walks all their segments.
+     */
+    private volatile Checksums.Cache checksums;
+
+    private Checksums.Cache checksums() {
+        Checksums.Cache c = checksums;
+        if (c == null) {
+            // racy initialization is fine, the worst case is computing a checksum more than once
+            c = new Checksums.Cache();
+            checksums = c;
+        }
+        return c;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The result is cached, the checksum is computed only once.
+     */
+    @Override
+    public long crc32() {
+        final Checksums.Cache c = checksums();
+        long crc = c.crc32;
+        if (crc == -1) {
+            crc = Checksums.crc32(this);
+            c.crc32 = crc;
+        }
+        return crc;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The result is cached, the checksum is computed only once.
+     */
+    @Override
+    public long crc32c() {
+        final Checksums.Cache c = checksums();
+        long crc = c.crc32c;
+        if (crc == -1) {
+            crc = Checksums.crc32c(this);
+            c.crc32c = crc;
+        }
+        return crc;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The result is cached, the checksum is computed only once.
+     */
+    @Override
+    public long adler32() {
+        final Checksums.Cache c = checksums();
+        long adler = c.adler32;
+        if (adler == -1) {
+            adler = Checksums.adler32(this);
+            c.adler32 = adler;
+        }
+        return adler;
+    }
+
+    /**
+     * Computes CRC32C checksum of the data in parallel using {@link ParallelBytes#common()}. Equivalent
+     * to {@link #crc32c()}, but faster for very large instances.
+     *
+     * @return CRC32C checksum as unsigned 32-bit value
+     * @see ParallelBytes#crc32c(Bytes)
+     */
+    public long parallelCrc32c() {
+        return ParallelBytes.common().crc32c(this);
+    }
+
+    /**
+     * Creates new {@link Builder} for efficient incremental assembly of {@link Bytes} from many fragments.
+     *
+     * @return new builder
+     */
+    public static Builder newBuilder() {
+        return new Builder(Builder.DEFAULT_MERGE_THRESHOLD);
+    }
+
+    /**
+     * Creates new {@link Builder} for efficient incremental assembly of {@link Bytes} from many fragments.
+     *
+     * @param mergeThreshold appended {@link Bytes} of at most this size are copied into a shared buffer
+     *                       together with adjacent small {@link Bytes} instead of being referenced
+     * @return new builder
+     */
+    public static Builder newBuilder(final int mergeThreshold) {
+        if (mergeThreshold < 0) {
+            throw new IllegalArgumentException("Invalid merge threshold: " + mergeThreshold);
+        }
+        return new Builder(mergeThreshold);
+    }
+
+    /**
+     * Creates new {@link ChunkedBuilderStream} writing the data into chunks that are never reallocated (starting at 1 kB,
+     * growing up to 1 MB).
+     *
+     * @return new builder stream
+     */
+    public static ChunkedBuilderStream newBuilderStream() {
+        return new ChunkedBuilderStream(ChunkedBuilderStream.DEFAULT_INITIAL_CHUNK_SIZE, ChunkedBuilderStream.DEFAULT_MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates new {@link ChunkedBuilderStream} writing the data into chunks that are never reallocated.
+     * Use the same value for both parameters to get chunks of a fixed size.
+     *
+     * @param initialChunkSize size of the first chunk
+     * @param maxChunkSize     maximum size of a chunk (every next chunk is twice the size of the previous one)
+     * @return new builder stream
+     */
+    public static ChunkedBuilderStream newBuilderStream(final int initialChunkSize, final int maxChunkSize) {
+        if (initialChunkSize <= 0 || maxChunkSize < initialChunkSize) {
+            throw new IllegalArgumentException("Invalid chunk sizes: " + initialChunkSize + ", " + maxChunkSize);
+        }
+        return new ChunkedBuilderStream(initialChunkSize, maxChunkSize);
+    }
+
+    /**
+     * Assembles {@link Bytes} from many fragments in O(N) total time.
+     * <p>
+     * Appended {@link ConcatBytes} are flattened (only their segments are referenced, so the result is never
+     * nested), small fragments and literals are merged into a shared buffer and offsets of the segments are
+     * computed while appending, so {@link #build()} does not need to copy or scan anything.
+     * <p>
+     * Instances are NOT thread-safe.
+     */
+    public static final class Builder {
+
+        static final int DEFAULT_MERGE_THRESHOLD = 64;
+
+        private static final int MIN_PENDING_CAPACITY = 256;
+
+        private final int mergeThreshold;
+
+        private ArrayList<Bytes> segments = new ArrayList<>();
+
+        private int[] offsets = new int[8];
+
+        private int size = 0;
+
+        /**
+         * Buffer merging small fragments; it's wrapped (without copying) when a large fragment is appended or
+         * when the result is built, and a new one is allocated afterwards.
+         */
+        private byte[] pending;
+
+        private int pendingLength = 0;
+
+        private Builder(final int mergeThreshold) {
+            this.mergeThreshold = mergeThreshold;
+        }
+
+        /**
+         * Returns total number of bytes appended so far.
+         *
+         * @return number of appended bytes
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Appends {@link Bytes}. Small ones are copied, larger ones are referenced without copying.
+         *
+         * @param bytes bytes to append
+         * @return this builder
+         */
+        public Builder append(final Bytes bytes) {
+            if (bytes instanceof ConcatBytes) {
+                for (Bytes segment : ((ConcatBytes) bytes).segments()) {
+                    append(segment);
+                }
+            } else if (bytes.size() <= mergeThreshold) {
+                if (!bytes.isEmpty()) {
+                    final byte[] target = reservePending(bytes.size());
+                    for (ByteBuffer buffer : bytes.asReadOnlyByteBufferList()) {
+                        final int n = buffer.remaining();
+                        buffer.duplicate().get(target, pendingLength, n);
+                        pendingLength += n;
+                    }
+                    size += bytes.size();
+                }
+            } else {
+                flushPending();
+                addSegment(bytes);
+            }
+            return this;
+        }
+
+        /**
+         * Appends view of the specified part of {@link Bytes}.
+         *
+         * @param bytes      bytes to append part of
+         * @param beginIndex the beginning index, inclusive
+         * @param endIndex   the ending index, exclusive
+         * @return this builder
+         */
+        public Builder append(final Bytes bytes, final int beginIndex, final int endIndex) {
+            return append(bytes.view(beginIndex, endIndex));
+        }
+
+        /**
+         * Appends a single byte.
+         *
+         * @param b byte to append
+         * @return this builder
+         */
+        public Builder append(final byte b) {
+            final byte[] target = reservePending(1);
+            target[pendingLength++] = b;
+            size += 1;
+            return this;
+        }
+
+        /**
+         * Appends copy of the given array.
+         *
+         * @param literal bytes to append
+         * @return this builder
+         */
+        public Builder append(final byte[] literal) {
+            return append(literal, 0, literal.length);
+        }
+
+        /**
+         * Appends copy of the specified part of the given array.
+         *
+         * @param literal bytes to append
+         * @param offset  offset of the first appended byte
+         * @param length  number of appended bytes
+         * @return this builder
+         */
+        public Builder append(final byte[] literal, final int offset, final int length) {
+            if (length <= mergeThreshold) {
+                final byte[] target = reservePending(length);
+                System.arraycopy(literal, offset, target, pendingLength, length);
+                pendingLength += length;
+                size += length;
+            } else {
+                flushPending();
+                addSegment(Bytes.copyFrom(literal, offset, length));
+            }
+            return this;
+        }
+
+        /**
+         * Returns {@link Bytes} containing all appended data and resets this builder,
+         * so it can be used for assembling another instance.
+         *
+         * @return the assembled {@link Bytes}
+         */
+        public Bytes build() {
+            flushPending();
+            final Bytes result;
+            if (segments.isEmpty()) {
+                result = Bytes.empty();
+            } else if (segments.size() == 1) {
+                result = segments.get(0);
+            } else {
+                final int[] resultOffsets = Arrays.copyOf(offsets, segments.size() + 1);
+                resultOffsets[segments.size()] = size;
+                // appended ConcatBytes are flattened
+                result = new ConcatBytes(segments, resultOffsets, 1);
+            }
+
+            segments = new ArrayList<>();
+            size = 0;
+            return result;
+        }
+
+        private byte[] reservePending(final int n) {
+            if (pending != null && pending.length - pendingLength < n) {
+                flushPending();
+            }
+            if (pending == null) {
+                pending = new byte[Math.max(n, Math.max(MIN_PENDING_CAPACITY, mergeThreshold * 4))];
+                Instrumentation.recordAllocation(BytesInstrumentation.Operation.CONCAT_BUILDER, pending.length);
+            }
+            checkSize(n);
+            return pending;
+        }
+
+        private void flushPending() {
+            if (pendingLength > 0) {
+                // size was already counted when the data was appended to the pending buffer
+                final int pendingStart = size - pendingLength;
+                addSegment(UnsafeBytes.unsafeWrap(pending, 0, pendingLength), pendingStart);
+            }
+            pending = null;
+            pendingLength = 0;
+        }
+
+        private void addSegment(final Bytes bytes) {
+            checkSize(bytes.size());
+            addSegment(bytes, size);
+            size += bytes.size();
+        }
+
+        private void addSegment(final Bytes bytes, final int offset) {
+            if (segments.size() + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[segments.size()] = offset;
+            segments.add(bytes);
+        }
+
+        private void checkSize(final int n) {
+            if (size + n < 0) {
+                throw new IllegalStateException("Size of Bytes cannot exceed " + Integer.MAX_VALUE + " bytes");
+            }
+        }
+
     }
 
     /**
@@ -213,20 +711,25 @@ public final class ConcatBytes extends AbstractBytes {
         return new ConcatBytes(bytesN);
     }
 
-    private static int computeLength(final Bytes bytes1, final Bytes bytes2, final Bytes... bytesN) {
-        int size = bytes1.size() + bytes2.size();
-        for (Bytes bytes : bytesN) {
-            size += bytes.size();
+    private static int[] computeOffsets(final List<Bytes> bytesN) {
+        final int[] offsets = new int[bytesN.size() + 1];
+        int size = 0;
+        for (int i = 0; i < bytesN.size(); i++) {
+            offsets[i] = size;
+            size += bytesN.get(i).size();
         }
-        return size;
+        offsets[bytesN.size()] = size;
+        return offsets;
     }
 
-    private static int computeLength(Iterable<Bytes> bytesN) {
-        int size = 0;
+    private static int computeDepth(final List<Bytes> bytesN) {
+        int depth = 0;
         for (Bytes bytes : bytesN) {
-            size += bytes.size();
+            if (bytes instanceof ConcatBytes) {
+                depth = Math.max(depth, ((ConcatBytes) bytes).depth);
+            }
         }
-        return size;
+        return depth + 1;
     }
 
     private static ArrayList<Bytes> makeList(Bytes bytes1, Bytes bytes2, Bytes[] bytesN) {
@@ -0,0 +1,242 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.UnsafeBytes;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds {@link Bytes} of a known maximum size from multiple threads in parallel, without locks.
+ * <p>
+ * A writer reserves a region of the output using {@link #reserve(int)} (a CAS on the shared write cursor, so the regions
+ * are disjoint), fills it independently of the other writers and publishes it using {@link Region#commit()}.
+ * {@link #toBytes()} returns a zero-copy contiguous {@link Bytes} of the committed prefix, i.e. of all the regions
+ * up to the first region that is not committed yet. Everything written into the committed regions
+ * <i>happens-before</i> reading it from the returned {@link Bytes}.
+ * <p>
+ * Every reserved region must be committed eventually, otherwise the committed prefix never grows past it.
+ * For outputs of unknown size use {@link ConcurrentSegmentsBuilder}.
+ */
+public final class ConcurrentBytesBuilder {
+
+    private final byte[] buffer;
+
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    private final AtomicInteger committed = new AtomicInteger();
+
+    /**
+     * Committed regions that are not part of the committed prefix yet (start to end).
+     */
+    private final ConcurrentHashMap<Integer, Integer> pendingCommits = new ConcurrentHashMap<>();
+
+    /**
+     * Creates builder with the specified capacity.
+     *
+     * @param capacity maximum number of bytes that can be reserved
+     */
+    public ConcurrentBytesBuilder(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * Returns the capacity of this builder.
+     *
+     * @return maximum number of bytes that can be reserved
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Returns number of bytes reserved so far.
+     *
+     * @return number of reserved bytes
+     */
+    public int reserved() {
+        return cursor.get();
+    }
+
+    /**
+     * Returns the size of the committed prefix.
+     *
+     * @return number of bytes in the committed prefix
+     */
+    public int committed() {
+        return committed.get();
+    }
+
+    /**
+     * Reserves region of the output following all the previously reserved regions.
+     *
+     * @param length length of the region
+     * @return the reserved region
+     * @throws IllegalStateException if there is not enough capacity left
+     */
+    public Region reserve(final int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Invalid length: " + length);
+        }
+        while (true) {
+            final int offset = cursor.get();
+            if (length > buffer.length - offset) {
+                throw new IllegalStateException("Cannot reserve " + length + " bytes, only " + (buffer.length - offset) + " bytes left");
+            }
+            if (cursor.compareAndSet(offset, offset + length)) {
+                return new Region(offset, length);
+            }
+        }
+    }
+
+    /**
+     * Returns contiguous {@link Bytes} of the committed prefix without copying. It can be called at any time
+     * and multiple times, committed data is never modified.
+     *
+     * @return the committed prefix
+     */
+    public Bytes toBytes() {
+        final int length = committed.get();
+        return length == 0 ? Bytes.empty() : UnsafeBytes.unsafeWrap(buffer, 0, length);
+    }
+
+    private void commit(final int start, final int end) {
+        if (start == end) {
+            // empty regions don't block the prefix (and could share the start with another region)
+            return;
+        }
+        // the writes into the region happen-before publishing it in the map
+        pendingCommits.put(start, end);
+        // only the thread removing the entry starting at the current end of the prefix may extend it, so the prefix
+        // grows in order; a region committed concurrently is picked up either by its own thread or by the one that has
+        // just extended the prefix up to its start
+        while (true) {
+            final int prefix = committed.get();
+            final Integer next = pendingCommits.remove(prefix);
+            if (next == null) {
+                return;
+            }
+            committed.set(next);
+        }
+    }
+
+    /**
+     * Reserved region of the output. It's filled sequentially using the {@code write} methods or directly using
+     * {@link #buffer()}.
+     * <p>
+     * Instances are NOT thread-safe, every region should be filled by a single thread.
+     */
+    public final class Region {
+
+        private final int offset;
+
+        private final int length;
+
+        private int position = 0;
+
+        private boolean done = false;
+
+        private Region(final int offset, final int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * @return offset of this region in the output
+         */
+        public int offset() {
+            return offset;
+        }
+
+        /**
+         * @return length of this region
+         */
+        public int length() {
+            return length;
+        }
+
+        /**
+         * @return number of bytes that can be still written using the {@code write} methods
+         */
+        public int remaining() {
+            return length - position;
+        }
+
+        /**
+         * Writes a byte at the current position of this region.
+         *
+         * @param b the byte
+         * @return this region
+         */
+        public Region write(final byte b) {
+            checkWrite(1);
+            buffer[offset + position++] = b;
+            return this;
+        }
+
+        /**
+         * Writes part of an array at the current position of this region.
+         *
+         * @param data the data
+         * @param off  offset of the first written byte
+         * @param len  number of written bytes
+         * @return this region
+         */
+        public Region write(final byte[] data, final int off, final int len) {
+            checkWrite(len);
+            System.arraycopy(data, off, buffer, offset + position, len);
+            position += len;
+            return this;
+        }
+
+        /**
+         * Writes {@link Bytes} at the current position of this region.
+         *
+         * @param bytes the data
+         * @return this region
+         */
+        public Region write(final Bytes bytes) {
+            checkWrite(bytes.size());
+            for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+                final int n = segment.remaining();
+                segment.get(buffer, offset + position, n);
+                position += n;
+            }
+            return this;
+        }
+
+        /**
+         * Returns writable buffer of the whole region (independent of the position of the {@code write} methods),
+         * e.g. for serializers writing into {@link ByteBuffer}. It must not be used after {@link #commit()}.
+         *
+         * @return buffer of this region
+         */
+        public ByteBuffer buffer() {
+            checkWrite(0);
+            return ByteBuffer.wrap(buffer, offset, length).slice();
+        }
+
+        /**
+         * Publishes this region. Bytes that were not written are zero.
+         */
+        public void commit() {
+            checkWrite(0);
+            done = true;
+            ConcurrentBytesBuilder.this.commit(offset, offset + length);
+        }
+
+        private void checkWrite(final int n) {
+            if (done) {
+                throw new IllegalStateException("Region has been committed already");
+            }
+            if (n > length - position) {
+                throw new IndexOutOfBoundsException("Cannot write " + n + " bytes, only " + (length - position) + " bytes left");
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.Instrumentation;
+import com.avast.bytes.internal.UnsafeBytes;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Builds {@link Bytes} of unknown size from multiple threads in parallel.
+ * <p>
+ * Every thread writes into its own {@link Writer} (see {@link #newWriter()}), which buffers the data in thread-private
+ * chunks. Written data is published by {@link Writer#publish()} as a single unit (e.g. a serialized record);
+ * units published by different threads never interleave. {@link #toBytes()} returns zero-copy {@link ConcatBytes}
+ * of all the units published so far, in the order of publishing.
+ * <p>
+ * For outputs of a known size that should be contiguous use {@link ConcurrentBytesBuilder}.
+ */
+public final class ConcurrentSegmentsBuilder {
+
+    private static final int DEFAULT_CHUNK_SIZE = 0x2000; // 8k
+
+    private final int chunkSize;
+
+    private final ConcurrentLinkedQueue<Bytes> published = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates builder with the default chunk size.
+     */
+    public ConcurrentSegmentsBuilder() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates builder whose writers allocate chunks of the specified size.
+     *
+     * @param chunkSize size of the thread-private chunks
+     */
+    public ConcurrentSegmentsBuilder(final int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates new writer. Writers are cheap, but every one of them allocates its own chunks, so a thread should
+     * keep using the same writer rather than creating one per unit.
+     *
+     * @return writer that must be used only by a single thread at a time
+     */
+    public Writer newWriter() {
+        return new Writer(published, chunkSize);
+    }
+
+    /**
+     * Returns {@link Bytes} of all the units published so far without copying them. Can be called at any time
+     * and multiple times.
+     *
+     * @return the published data
+     * @throws IllegalStateException if the size of the published data exceeds {@link Integer#MAX_VALUE}
+     */
+    public Bytes toBytes() {
+        final ConcatBytes.Builder builder = ConcatBytes.newBuilder(0);
+        for (Bytes unit : published) {
+            builder.append(unit);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Thread-private writer. Instances are NOT thread-safe.
+     */
+    public static final class Writer extends OutputStream {
+
+        private final ConcurrentLinkedQueue<Bytes> published;
+
+        private final int chunkSize;
+
+        /**
+         * Unpublished parts of the previous chunks.
+         */
+        private final ArrayList<Bytes> unpublished = new ArrayList<>();
+
+        private byte[] chunk;
+
+        private int position = 0;
+
+        /**
+         * Start of the unpublished part of the current chunk.
+         */
+        private int publishedPosition = 0;
+
+        private Writer(final ConcurrentLinkedQueue<Bytes> published, final int chunkSize) {
+            this.published = published;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public void write(final int b) {
+            ensureSpace();
+            chunk[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(final byte[] data, int offset, int length) {
+            if (offset < 0 || length < 0 || length > data.length - offset) {
+                throw new IndexOutOfBoundsException("Invalid range " + offset + "+" + length + " for array of length " + data.length);
+            }
+            while (length > 0) {
+                ensureSpace();
+                final int n = Math.min(length, chunk.length - position);
+                System.arraycopy(data, offset, chunk, position, n);
+                position += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        /**
+         * Publishes everything written since the previous call as a single unit. The written part of the chunk
+         * is never modified afterwards, the writer continues after it.
+         *
+         * @return number of published bytes
+         */
+        public int publish() {
+            if (position > publishedPosition) {
+                unpublished.add(UnsafeBytes.unsafeWrap(chunk, publishedPosition, position - publishedPosition));
+                publishedPosition = position;
+            }
+            if (unpublished.isEmpty()) {
+                return 0;
+            }
+            final Bytes unit = unpublished.size() == 1 ? unpublished.get(0) : ConcatBytes.wrap(new ArrayList<>(unpublished));
+            unpublished.clear();
+            // the queue guarantees that the writes happen-before reading the unit in toBytes
+            published.add(unit);
+            return unit.size();
+        }
+
+        private void ensureSpace() {
+            if (chunk != null && position < chunk.length) {
+                return;
+            }
+            if (chunk != null && position > publishedPosition) {
+                unpublished.add(UnsafeBytes.unsafeWrap(chunk, publishedPosition, position - publishedPosition));
+            }
+            chunk = new byte[chunkSize];
+            position = 0;
+            publishedPosition = 0;
+            Instrumentation.recordAllocation(BytesInstrumentation.Operation.BUILDER, chunkSize);
+        }
+
+    }
+
+}
@@ -1,5 +0,0 @@
-package com.avast.bytes;
-
-class Constants {
-    static final char[] HEX_ARRAY = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
-}
@@ -0,0 +1,322 @@
+package com.avast.bytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Content-defined chunking (FastCDC), which splits data into chunks at positions determined by the content, so that
+ * inserting or removing data changes only the chunks around the change (unlike fixed-size chunking) and the other
+ * chunks can be deduplicated.
+ * <p>
+ * The cut points are found by a Gear rolling hash with normalized chunking: the first {@code minSize} bytes of a chunk
+ * are skipped, a stricter mask is used before {@code avgSize} and a looser one after it, and chunks are cut at
+ * {@code maxSize} at the latest. The chunks of {@link Bytes} are zero-copy views; the data is scanned segment by segment
+ * (see {@link Bytes#asReadOnlyByteBufferList()}), so {@link ConcatBytes} and other segmented implementations are never
+ * flattened. Streams are split using a buffer of {@code 2 * maxSize} bytes.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+public final class ContentChunker {
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        final Random random = new Random(0x5EED_CDC5L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private final int minSize;
+
+    private final int avgSize;
+
+    private final int maxSize;
+
+    /**
+     * Mask used before reaching the average size, with more bits set than {@link #looseMask}.
+     */
+    private final long strictMask;
+
+    private final long looseMask;
+
+    private ContentChunker(final int minSize, final int avgSize, final int maxSize) {
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        final int bits = 31 - Integer.numberOfLeadingZeros(avgSize);
+        // the highest bits of the Gear hash depend on the most bytes
+        this.strictMask = -1L << (64 - (bits + 1));
+        this.looseMask = -1L << (64 - (bits - 1));
+    }
+
+    /**
+     * Creates chunker with sizes 2 kB (min), 8 kB (average) and 64 kB (max).
+     *
+     * @return new chunker
+     */
+    public static ContentChunker create() {
+        return create(2048, 8192, 65536);
+    }
+
+    /**
+     * Creates chunker with the given sizes of chunks.
+     *
+     * @param minSize minimum size of chunks (except the last one)
+     * @param avgSize expected average size of chunks (a power of two gives the most precise average)
+     * @param maxSize maximum size of chunks
+     * @return new chunker
+     */
+    public static ContentChunker create(final int minSize, final int avgSize, final int maxSize) {
+        if (minSize <= 0 || avgSize < 4 || minSize > avgSize || avgSize > maxSize) {
+            throw new IllegalArgumentException("Invalid chunk sizes: " + minSize + ", " + avgSize + ", " + maxSize);
+        }
+        return new ContentChunker(minSize, avgSize, maxSize);
+    }
+
+    /**
+     * Returns 64-bit fingerprint of a chunk (independent of its segmentation), e.g. for looking it up in a store.
+     * It is not a cryptographic hash.
+     *
+     * @param chunk the chunk
+     * @return fingerprint of the chunk
+     */
+    public static long fingerprint(final Bytes chunk) {
+        return Hashing.hash64(chunk);
+    }
+
+    /**
+     * Splits the data into chunks.
+     *
+     * @param bytes data to split
+     * @return views of the data, empty list for empty data
+     */
+    public List<Bytes> split(final Bytes bytes) {
+        final ArrayList<Bytes> chunks = new ArrayList<>(bytes.size() / avgSize + 1);
+        final Cutter cutter = new Cutter();
+        int chunkStart = 0;
+        int segmentStart = 0;
+        for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+            final int base = segmentStart - segment.position();
+            int from = segment.position();
+            int cut;
+            while ((cut = cutter.next(segment, from, segment.limit())) >= 0) {
+                chunks.add(bytes.view(chunkStart, base + cut));
+                chunkStart = base + cut;
+                from = cut;
+            }
+            segmentStart += segment.remaining();
+        }
+        if (chunkStart < bytes.size()) {
+            chunks.add(bytes.view(chunkStart, bytes.size()));
+        }
+        return chunks;
+    }
+
+    /**
+     * Splits the data into chunks and computes their fingerprints (see {@link #fingerprint(Bytes)}).
+     *
+     * @param bytes data to split
+     * @return chunks of the data, empty list for empty data
+     */
+    public List<Chunk> splitWithFingerprints(final Bytes bytes) {
+        final List<Bytes> views = split(bytes);
+        final ArrayList<Chunk> chunks = new ArrayList<>(views.size());
+        for (Bytes view : views) {
+            chunks.add(new Chunk(view, fingerprint(view)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Splits the stream into chunks lazily, keeping at most {@code maxSize} bytes of unprocessed data in memory.
+     * The chunks are the same as {@link #split(Bytes)} would return for the whole data. The iterator throws
+     * {@link UncheckedIOException} if reading the stream fails.
+     *
+     * @param stream the source stream, which is read completely but not closed
+     * @return iterator of copies of the chunks
+     */
+    public Iterator<Bytes> split(final InputStream stream) {
+        return new StreamSplitter(stream);
+    }
+
+    /**
+     * Chunk with its fingerprint.
+     */
+    public static final class Chunk {
+
+        private final Bytes bytes;
+
+        private final long fingerprint;
+
+        private Chunk(final Bytes bytes, final long fingerprint) {
+            this.bytes = bytes;
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * @return data of the chunk
+         */
+        public Bytes bytes() {
+            return bytes;
+        }
+
+        /**
+         * @return fingerprint of the chunk (see {@link ContentChunker#fingerprint(Bytes)})
+         */
+        public long fingerprint() {
+            return fingerprint;
+        }
+
+        @Override
+        public String toString() {
+            return "Chunk(size:" + bytes.size() + ", fingerprint:" + Long.toHexString(fingerprint) + ")";
+        }
+
+    }
+
+    /**
+     * State of the current chunk, which is carried over segment boundaries.
+     */
+    private final class Cutter {
+
+        private long hash = 0;
+
+        /**
+         * Number of bytes of the current chunk processed so far.
+         */
+        private int length = 0;
+
+        /**
+         * Returns index following the end of the current chunk in {@code [from, to)} (and starts a new chunk),
+         * or -1 if the chunk does not end there.
+         */
+        int next(final ByteBuffer data, final int from, final int to) {
+            int i = from;
+            if (length < minSize) {
+                // bytes before the minimum size never end a chunk
+                final int skip = Math.min(minSize - length, to - i);
+                i += skip;
+                length += skip;
+                if (length >= maxSize) {
+                    length = 0;
+                    return i;
+                }
+            }
+            long h = hash;
+            for (; i < to; i++) {
+                h = (h << 1) + GEAR[data.get(i) & 0xFF];
+                length++;
+                if ((h & (length <= avgSize ? strictMask : looseMask)) == 0 || length >= maxSize) {
+                    hash = 0;
+                    length = 0;
+                    return i + 1;
+                }
+            }
+            hash = h;
+            return -1;
+        }
+
+    }
+
+    private final class StreamSplitter implements Iterator<Bytes> {
+
+        private final InputStream stream;
+
+        private final Cutter cutter = new Cutter();
+
+        /**
+         * Twice the maximum chunk size, so that the unfinished chunk is moved to the beginning only after at least
+         * {@code maxSize} bytes were taken from the buffer, and every byte is moved at most once.
+         */
+        private final byte[] buffer = new byte[2 * maxSize];
+
+        /**
+         * Index of the first byte of the current chunk.
+         */
+        private int start = 0;
+
+        /**
+         * Index following the last byte read into the buffer.
+         */
+        private int filled = 0;
+
+        /**
+         * Index following the last byte processed by the cutter.
+         */
+        private int scanned = 0;
+
+        private boolean eof = false;
+
+        private Bytes next;
+
+        private StreamSplitter(final InputStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = readChunk();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Bytes next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Bytes chunk = next;
+            next = null;
+            return chunk;
+        }
+
+        private Bytes readChunk() {
+            final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+            while (true) {
+                final int cut = cutter.next(wrapped, scanned, filled);
+                if (cut >= 0) {
+                    return take(cut);
+                }
+                scanned = filled;
+                if (eof) {
+                    return filled > start ? take(filled) : null;
+                }
+                if (filled == buffer.length) {
+                    // the chunk is cut at maxSize at the latest, so moving it to the beginning makes space in the buffer
+                    System.arraycopy(buffer, start, buffer, 0, filled - start);
+                    filled -= start;
+                    scanned -= start;
+                    start = 0;
+                }
+                try {
+                    final int n = stream.read(buffer, filled, buffer.length - filled);
+                    if (n < 0) {
+                        eof = true;
+                    } else {
+                        filled += n;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private Bytes take(final int end) {
+            final Bytes chunk = Bytes.copyFrom(buffer, start, end - start);
+            start = end;
+            scanned = end;
+            return chunk;
+        }
+
+    }
+
+}
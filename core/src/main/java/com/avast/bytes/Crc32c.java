@@ -0,0 +1,146 @@
+package com.avast.bytes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+
+/**
+ * Software implementation of CRC32C (Castagnoli) using slicing-by-8, used on JDK 8 which lacks
+ * {@code java.util.zip.CRC32C}. Also provides combining of checksums of adjacent blocks.
+ */
+final class Crc32c implements Checksum {
+
+    /**
+     * Reversed Castagnoli polynomial.
+     */
+    private static final int POLY = 0x82F63B78;
+
+    private static final int[][] TABLES = new int[8][256];
+
+    static {
+        for (int n = 0; n < 256; n++) {
+            int c = n;
+            for (int k = 0; k < 8; k++) {
+                c = (c & 1) != 0 ? (c >>> 1) ^ POLY : c >>> 1;
+            }
+            TABLES[0][n] = c;
+        }
+        for (int n = 0; n < 256; n++) {
+            for (int t = 1; t < 8; t++) {
+                final int previous = TABLES[t - 1][n];
+                TABLES[t][n] = (previous >>> 8) ^ TABLES[0][previous & 0xFF];
+            }
+        }
+    }
+
+    private int crc = 0;
+
+    @Override
+    public void update(int b) {
+        int c = ~crc;
+        c = (c >>> 8) ^ TABLES[0][(c ^ b) & 0xFF];
+        crc = ~c;
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        update(ByteBuffer.wrap(b, off, len));
+    }
+
+    /**
+     * Updates the checksum with the remaining bytes of the buffer and moves its position to its limit.
+     */
+    public void update(ByteBuffer buffer) {
+        final int[] t0 = TABLES[0], t1 = TABLES[1], t2 = TABLES[2], t3 = TABLES[3];
+        final int[] t4 = TABLES[4], t5 = TABLES[5], t6 = TABLES[6], t7 = TABLES[7];
+
+        final ByteBuffer b = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int position = b.position();
+        final int limit = b.limit();
+        int c = ~crc;
+        while (limit - position >= 8) {
+            final long word = b.getLong(position);
+            final int low = c ^ (int) word;
+            final int high = (int) (word >>> 32);
+            c = t7[low & 0xFF] ^ t6[(low >>> 8) & 0xFF] ^ t5[(low >>> 16) & 0xFF] ^ t4[low >>> 24]
+                    ^ t3[high & 0xFF] ^ t2[(high >>> 8) & 0xFF] ^ t1[(high >>> 16) & 0xFF] ^ t0[high >>> 24];
+            position += 8;
+        }
+        while (position < limit) {
+            c = (c >>> 8) ^ t0[(c ^ b.get(position++)) & 0xFF];
+        }
+        crc = ~c;
+        buffer.position(limit);
+    }
+
+    @Override
+    public long getValue() {
+        return crc & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        crc = 0;
+    }
+
+    /**
+     * Returns CRC32C of concatenation of two blocks given their checksums and the length of the second block
+     * (same as {@code crc32_combine} of zlib).
+     */
+    static long combine(long crc1, long crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+
+        final int[] even = new int[32];
+        final int[] odd = new int[32];
+
+        // operator for one zero bit
+        odd[0] = POLY;
+        int row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // operators for two and four zero bits
+        square(even, odd);
+        square(odd, even);
+
+        // apply length2 zero bytes to crc1
+        int c = (int) crc1;
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) {
+                c = times(even, c);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length2 & 1) != 0) {
+                c = times(odd, c);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+
+        return (c ^ (int) crc2) & 0xFFFFFFFFL;
+    }
+
+    private static int times(int[] matrix, int vector) {
+        int sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(int[] square, int[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+}
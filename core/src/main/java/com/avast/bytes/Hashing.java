@@ -0,0 +1,124 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.SmallBytes;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 64-bit hashing of {@link Bytes} independent of their segmentation (a {@link ConcatBytes} has the same hash as
+ * a contiguous copy of its data).
+ * <p>
+ * The data is processed as little-endian 64-bit words using the rounds of xxHash64, partial words at segment
+ * boundaries are carried over to the next segment. The values are NOT compatible with the reference xxHash64.
+ */
+abstract class Hashing {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    static long hash64(Bytes bytes) {
+        return hash64(bytes, 0);
+    }
+
+    static long hash64(Bytes bytes, long seed) {
+        if (bytes instanceof SmallBytes) {
+            return hash64Words(bytes, seed);
+        }
+        return hash64(bytes.asReadOnlyByteBufferList(), bytes.size(), seed);
+    }
+
+    /**
+     * Hash of {@link SmallBytes} read by the word accessors, which (unlike {@link Bytes#asReadOnlyByteBufferList()})
+     * do not copy the data.
+     */
+    private static long hash64Words(Bytes bytes, long seed) {
+        final int size = bytes.size();
+        long h = seed + PRIME5 + size;
+        int i = 0;
+        for (; i + Long.BYTES <= size; i += Long.BYTES) {
+            h = mix(h, bytes.getLong(i, ByteOrder.LITTLE_ENDIAN));
+        }
+        final int tail = size - i;
+        if (tail > 0) {
+            long carry = 0;
+            if (size >= Long.BYTES) {
+                // the last word overlapping the previous one, shifted so that only the tail remains
+                carry = bytes.getLong(size - Long.BYTES, ByteOrder.LITTLE_ENDIAN) >>> ((Long.BYTES - tail) << 3);
+            } else {
+                for (int j = 0; j < tail; j++) {
+                    carry |= (bytes.byteAt(i + j) & 0xFFL) << (j << 3);
+                }
+            }
+            h = mix(h, carry);
+        }
+        return avalanche(h);
+    }
+
+    /**
+     * @param segments segments of the data (see {@link Bytes#asReadOnlyByteBufferList()})
+     * @param size     total size of the segments
+     */
+    static long hash64(List<ByteBuffer> segments, int size, long seed) {
+        long h = seed + PRIME5 + size;
+        long carry = 0;
+        int carryBytes = 0;
+
+        for (ByteBuffer segment : segments) {
+            final ByteBuffer b = segment.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            final int limit = b.limit();
+            int i = b.position();
+
+            while (carryBytes > 0 && i < limit) {
+                carry |= (b.get(i++) & 0xFFL) << (carryBytes << 3);
+                if (++carryBytes == Long.BYTES) {
+                    h = mix(h, carry);
+                    carry = 0;
+                    carryBytes = 0;
+                }
+            }
+            for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                h = mix(h, b.getLong(i));
+            }
+            for (; i < limit; i++) {
+                carry |= (b.get(i) & 0xFFL) << (carryBytes++ << 3);
+            }
+        }
+
+        if (carryBytes > 0) {
+            h = mix(h, carry);
+        }
+        return avalanche(h);
+    }
+
+    /**
+     * Hash of a contiguous part of an array, equal to {@link #hash64(Bytes)} of the same data.
+     */
+    static long hash64(byte[] bytes, int offset, int length) {
+        return hash64(Collections.singletonList(ByteBuffer.wrap(bytes, offset, length)), length, 0);
+    }
+
+    /**
+     * Finalizes a 64-bit value so that all its bits depend on all bits of the input (used also for hashing of primitive
+     * values, e.g. chunk fingerprints).
+     */
+    static long avalanche(long h) {
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long mix(long h, long word) {
+        h ^= Long.rotateLeft(word * PRIME2, 31) * PRIME1;
+        return Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+    }
+
+}
@@ -0,0 +1,237 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.UnsafeBytes;
+import com.avast.bytes.jdk.SmallBytes;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Table-driven hex codec for {@link Bytes}.
+ * <p>
+ * Encoding reads the data segment by segment (see {@link Bytes#asReadOnlyByteBufferList()}), so no intermediate
+ * copy of the data is created, not even for {@link ConcatBytes}. Decoding accepts any {@link CharSequence}
+ * and both lowercase and uppercase digits.
+ */
+public final class Hex {
+
+    private static final char[] LOWER_DIGITS = "0123456789abcdef".toCharArray();
+    private static final char[] UPPER_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Pairs of hex characters for every byte value, i.e. characters for byte {@code b} are
+     * at indexes {@code 2 * (b & 0xFF)} and {@code 2 * (b & 0xFF) + 1}.
+     */
+    private static final char[] LOWER_PAIRS = pairs(LOWER_DIGITS);
+    private static final char[] UPPER_PAIRS = pairs(UPPER_DIGITS);
+
+    /**
+     * Value of hex digit for every ASCII character, -1 for characters that are not hex digits.
+     */
+    private static final byte[] DIGIT_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(DIGIT_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            DIGIT_VALUES[LOWER_DIGITS[i]] = (byte) i;
+            DIGIT_VALUES[UPPER_DIGITS[i]] = (byte) i;
+        }
+    }
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private static final int DUMP_LINE_LENGTH = 16;
+
+    private Hex() {
+    }
+
+    /**
+     * Encodes the given {@link Bytes} to lowercase hex string.
+     *
+     * @param bytes bytes to encode
+     * @return lowercase hex string
+     */
+    public static String encode(final Bytes bytes) {
+        return encode(bytes, false);
+    }
+
+    /**
+     * Encodes the given {@link Bytes} to hex string.
+     *
+     * @param bytes     bytes to encode
+     * @param upperCase whether to use uppercase digits
+     * @return hex string
+     */
+    public static String encode(final Bytes bytes, final boolean upperCase) {
+        final char[] pairs = upperCase ? UPPER_PAIRS : LOWER_PAIRS;
+        final char[] result = new char[bytes.size() * 2];
+        int resultIndex = 0;
+        for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+            for (int i = segment.position(), limit = segment.limit(); i < limit; i++) {
+                final int pairIndex = (segment.get(i) & 0xFF) << 1;
+                result[resultIndex++] = pairs[pairIndex];
+                result[resultIndex++] = pairs[pairIndex + 1];
+            }
+        }
+        return new String(result);
+    }
+
+    /**
+     * Encodes the given {@link Bytes} as lowercase hex string and appends it to the given {@link Appendable}
+     * (e.g. {@link Writer} or {@link StringBuilder}). The data is encoded in small chunks, so the whole
+     * hex string never exists in memory.
+     *
+     * @param bytes bytes to encode
+     * @param out   where to append the hex string
+     * @throws IOException if appending fails
+     */
+    public static void encodeTo(final Bytes bytes, final Appendable out) throws IOException {
+        encodeTo(bytes, out, false);
+    }
+
+    /**
+     * Encodes the given {@link Bytes} as hex string and appends it to the given {@link Appendable}
+     * (e.g. {@link Writer} or {@link StringBuilder}). The data is encoded in small chunks, so the whole
+     * hex string never exists in memory.
+     *
+     * @param bytes     bytes to encode
+     * @param out       where to append the hex string
+     * @param upperCase whether to use uppercase digits
+     * @throws IOException if appending fails
+     */
+    public static void encodeTo(final Bytes bytes, final Appendable out, final boolean upperCase) throws IOException {
+        final char[] pairs = upperCase ? UPPER_PAIRS : LOWER_PAIRS;
+        final char[] chunk = new char[Math.min(CHUNK_SIZE, bytes.size() * 2)];
+        int chunkIndex = 0;
+        for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+            for (int i = segment.position(), limit = segment.limit(); i < limit; i++) {
+                if (chunkIndex == chunk.length) {
+                    append(out, chunk, chunkIndex);
+                    chunkIndex = 0;
+                }
+                final int pairIndex = (segment.get(i) & 0xFF) << 1;
+                chunk[chunkIndex++] = pairs[pairIndex];
+                chunk[chunkIndex++] = pairs[pairIndex + 1];
+            }
+        }
+        if (chunkIndex > 0) {
+            append(out, chunk, chunkIndex);
+        }
+    }
+
+    /**
+     * Decodes the given hex string. Both lowercase and uppercase digits are accepted.
+     *
+     * @param hex even-length hex string
+     * @return decoded {@link Bytes}
+     * @throws IllegalArgumentException if the string has odd length or contains a non-hex character
+     */
+    public static Bytes decode(final CharSequence hex) {
+        final int length = hex.length();
+        if (length % 2 != 0) {
+            throw new IllegalArgumentException("HexString needs to be even-length: " + hex);
+        }
+        if (length == 0) {
+            return Bytes.empty();
+        }
+
+        final byte[] result = new byte[length / 2];
+        for (int i = 0; i < length; i += 2) {
+            final int high = digitValue(hex.charAt(i));
+            final int low = digitValue(hex.charAt(i + 1));
+            if ((high | low) < 0) {
+                throw new IllegalArgumentException("HexString contains illegal characters at index " + i + ": " + hex);
+            }
+            result[i >> 1] = (byte) ((high << 4) | low);
+        }
+        if (result.length <= SmallBytes.MAX_SIZE) {
+            return SmallBytes.copyFrom(result);
+        }
+        // the array was allocated here and never leaks, so it is safe to hand it over without copying
+        return UnsafeBytes.unsafeWrap(result);
+    }
+
+    /**
+     * Formats the given {@link Bytes} in the classic hexdump format, suitable for debug output.
+     * Every line contains offset, 16 bytes in hex and their printable ASCII representation:
+     * <pre>
+     * 00000000  54 68 65 20 71 75 69 63  6b 20 62 72 6f 77 6e 20  |The quick brown |
+     * </pre>
+     *
+     * @param bytes bytes to format
+     * @return multi-line hexdump, each line terminated by {@code '\n'}
+     */
+    public static String hexDump(final Bytes bytes) {
+        final int size = bytes.size();
+        final int lines = (size + DUMP_LINE_LENGTH - 1) / DUMP_LINE_LENGTH;
+        final StringBuilder sb = new StringBuilder(lines * 78);
+        final byte[] line = new byte[DUMP_LINE_LENGTH];
+        int lineLength = 0;
+        int offset = 0;
+        for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+            for (int i = segment.position(), limit = segment.limit(); i < limit; i++) {
+                line[lineLength++] = segment.get(i);
+                if (lineLength == DUMP_LINE_LENGTH) {
+                    appendDumpLine(sb, offset, line, lineLength);
+                    offset += lineLength;
+                    lineLength = 0;
+                }
+            }
+        }
+        if (lineLength > 0) {
+            appendDumpLine(sb, offset, line, lineLength);
+        }
+        return sb.toString();
+    }
+
+    private static void appendDumpLine(final StringBuilder sb, final int offset, final byte[] line, final int lineLength) {
+        for (int shift = 28; shift >= 0; shift -= 4) {
+            sb.append(LOWER_DIGITS[(offset >>> shift) & 0xF]);
+        }
+        sb.append(' ');
+        for (int i = 0; i < DUMP_LINE_LENGTH; i++) {
+            if (i % 8 == 0) {
+                sb.append(' ');
+            }
+            if (i < lineLength) {
+                final int pairIndex = (line[i] & 0xFF) << 1;
+                sb.append(LOWER_PAIRS[pairIndex]).append(LOWER_PAIRS[pairIndex + 1]).append(' ');
+            } else {
+                sb.append("   ");
+            }
+        }
+        sb.append(" |");
+        for (int i = 0; i < lineLength; i++) {
+            final int b = line[i] & 0xFF;
+            sb.append(b >= 0x20 && b < 0x7F ? (char) b : '.');
+        }
+        sb.append("|\n");
+    }
+
+    private static int digitValue(final char ch) {
+        return ch < 128 ? DIGIT_VALUES[ch] : -1;
+    }
+
+    private static void append(final Appendable out, final char[] chunk, final int length) throws IOException {
+        if (out instanceof Writer) {
+            ((Writer) out).write(chunk, 0, length);
+        } else if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(chunk, 0, length);
+        } else {
+            out.append(CharBuffer.wrap(chunk, 0, length));
+        }
+    }
+
+    private static char[] pairs(final char[] digits) {
+        final char[] pairs = new char[512];
+        for (int b = 0; b < 256; b++) {
+            pairs[b << 1] = digits[b >>> 4];
+            pairs[(b << 1) + 1] = digits[b & 0xF];
+        }
+        return pairs;
+    }
+
+}
@@ -0,0 +1,371 @@
+package com.avast.bytes;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Parallel operations over very large {@link Bytes} (e.g. multi-GB {@link ConcatBytes} or mapped files).
+ * <p>
+ * The data is split into parts along segment boundaries (large segments are split into fixed strides), the parts are
+ * processed on a {@link ForkJoinPool} and the partial results are combined. Inputs smaller than the threshold are
+ * processed sequentially on the calling thread, where the overhead of splitting would not pay off.
+ * <p>
+ * The instance is thread-safe.
+ */
+public final class ParallelBytes {
+
+    /**
+     * Default threshold (1 MB) below which the operations run sequentially.
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 20;
+
+    private static final ParallelBytes COMMON = new ParallelBytes(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final ForkJoinPool pool;
+
+    private final int threshold;
+
+    /**
+     * Creates instance running the operations in the given pool.
+     *
+     * @param pool      pool to run the operations in
+     * @param threshold size of the data below which the operations run sequentially; this is also the minimal size
+     *                  of a part processed by a single task
+     */
+    public ParallelBytes(ForkJoinPool pool, int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Invalid threshold: " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns instance running the operations in the common {@link ForkJoinPool} with {@link #DEFAULT_THRESHOLD}.
+     *
+     * @return instance using the common pool
+     */
+    public static ParallelBytes common() {
+        return COMMON;
+    }
+
+    /**
+     * Returns {@code true} if the given {@link Bytes} contain the same data.
+     *
+     * @param a first bytes
+     * @param b second bytes
+     * @return {@code true} if the data is the same
+     */
+    public boolean equals(Bytes a, Bytes b) {
+        return a.size() == b.size() && mismatch(a, b) == -1;
+    }
+
+    /**
+     * Returns index of the first byte that differs in the given {@link Bytes}. If one of them is a prefix
+     * of the other one, the size of the shorter one is returned.
+     *
+     * @param a first bytes
+     * @param b second bytes
+     * @return index of the first difference or -1 if the data is the same
+     */
+    public int mismatch(Bytes a, Bytes b) {
+        final int size = Math.min(a.size(), b.size());
+        final Bytes aPrefix = a.size() == size ? a : a.view(0, size);
+        final Bytes bPrefix = b.size() == size ? b : b.view(0, size);
+        final int mismatch = run(aPrefix, range -> {
+            final int local = sequentialMismatch(aPrefix.view(range.start, range.end), bPrefix.view(range.start, range.end));
+            return local == -1 ? -1 : range.start + local;
+        }, ParallelBytes::first);
+
+        if (mismatch == -1 && a.size() != b.size()) {
+            return size;
+        }
+        return mismatch;
+    }
+
+    /**
+     * Returns index of the first occurrence of the given byte.
+     *
+     * @param bytes bytes to search in
+     * @param value byte to search for
+     * @return index of the first occurrence or -1 if there is none
+     */
+    public int indexOf(Bytes bytes, byte value) {
+        return run(bytes, range -> {
+            final int local = sequentialIndexOf(bytes.view(range.start, range.end), value);
+            return local == -1 ? -1 : range.start + local;
+        }, ParallelBytes::first);
+    }
+
+    /**
+     * Returns index of the first occurrence of the given sequence of bytes.
+     *
+     * @param bytes  bytes to search in
+     * @param needle bytes to search for
+     * @return index of the first occurrence or -1 if there is none
+     */
+    public int indexOf(Bytes bytes, Bytes needle) {
+        if (needle.isEmpty()) {
+            return 0;
+        }
+        if (needle.size() > bytes.size()) {
+            return -1;
+        }
+        final int lastStart = bytes.size() - needle.size();
+        final byte first = needle.byteAt(0);
+        // the parts are split by the possible start of the occurrence, the occurrence itself may cross the part's end
+        return run(bytes.view(0, lastStart + 1), range -> {
+            int segmentStart = range.start;
+            for (ByteBuffer segment : bytes.view(range.start, range.end).asReadOnlyByteBufferList()) {
+                final int n = segment.remaining();
+                for (int from = 0; from < n; ) {
+                    final int local = indexOf(segment, from, first);
+                    if (local == -1) {
+                        break;
+                    }
+                    final int start = segmentStart + local;
+                    if (sequentialMismatch(bytes.view(start, start + needle.size()), needle) == -1) {
+                        return start;
+                    }
+                    from = local + 1;
+                }
+                segmentStart += n;
+            }
+            return -1;
+        }, ParallelBytes::first);
+    }
+
+    /**
+     * Counts occurrences of every byte value.
+     *
+     * @param bytes bytes to count values of
+     * @return array of 256 counts indexed by unsigned byte value
+     */
+    public long[] histogram(Bytes bytes) {
+        return run(bytes, range -> {
+            final long[] counts = new long[256];
+            for (ByteBuffer segment : bytes.view(range.start, range.end).asReadOnlyByteBufferList()) {
+                for (int i = segment.position(), limit = segment.limit(); i < limit; i++) {
+                    counts[segment.get(i) & 0xFF]++;
+                }
+            }
+            return counts;
+        }, (left, right) -> {
+            for (int i = 0; i < left.length; i++) {
+                left[i] += right[i];
+            }
+            return left;
+        });
+    }
+
+    /**
+     * Copies data of the given {@link Bytes} into the given array.
+     *
+     * @param bytes  bytes to copy
+     * @param dest   destination array
+     * @param offset offset in the destination array
+     * @throws IndexOutOfBoundsException if the data does not fit into the array
+     */
+    public void copyTo(Bytes bytes, byte[] dest, int offset) {
+        if (offset < 0 || offset > dest.length - bytes.size()) {
+            throw new IndexOutOfBoundsException("Cannot copy " + bytes.size() + " bytes to array of length " + dest.length + " at offset " + offset);
+        }
+        run(bytes, range -> {
+            int position = offset + range.start;
+            for (ByteBuffer segment : bytes.view(range.start, range.end).asReadOnlyByteBufferList()) {
+                final int n = segment.remaining();
+                segment.duplicate().get(dest, position, n);
+                position += n;
+            }
+            return Boolean.TRUE;
+        }, (left, right) -> Boolean.TRUE);
+    }
+
+    /**
+     * Computes CRC32C checksum of the data; the parts are checksummed in parallel and the checksums are combined.
+     *
+     * @param bytes bytes to compute checksum of
+     * @return CRC32C checksum as unsigned 32-bit value
+     */
+    public long crc32c(Bytes bytes) {
+        final long[] result = run(bytes, range -> new long[]{Checksums.crc32c(bytes.view(range.start, range.end)), range.end - range.start},
+                (left, right) -> new long[]{Crc32c.combine(left[0], right[0], right[1]), left[1] + right[1]});
+        return result[0];
+    }
+
+    private <T> T run(Bytes bytes, Function<Range, T> leaf, BinaryOperator<T> combine) {
+        if (bytes.size() < threshold) {
+            return leaf.apply(new Range(0, bytes.size()));
+        }
+        final List<Range> ranges = split(bytes);
+        if (ranges.size() == 1) {
+            return leaf.apply(ranges.get(0));
+        }
+        return pool.invoke(new RangeTask<>(ranges, 0, ranges.size(), leaf, combine));
+    }
+
+    /**
+     * Splits the data into parts of at least {@code threshold} bytes. Segments are not split unless they are
+     * larger than the stride, so most tasks work on whole segments.
+     */
+    private List<Range> split(Bytes bytes) {
+        final int size = bytes.size();
+        final int parts = Math.max(1, pool.getParallelism() * 4);
+        final int stride = Math.max(threshold, (int) (((long) size + parts - 1) / parts));
+
+        final List<Range> ranges = new ArrayList<>();
+        int rangeStart = 0;
+        int position = 0;
+        for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+            position += segment.remaining();
+            while (position - rangeStart >= stride) {
+                final int end = position - rangeStart >= 2 * stride ? rangeStart + stride : position;
+                ranges.add(new Range(rangeStart, end));
+                rangeStart = end;
+            }
+        }
+        if (rangeStart < size) {
+            ranges.add(new Range(rangeStart, size));
+        }
+        return ranges;
+    }
+
+    private static int first(int left, int right) {
+        return left != -1 ? left : right;
+    }
+
+    /**
+     * @return index of the first different byte or -1 if both have the same data (they must be of the same size)
+     */
+    static int sequentialMismatch(Bytes a, Bytes b) {
+        final List<ByteBuffer> aSegments = a.asReadOnlyByteBufferList();
+        final List<ByteBuffer> bSegments = b.asReadOnlyByteBufferList();
+        int aIndex = 0;
+        int bIndex = 0;
+        ByteBuffer aSegment = null;
+        ByteBuffer bSegment = null;
+        int position = 0;
+        while (position < a.size()) {
+            while (aSegment == null || !aSegment.hasRemaining()) {
+                aSegment = aSegments.get(aIndex++).duplicate();
+            }
+            while (bSegment == null || !bSegment.hasRemaining()) {
+                bSegment = bSegments.get(bIndex++).duplicate();
+            }
+
+            final int n = Math.min(aSegment.remaining(), bSegment.remaining());
+            final int aStart = aSegment.position();
+            final int bStart = bSegment.position();
+            int i = 0;
+            while (i + Long.BYTES <= n && aSegment.getLong(aStart + i) == bSegment.getLong(bStart + i)) {
+                i += Long.BYTES;
+            }
+            for (; i < n; i++) {
+                if (aSegment.get(aStart + i) != bSegment.get(bStart + i)) {
+                    return position + i;
+                }
+            }
+            ((Buffer) aSegment).position(aStart + n);
+            ((Buffer) bSegment).position(bStart + n);
+            position += n;
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the first occurrence of the value or -1
+     */
+    static int sequentialIndexOf(Bytes bytes, byte value) {
+        int position = 0;
+        for (ByteBuffer segment : bytes.asReadOnlyByteBufferList()) {
+            final int local = indexOf(segment, 0, value);
+            if (local != -1) {
+                return position + local;
+            }
+            position += segment.remaining();
+        }
+        return -1;
+    }
+
+    /**
+     * @return index (relative to the position of the segment) of the first occurrence of the value at or after
+     * {@code from} or -1
+     */
+    private static int indexOf(ByteBuffer segment, int from, byte value) {
+        // SWAR search: a byte of x is zero where the data is equal to the value
+        final long pattern = (value & 0xFF) * ONES;
+        // little-endian, so that the first byte is the least significant one
+        // (the zero-byte test is exact for the least significant zero byte)
+        final ByteBuffer b = segment.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        final int start = b.position();
+        final int limit = b.limit();
+        int i = start + from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            final long x = b.getLong(i) ^ pattern;
+            final long zeros = (x - ONES) & ~x & HIGH_BITS;
+            if (zeros != 0) {
+                return i - start + (Long.numberOfTrailingZeros(zeros) >>> 3);
+            }
+        }
+        for (; i < limit; i++) {
+            if (b.get(i) == value) {
+                return i - start;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Range {
+        private final int start;
+        private final int end;
+
+        private Range(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class RangeTask<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Range> ranges;
+        private final int from;
+        private final int to;
+        private final Function<Range, T> leaf;
+        private final BinaryOperator<T> combine;
+
+        private RangeTask(List<Range> ranges, int from, int to, Function<Range, T> leaf, BinaryOperator<T> combine) {
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+            this.combine = combine;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from == 1) {
+                return leaf.apply(ranges.get(from));
+            }
+            final int middle = (from + to) >>> 1;
+            final RangeTask<T> left = new RangeTask<>(ranges, from, middle, leaf, combine);
+            final RangeTask<T> right = new RangeTask<>(ranges, middle, to, leaf, combine);
+            left.fork();
+            final T rightResult = right.compute();
+            return combine.apply(left.join(), rightResult);
+        }
+
+    }
+
+}
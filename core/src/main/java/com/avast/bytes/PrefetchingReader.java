@@ -0,0 +1,313 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.UnsafeBytes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads {@link InputStream} into {@link Bytes} chunks on a background thread ahead of the consumer, so that the latency
+ * of the stream (network, disk) overlaps with processing of the data.
+ * <p>
+ * The background reader fills chunks of a fixed size and hands them over through a bounded queue; when the queue is
+ * full, it stalls until the consumer catches up. The chunks are consumed either one by one (this class is an
+ * {@link Iterator}) or all at once using {@link #readAll()}. Chunks are never reused, so they can be kept as long as
+ * needed (the queue bounds only the amount of data read ahead).
+ * <p>
+ * On JDK 21+ the reader runs on a virtual thread, otherwise on a shared pool of daemon threads (or on the given
+ * {@link Executor}). The stream is not closed by the reader. {@link #close()} stops reading ahead
+ * (after the pending read of the stream returns); it must be called if the reader is not consumed until the end.
+ * <p>
+ * {@link #consumerWaitNanos()} and {@link #producerStallNanos()} tell which side is the bottleneck.
+ * Instances must be consumed by a single thread.
+ */
+public final class PrefetchingReader implements Iterator<Bytes>, Closeable {
+
+    /**
+     * Default size of the chunks.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 0x10000; // 64k
+
+    /**
+     * Default number of chunks read ahead.
+     */
+    public static final int DEFAULT_DEPTH = 4;
+
+    private static final MethodHandle START_VIRTUAL_THREAD = findStartVirtualThread();
+
+    private static final Object END = new Object();
+
+    private final InputStream stream;
+
+    private final int chunkSize;
+
+    private final BlockingQueue<Object> queue;
+
+    private final AtomicLong producerStallNanos = new AtomicLong();
+
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private long consumerWaitNanos = 0;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Next item taken from the queue ({@link Bytes}, {@link IOException} or {@link #END}), {@code null} if none.
+     */
+    private Object next;
+
+    private boolean finished = false;
+
+    private PrefetchingReader(final InputStream stream, final int chunkSize, final int depth) {
+        this.stream = stream;
+        this.chunkSize = chunkSize;
+        this.queue = new ArrayBlockingQueue<>(depth);
+    }
+
+    /**
+     * Starts reading the stream in the background with the default chunk size and depth.
+     *
+     * @param stream the source stream, which is read completely but not closed
+     * @return new reader
+     */
+    public static PrefetchingReader start(final InputStream stream) {
+        return start(stream, DEFAULT_CHUNK_SIZE, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Starts reading the stream in the background on a virtual thread (JDK 21+) or a shared daemon thread.
+     *
+     * @param stream    the source stream, which is read completely but not closed
+     * @param chunkSize size of the chunks (the last chunk may be smaller)
+     * @param depth     maximum number of chunks read ahead of the consumer
+     * @return new reader
+     */
+    public static PrefetchingReader start(final InputStream stream, final int chunkSize, final int depth) {
+        final PrefetchingReader reader = create(stream, chunkSize, depth);
+        if (START_VIRTUAL_THREAD != null) {
+            try {
+                START_VIRTUAL_THREAD.invoke((Runnable) reader::run);
+                return reader;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                // startVirtualThread does not throw checked exceptions
+                throw new IllegalStateException(e);
+            }
+        }
+        DaemonExecutor.INSTANCE.execute(reader::run);
+        return reader;
+    }
+
+    /**
+     * Starts reading the stream in the background using the given executor.
+     *
+     * @param stream    the source stream, which is read completely but not closed
+     * @param chunkSize size of the chunks (the last chunk may be smaller)
+     * @param depth     maximum number of chunks read ahead of the consumer
+     * @param executor  executor running the background reader
+     * @return new reader
+     */
+    public static PrefetchingReader start(final InputStream stream, final int chunkSize, final int depth, final Executor executor) {
+        final PrefetchingReader reader = create(stream, chunkSize, depth);
+        executor.execute(reader::run);
+        return reader;
+    }
+
+    private static PrefetchingReader create(final InputStream stream, final int chunkSize, final int depth) {
+        if (chunkSize <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size or depth: " + chunkSize + ", " + depth);
+        }
+        return new PrefetchingReader(stream, chunkSize, depth);
+    }
+
+    /**
+     * Returns {@code true} if there is another chunk, waiting for the background reader if necessary.
+     *
+     * @throws UncheckedIOException if reading the stream failed
+     */
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        if (next == null) {
+            next = take();
+        }
+        if (next == END) {
+            finished = true;
+            return false;
+        }
+        if (next instanceof IOException) {
+            finished = true;
+            final IOException e = (IOException) next;
+            next = END;
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next chunk, waiting for the background reader if necessary.
+     *
+     * @throws UncheckedIOException if reading the stream failed
+     */
+    @Override
+    public Bytes next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Bytes chunk = (Bytes) next;
+        next = null;
+        return chunk;
+    }
+
+    /**
+     * Returns all the remaining data of the stream, waiting for the background reader if necessary.
+     *
+     * @return {@link ConcatBytes} of the remaining chunks (or a single chunk)
+     * @throws IOException if reading the stream failed
+     */
+    public Bytes readAll() throws IOException {
+        final ArrayList<Bytes> chunks = new ArrayList<>();
+        try {
+            while (hasNext()) {
+                chunks.add(next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (chunks.isEmpty()) {
+            return Bytes.empty();
+        }
+        return chunks.size() == 1 ? chunks.get(0) : ConcatBytes.wrap(chunks);
+    }
+
+    /**
+     * @return number of bytes read from the stream so far (including chunks not consumed yet)
+     */
+    public long bytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * @return total time the consumer has waited for the background reader in nanoseconds
+     */
+    public long consumerWaitNanos() {
+        return consumerWaitNanos;
+    }
+
+    /**
+     * @return total time the background reader has been stalled by the full queue in nanoseconds
+     */
+    public long producerStallNanos() {
+        return producerStallNanos.get();
+    }
+
+    /**
+     * Stops reading ahead and discards the chunks read ahead. The stream is not closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        finished = true;
+        queue.clear();
+    }
+
+    private Object take() {
+        Object item = queue.poll();
+        if (item == null) {
+            final long start = System.nanoTime();
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                item = new InterruptedIOException("Interrupted while waiting for data");
+            }
+            consumerWaitNanos += System.nanoTime() - start;
+        }
+        return item;
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                final byte[] chunk = new byte[chunkSize];
+                int length = 0;
+                int n = 0;
+                while (length < chunkSize && (n = stream.read(chunk, length, chunkSize - length)) >= 0) {
+                    length += n;
+                }
+                if (length > 0) {
+                    bytesRead.addAndGet(length);
+                    put(UnsafeBytes.unsafeWrap(chunk, 0, length));
+                }
+                if (n < 0) {
+                    break;
+                }
+            }
+            put(END);
+        } catch (IOException e) {
+            put(e);
+        } catch (Throwable e) {
+            // the consumer must be notified of any failure, otherwise it would wait forever
+            put(new IOException(e));
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    private void put(final Object item) {
+        if (queue.offer(item)) {
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            while (!closed && !queue.offer(item, 10, TimeUnit.MILLISECONDS)) {
+                // waiting for the consumer
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        } finally {
+            producerStallNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private static MethodHandle findStartVirtualThread() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Thread.class, "startVirtualThread", MethodType.methodType(Thread.class, Runnable.class));
+        } catch (ReflectiveOperationException e) {
+            // JDK older than 21
+            return null;
+        }
+    }
+
+    private static final class DaemonExecutor {
+
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "bytes-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    }
+
+}
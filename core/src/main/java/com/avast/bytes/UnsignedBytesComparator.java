@@ -9,8 +9,28 @@ package com.avast.bytes;
  */
 public class UnsignedBytesComparator extends AbstractBytesComparator {
 
+    public UnsignedBytesComparator() {
+    }
+
+    /**
+     * @param shorterIsLess Shorter Bytes will be taken as less if true. For example, 0x01 &lt; 0x0102
+     */
+    public UnsignedBytesComparator(boolean shorterIsLess) {
+        super(shorterIsLess);
+    }
+
     @Override
     protected int compare(byte a, byte b) {
         return ((int) a & 0xff) - ((int) b & 0xff);
     }
+
+    @Override
+    public boolean supportsNormalizedKeys() {
+        return true;
+    }
+
+    @Override
+    public long normalizedKey(long bigEndianBytes) {
+        return bigEndianBytes;
+    }
 }
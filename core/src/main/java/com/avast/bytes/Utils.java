@@ -1,20 +1,109 @@
 package com.avast.bytes;
 
+import com.avast.bytes.internal.Instrumentation;
+import com.avast.bytes.internal.Varint;
+
+import java.nio.ByteOrder;
+
 abstract class Utils {
+
+    static final int MAX_VARINT_LENGTH = Varint.MAX_LENGTH;
+
+    /**
+     * Composes {@code count} (at most 8) bytes starting at the specified index into a value in the given byte order.
+     */
+    static long readLong(Bytes bytes, int index, int count, ByteOrder order) {
+        checkRange(bytes, index, count);
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 8) | (bytes.byteAt(index + i) & 0xFF);
+        }
+        Instrumentation.recordSlowPath(BytesInstrumentation.Operation.PRIMITIVE_READ);
+        return toOrder(value, count, order);
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException if there are not {@code count} bytes at the index (whatever the implementation
+     *                                   of {@link Bytes#byteAt(int)} throws)
+     */
+    static void checkRange(Bytes bytes, int index, int count) {
+        if (index < 0 || index > bytes.size() - count) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+    }
+
+    /**
+     * Converts big-endian value of {@code count} bytes to the given byte order.
+     */
+    static long toOrder(long bigEndianValue, int count, ByteOrder order) {
+        if (order == ByteOrder.BIG_ENDIAN) {
+            return bigEndianValue;
+        }
+        return Long.reverseBytes(bigEndianValue) >>> (64 - (count << 3));
+    }
+
     /**
-     * @throws IllegalArgumentException on invalid character
+     * @throws IllegalArgumentException if the varint is too long
      */
-    static int hexToBin(char ch) {
-        if ('0' <= ch && ch <= '9') {
-            return ch - '0';
+    static long readVarint(Bytes bytes, int index) {
+        long value = 0;
+        for (int i = 0; i < MAX_VARINT_LENGTH; i++) {
+            checkRange(bytes, index + i, 1);
+            final byte b = bytes.byteAt(index + i);
+            value |= (long) (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                return value;
+            }
         }
-        if ('A' <= ch && ch <= 'F') {
-            return ch - 'A' + 10;
+        throw new IllegalArgumentException("Malformed varint at index " + index);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the varint is too long
+     */
+    static int varintLength(Bytes bytes, int index) {
+        for (int i = 0; i < MAX_VARINT_LENGTH; i++) {
+            checkRange(bytes, index + i, 1);
+            if (bytes.byteAt(index + i) >= 0) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at index " + index);
+    }
+
+    /**
+     * Returns number of bytes of the varint encoding of the given (unsigned) value.
+     */
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
         }
-        if ('a' <= ch && ch <= 'f') {
-            return ch - 'a' + 10;
+        return size;
+    }
+
+    /**
+     * Writes varint encoding of the given (unsigned) value into the array.
+     *
+     * @return index following the last written byte
+     */
+    static int writeVarint(byte[] dest, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            dest[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
         }
+        dest[offset++] = (byte) value;
+        return offset;
+    }
 
-        throw new IllegalArgumentException("Invalid HEX character: '" + ch + "'");
+    /**
+     * Backing storage is considered "much larger" than the data if it is at least twice as large and the difference
+     * is more than the overhead of a new instance.
+     */
+    static boolean shouldCompact(long retainedSize, int size) {
+        final long wasted = retainedSize - size;
+        return wasted > 64 && wasted >= size;
     }
+
 }
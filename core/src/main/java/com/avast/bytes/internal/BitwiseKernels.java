@@ -0,0 +1,175 @@
+package com.avast.bytes.internal;
+
+import com.avast.bytes.Bytes;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * This is a utility class that is not part of the public API of the Bytes library.
+ * <p>
+ * Bitwise operations over the segments of {@link Bytes} (see {@link Bytes#asReadOnlyByteBufferList()}) processing
+ * 8 bytes at a time. The results are written into arrays; the destination may be the array backing the first
+ * operand, so the operations can be done in place.
+ */
+public final class BitwiseKernels {
+
+    /**
+     * Binary operation.
+     */
+    public enum Op {
+        AND, OR, XOR
+    }
+
+    private BitwiseKernels() {
+    }
+
+    /**
+     * Computes {@code dest[offset + i] = a[i] op b[i]} for the first {@code size} bytes of the segments.
+     *
+     * @param op     the operation
+     * @param a      segments of the first operand (their positions and byte orders are modified)
+     * @param b      segments of the second operand (their positions and byte orders are modified)
+     * @param dest   destination array
+     * @param offset offset in the destination array
+     * @param size   number of bytes
+     */
+    public static void combine(final Op op, final List<ByteBuffer> a, final List<ByteBuffer> b, final byte[] dest, final int offset, final int size) {
+        final ByteBuffer out = ByteBuffer.wrap(dest);
+        int ia = 0;
+        int ib = 0;
+        int position = offset;
+        final int end = offset + size;
+        while (position < end) {
+            while (!a.get(ia).hasRemaining()) {
+                ia++;
+            }
+            while (!b.get(ib).hasRemaining()) {
+                ib++;
+            }
+            // all words must be read and written in the same byte order
+            final ByteBuffer x = a.get(ia).order(ByteOrder.BIG_ENDIAN);
+            final ByteBuffer y = b.get(ib).order(ByteOrder.BIG_ENDIAN);
+            final int n = Math.min(end - position, Math.min(x.remaining(), y.remaining()));
+            final int px = x.position();
+            final int py = y.position();
+            int i = 0;
+            switch (op) {
+                case AND:
+                    for (; i + Long.BYTES <= n; i += Long.BYTES) {
+                        out.putLong(position + i, x.getLong(px + i) & y.getLong(py + i));
+                    }
+                    for (; i < n; i++) {
+                        dest[position + i] = (byte) (x.get(px + i) & y.get(py + i));
+                    }
+                    break;
+                case OR:
+                    for (; i + Long.BYTES <= n; i += Long.BYTES) {
+                        out.putLong(position + i, x.getLong(px + i) | y.getLong(py + i));
+                    }
+                    for (; i < n; i++) {
+                        dest[position + i] = (byte) (x.get(px + i) | y.get(py + i));
+                    }
+                    break;
+                default:
+                    for (; i + Long.BYTES <= n; i += Long.BYTES) {
+                        out.putLong(position + i, x.getLong(px + i) ^ y.getLong(py + i));
+                    }
+                    for (; i < n; i++) {
+                        dest[position + i] = (byte) (x.get(px + i) ^ y.get(py + i));
+                    }
+                    break;
+            }
+            ((Buffer) x).position(px + n);
+            ((Buffer) y).position(py + n);
+            position += n;
+        }
+    }
+
+    /**
+     * Computes {@code dest[offset + i] = ~a[i]} for all bytes of the segments.
+     *
+     * @param a      segments of the operand (their positions and byte orders are modified)
+     * @param dest   destination array
+     * @param offset offset in the destination array
+     */
+    public static void not(final List<ByteBuffer> a, final byte[] dest, final int offset) {
+        final ByteBuffer out = ByteBuffer.wrap(dest);
+        int position = offset;
+        for (ByteBuffer segment : a) {
+            final ByteBuffer x = segment.order(ByteOrder.BIG_ENDIAN);
+            final int n = x.remaining();
+            final int px = x.position();
+            int i = 0;
+            for (; i + Long.BYTES <= n; i += Long.BYTES) {
+                out.putLong(position + i, ~x.getLong(px + i));
+            }
+            for (; i < n; i++) {
+                dest[position + i] = (byte) ~x.get(px + i);
+            }
+            ((Buffer) x).position(px + n);
+            position += n;
+        }
+    }
+
+    /**
+     * Computes {@code dest[offset + i] = a[i] ^ key[i % key.length]} for all bytes of the segments.
+     *
+     * @param a      segments of the operand (their positions and byte orders are modified)
+     * @param key    non-empty repeating key
+     * @param dest   destination array
+     * @param offset offset in the destination array
+     */
+    public static void xorWithKey(final List<ByteBuffer> a, final byte[] key, final byte[] dest, final int offset) {
+        final int k = key.length;
+        // the key repeated, so that a word can be read at any offset of the key
+        final byte[] pattern = new byte[k * ((k + Long.BYTES + k - 1) / k)];
+        for (int i = 0; i < pattern.length; i++) {
+            pattern[i] = key[i % k];
+        }
+        final ByteBuffer keys = ByteBuffer.wrap(pattern);
+        final ByteBuffer out = ByteBuffer.wrap(dest);
+        int position = offset;
+        int keyOffset = 0;
+        for (ByteBuffer segment : a) {
+            final ByteBuffer x = segment.order(ByteOrder.BIG_ENDIAN);
+            final int n = x.remaining();
+            final int px = x.position();
+            int i = 0;
+            for (; i + Long.BYTES <= n; i += Long.BYTES) {
+                out.putLong(position + i, x.getLong(px + i) ^ keys.getLong(keyOffset));
+                keyOffset = (keyOffset + Long.BYTES) % k;
+            }
+            for (; i < n; i++) {
+                dest[position + i] = (byte) (x.get(px + i) ^ pattern[keyOffset]);
+                keyOffset = keyOffset + 1 == k ? 0 : keyOffset + 1;
+            }
+            ((Buffer) x).position(px + n);
+            position += n;
+        }
+    }
+
+    /**
+     * Counts bits set in the segments.
+     *
+     * @param a segments of the operand (their positions are not modified)
+     * @return number of bits set
+     */
+    public static long popcount(final List<ByteBuffer> a) {
+        long count = 0;
+        for (ByteBuffer x : a) {
+            final int limit = x.limit();
+            int i = x.position();
+            for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+                count += Long.bitCount(x.getLong(i));
+            }
+            for (; i < limit; i++) {
+                count += Integer.bitCount(x.get(i) & 0xFF);
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.avast.bytes.internal;
+
+import com.avast.bytes.BytesInstrumentation;
+import com.avast.bytes.BytesInstrumentation.Listener;
+import com.avast.bytes.BytesInstrumentation.Operation;
+
+/**
+ * This is a utility class that is not part of the public API of the Bytes library.
+ * <p>
+ * Records instrumentation events of the implementations, see {@link BytesInstrumentation}. When no listener is
+ * installed, every call costs only a read of a field and a {@code null} check.
+ */
+public final class Instrumentation {
+
+    private Instrumentation() {
+    }
+
+    public static void recordCopy(final Operation operation, final int bytes) {
+        final Listener l = BytesInstrumentation.getListener();
+        if (l != null) {
+            l.onCopy(operation, bytes);
+        }
+    }
+
+    public static void recordAllocation(final Operation operation, final int bytes) {
+        final Listener l = BytesInstrumentation.getListener();
+        if (l != null) {
+            l.onAllocation(operation, bytes);
+        }
+    }
+
+    public static void recordConcat(final int segments, final int depth) {
+        final Listener l = BytesInstrumentation.getListener();
+        if (l != null) {
+            l.onConcat(segments, depth);
+        }
+    }
+
+    public static void recordBuilderReallocation(final int oldCapacity, final int newCapacity) {
+        final Listener l = BytesInstrumentation.getListener();
+        if (l != null) {
+            l.onBuilderReallocation(oldCapacity, newCapacity);
+        }
+    }
+
+    public static void recordSlowPath(final Operation operation) {
+        final Listener l = BytesInstrumentation.getListener();
+        if (l != null) {
+            l.onSlowPath(operation);
+        }
+    }
+
+}
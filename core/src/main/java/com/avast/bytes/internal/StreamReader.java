@@ -36,6 +36,7 @@ Because of that we attach Google Protocol Buffers redistribution notice:
 package com.avast.bytes.internal;
 
 import com.avast.bytes.Bytes;
+import com.avast.bytes.BytesInstrumentation;
 import com.avast.bytes.ConcatBytes;
 
 import java.io.IOException;
@@ -74,6 +75,7 @@ public class StreamReader {
         }
 
         byte[] readBuffer = new byte[len > 4096 ? 4096 : len];
+        Instrumentation.recordAllocation(BytesInstrumentation.Operation.READ_STREAM, readBuffer.length);
 
         final int bufferLength = readBuffer.length;
         int bytesToRead = bufferLength;
@@ -86,6 +88,7 @@ public class StreamReader {
             long totalRead = 0;
             while (bytesToRead > 0 && -1 != (read = streamToDrain.read(readBuffer, 0, bytesToRead))) {
                 builder.write(readBuffer, 0, read);
+                Instrumentation.recordCopy(BytesInstrumentation.Operation.READ_STREAM, read);
                 totalRead += read;
                 if (len > 0) { // only adjust length if not reading to the end
                     // Note the cast must work because buffer.length is an integer
@@ -104,10 +107,12 @@ public class StreamReader {
         // grows exponentially to support both short and long streams.
         int chunkSize = minChunkSize;
         byte[] readBuffer = new byte[chunkSize];
+        Instrumentation.recordAllocation(BytesInstrumentation.Operation.READ_STREAM, chunkSize);
         while (true) {
             if (readBuffer.length != chunkSize) {
                 // re-allocate buffer if it does not match the new chunk size
                 readBuffer = new byte[chunkSize];
+                Instrumentation.recordAllocation(BytesInstrumentation.Operation.READ_STREAM, chunkSize);
             }
             Bytes chunk = readChunk(streamToDrain, readBuffer, builderFactory);
             if (chunk == null) {
@@ -151,6 +156,7 @@ public class StreamReader {
         } else {
             try (final Bytes.BuilderStream builder = builderFactory.apply(bytesRead)) {
                 builder.write(buffer, 0, bytesRead);
+                Instrumentation.recordCopy(BytesInstrumentation.Operation.READ_STREAM, bytesRead);
                 return builder.toBytes();
             }
         }
@@ -0,0 +1,335 @@
+package com.avast.bytes.internal;
+
+import com.avast.bytes.Bytes;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This is a utility class that is not part of the public API of the Bytes library.
+ * <p>
+ * Decodes text directly from the segments of {@link Bytes} (see {@link Bytes#asReadOnlyByteBufferList()}) and encodes
+ * text into exactly sized arrays. Malformed input and unmappable characters are replaced, like in
+ * {@link String#String(byte[], Charset)} and {@link String#getBytes(Charset)}.
+ */
+public final class TextCodec {
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private TextCodec() {
+    }
+
+    /**
+     * Decodes the given segments into {@link String}.
+     *
+     * @param segments read-only buffers with the data (their positions are modified)
+     * @param size     total number of remaining bytes in the segments
+     * @param charset  charset of the data
+     * @return the decoded text
+     */
+    public static String decode(final List<ByteBuffer> segments, final int size, final Charset charset) {
+        if (size == 0) {
+            return "";
+        }
+        if (isAsciiCompatible(charset) && isAscii(segments)) {
+            // every byte is a single char; gathering the segments into one array is cheaper than decoding
+            final byte[] ascii = new byte[size];
+            int position = 0;
+            for (ByteBuffer segment : segments) {
+                final int n = segment.remaining();
+                segment.get(ascii, position, n);
+                position += n;
+            }
+            return new String(ascii, StandardCharsets.ISO_8859_1);
+        }
+
+        final SegmentDecoder decoder = new SegmentDecoder(segments, charset);
+        // sized for the typical text rather than the worst case, grown in the rare case it does not fit
+        CharBuffer out = CharBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(size * (double) decoder.decoder.averageCharsPerByte())));
+        while (decoder.decode(out) >= 0) {
+            if (!out.hasRemaining()) {
+                final CharBuffer larger = CharBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, out.capacity() + Math.max(16L, out.capacity() >> 1)));
+                ((Buffer) out).flip();
+                larger.put(out);
+                out = larger;
+            }
+        }
+        return new String(out.array(), 0, out.position());
+    }
+
+    /**
+     * Creates {@link Reader} decoding the given {@link Bytes} incrementally, segment by segment.
+     *
+     * @param bytes   the data
+     * @param charset charset of the data
+     * @return new reader
+     */
+    public static Reader newReader(final Bytes bytes, final Charset charset) {
+        return new SegmentReader(new SegmentDecoder(bytes.asReadOnlyByteBufferList(), charset));
+    }
+
+    /**
+     * Encodes the text into an exactly sized array (UTF-8 is encoded directly, without any intermediate buffers).
+     *
+     * @param text    the text to encode
+     * @param charset the charset
+     * @return new {@link Bytes} backed by the encoded array
+     */
+    public static Bytes encode(final CharSequence text, final Charset charset) {
+        if (text instanceof String) {
+            // String.getBytes is heavily optimized and returns exactly sized array
+            return UnsafeBytes.unsafeWrap(((String) text).getBytes(charset));
+        }
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            final byte[] encoded = new byte[utf8Length(text)];
+            encodeUtf8(text, encoded);
+            return UnsafeBytes.unsafeWrap(encoded);
+        }
+        final ByteBuffer encoded = charset.encode(CharBuffer.wrap(text));
+        if (encoded.hasArray() && encoded.arrayOffset() == 0 && encoded.position() == 0 && encoded.remaining() == encoded.capacity()) {
+            return UnsafeBytes.unsafeWrap(encoded.array());
+        }
+        final byte[] exact = new byte[encoded.remaining()];
+        encoded.get(exact);
+        return UnsafeBytes.unsafeWrap(exact);
+    }
+
+    /**
+     * Returns {@code true} if all the bytes are 7-bit ASCII. Checks 8 bytes at a time.
+     */
+    static boolean isAscii(final List<ByteBuffer> segments) {
+        for (ByteBuffer segment : segments) {
+            final int start = segment.position();
+            final int limit = segment.limit();
+            int i = start;
+            for (; i <= limit - Long.BYTES; i += Long.BYTES) {
+                if ((segment.getLong(i) & HIGH_BITS) != 0) {
+                    return false;
+                }
+            }
+            for (; i < limit; i++) {
+                if (segment.get(i) < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiCompatible(final Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns length of the UTF-8 encoding; unpaired surrogates are encoded as {@code '?'} (like {@link String#getBytes(Charset)}).
+     */
+    static int utf8Length(final CharSequence text) {
+        final int n = text.length();
+        long length = 0;
+        for (int i = 0; i < n; i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (!Character.isSurrogate(c)) {
+                length += 3;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 1;
+            }
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Size of Bytes cannot exceed " + Integer.MAX_VALUE + " bytes");
+        }
+        return (int) length;
+    }
+
+    private static void encodeUtf8(final CharSequence text, final byte[] dest) {
+        final int n = text.length();
+        int position = 0;
+        for (int i = 0; i < n; i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                dest[position++] = (byte) c;
+            } else if (c < 0x800) {
+                dest[position++] = (byte) (0xC0 | (c >>> 6));
+                dest[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (!Character.isSurrogate(c)) {
+                dest[position++] = (byte) (0xE0 | (c >>> 12));
+                dest[position++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+                dest[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                dest[position++] = (byte) (0xF0 | (codePoint >>> 18));
+                dest[position++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3F));
+                dest[position++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+                dest[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                dest[position++] = '?';
+            }
+        }
+    }
+
+    /**
+     * Runs {@link CharsetDecoder} over the segments. Bytes of a character split between segments are moved
+     * to a small carry buffer together with the beginning of the following segment(s).
+     */
+    private static final class SegmentDecoder {
+
+        private final List<ByteBuffer> segments;
+
+        private final CharsetDecoder decoder;
+
+        private final ByteBuffer carry = ByteBuffer.allocate(32);
+
+        private ByteBuffer in;
+
+        private int nextSegment;
+
+        private boolean endOfInput = false;
+
+        private boolean flushed = false;
+
+        private SegmentDecoder(final List<ByteBuffer> segments, final Charset charset) {
+            this.segments = segments.isEmpty() ? Collections.singletonList(ByteBuffer.allocate(0)) : segments;
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.in = this.segments.get(0);
+            this.nextSegment = 1;
+        }
+
+        /**
+         * Decodes as many characters as fit into the output.
+         *
+         * @return number of decoded characters, or {@code -1} if everything was decoded already
+         */
+        int decode(final CharBuffer out) {
+            final int start = out.position();
+            while (out.hasRemaining() && !flushed) {
+                final CoderResult result;
+                if (endOfInput) {
+                    result = decoder.flush(out);
+                    if (result.isUnderflow()) {
+                        flushed = true;
+                    }
+                } else {
+                    final boolean last = nextSegment == segments.size();
+                    result = decoder.decode(in, out, last);
+                    if (result.isUnderflow()) {
+                        if (last) {
+                            endOfInput = true;
+                        } else if (in.hasRemaining()) {
+                            refillCarry();
+                        } else {
+                            in = segments.get(nextSegment++);
+                        }
+                    }
+                }
+                if (result.isOverflow()) {
+                    break;
+                }
+                if (result.isError()) {
+                    // cannot happen with CodingErrorAction.REPLACE
+                    try {
+                        result.throwException();
+                    } catch (CharacterCodingException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+            final int decoded = out.position() - start;
+            return decoded == 0 && flushed ? -1 : decoded;
+        }
+
+        /**
+         * Moves the incomplete character at the end of the current input to the carry buffer
+         * and appends the following bytes.
+         */
+        private void refillCarry() {
+            if (in == carry) {
+                carry.compact();
+            } else {
+                ((Buffer) carry).clear();
+                carry.put(in);
+            }
+            while (carry.hasRemaining() && nextSegment < segments.size()) {
+                final ByteBuffer segment = segments.get(nextSegment);
+                final int n = Math.min(carry.remaining(), segment.remaining());
+                final ByteBuffer part = segment.duplicate();
+                ((Buffer) part).limit(part.position() + n);
+                carry.put(part);
+                ((Buffer) segment).position(segment.position() + n);
+                if (segment.hasRemaining()) {
+                    break;
+                }
+                nextSegment++;
+            }
+            ((Buffer) carry).flip();
+            // if the segments were consumed completely, the carry is decoded as the last input
+            in = carry;
+        }
+
+    }
+
+    private static final class SegmentReader extends Reader {
+
+        private final SegmentDecoder decoder;
+
+        /**
+         * Characters decoded but not read yet, for reads too short for a whole character (i.e. a surrogate pair).
+         */
+        private final CharBuffer pending = (CharBuffer) ((Buffer) CharBuffer.allocate(16)).flip();
+
+        private SegmentReader(final SegmentDecoder decoder) {
+            this.decoder = decoder;
+        }
+
+        @Override
+        public int read(final char[] cbuf, final int off, final int len) throws IOException {
+            if (off < 0 || len < 0 || len > cbuf.length - off) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (!pending.hasRemaining()) {
+                final int decoded = decoder.decode(CharBuffer.wrap(cbuf, off, len));
+                if (decoded != 0) {
+                    return decoded;
+                }
+                // the next character does not fit into the output
+                ((Buffer) pending).clear();
+                final int buffered = decoder.decode(pending);
+                ((Buffer) pending).flip();
+                if (buffered == -1) {
+                    return -1;
+                }
+            }
+            final int n = Math.min(len, pending.remaining());
+            pending.get(cbuf, off, n);
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+
+    }
+
+}
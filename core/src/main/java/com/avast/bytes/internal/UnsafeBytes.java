@@ -0,0 +1,124 @@
+package com.avast.bytes.internal;
+
+import com.avast.bytes.Bytes;
+import com.avast.bytes.jdk.ByteArrayBytes;
+import com.avast.bytes.jdk.ByteBufferBytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This is a utility class that is not part of the public API of the Bytes library.
+ * <p>
+ * Creates {@link Bytes} wrapping existing data without copying it.
+ * <p>
+ * <b>Use with extreme care!</b> The immutability of {@link Bytes} is guaranteed only if the wrapped
+ * data is never modified after the call. This is meant to be used by code that has just allocated
+ * the data itself (codecs, builders) and hands over its ownership.
+ */
+public final class UnsafeBytes {
+
+    /**
+     * Creates the implementations without copying; implemented and registered only by {@link ByteArrayBytes}
+     * when it is initialized, so that their constructors need not be public.
+     */
+    public interface Wrapper {
+
+        ByteArrayBytes wrap(byte[] bytes, int offset, int length);
+
+        ByteBufferBytes wrap(ByteBuffer buffer);
+
+        boolean readArrays(Bytes bytes, ArrayConsumer consumer);
+
+    }
+
+    /**
+     * Receives parts of the arrays backing {@link Bytes}; the arrays must never be modified.
+     */
+    public interface ArrayConsumer {
+
+        void accept(byte[] array, int offset, int length);
+
+    }
+
+    private static volatile Wrapper wrapper;
+
+    private UnsafeBytes() {
+    }
+
+    /**
+     * Registers the wrapper of {@link ByteArrayBytes}; any other wrapper is rejected, so that no foreign code
+     * can receive the arrays handed over to this class nor break the initialization of {@link ByteArrayBytes}.
+     *
+     * @param w the wrapper
+     * @throws IllegalArgumentException if the wrapper is not the one of {@link ByteArrayBytes}
+     */
+    public static synchronized void register(final Wrapper w) {
+        if (w.getClass().getEnclosingClass() != ByteArrayBytes.class) {
+            throw new IllegalArgumentException("Only the wrapper of ByteArrayBytes can be registered");
+        }
+        if (wrapper == null) {
+            wrapper = w;
+        }
+    }
+
+    /**
+     * Wraps the given array without copying.
+     *
+     * @param bytes array that must never be modified afterwards
+     * @return new {@link ByteArrayBytes} backed by the given array
+     */
+    public static ByteArrayBytes unsafeWrap(final byte[] bytes) {
+        return bytes.length == 0 ? ByteArrayBytes.EMPTY : wrapper().wrap(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Wraps the given part of an array without copying.
+     *
+     * @param bytes  array whose specified part must never be modified afterwards
+     * @param offset offset of the first wrapped byte
+     * @param length number of wrapped bytes
+     * @return new {@link ByteArrayBytes} backed by the given array
+     */
+    public static ByteArrayBytes unsafeWrap(final byte[] bytes, final int offset, final int length) {
+        return wrapper().wrap(bytes, offset, length);
+    }
+
+    /**
+     * Wraps remaining bytes of the given buffer without copying. The position and limit of the buffer
+     * are not modified by this call.
+     *
+     * @param buffer buffer whose remaining bytes must never be modified afterwards
+     * @return new {@link ByteBufferBytes} backed by the given buffer
+     */
+    public static ByteBufferBytes unsafeWrap(final ByteBuffer buffer) {
+        return wrapper().wrap(buffer.slice());
+    }
+
+    /**
+     * Passes the arrays backing the given {@link Bytes} (in the order of the data) to the consumer without copying them.
+     * Only the array and buffer based implementations of the {@code jdk} package are supported, neither
+     * {@link com.avast.bytes.ConcatBytes} nor instances backed by direct buffers.
+     *
+     * @param bytes    the data
+     * @param consumer consumer of the arrays, which must not modify them
+     * @return {@code false} if the data is not backed by arrays (and the consumer has not been called)
+     */
+    public static boolean readArrays(final Bytes bytes, final ArrayConsumer consumer) {
+        return wrapper().readArrays(bytes, consumer);
+    }
+
+    private static Wrapper wrapper() {
+        Wrapper w = wrapper;
+        if (w == null) {
+            // the wrapper is registered by the static initializer of ByteArrayBytes
+            try {
+                Class.forName(ByteArrayBytes.class.getName(), true, ByteArrayBytes.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+            w = wrapper;
+        }
+        return w;
+    }
+
+}
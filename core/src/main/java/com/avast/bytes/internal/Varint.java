@@ -0,0 +1,18 @@
+package com.avast.bytes.internal;
+
+/**
+ * This is a utility class that is not part of the public API of the Bytes library.
+ * <p>
+ * Constants of the varint encoding (as in Protocol Buffers) shared by the implementations.
+ */
+public final class Varint {
+
+    /**
+     * Maximum number of bytes of a varint encoding of a 64-bit value.
+     */
+    public static final int MAX_LENGTH = 10;
+
+    private Varint() {
+    }
+
+}
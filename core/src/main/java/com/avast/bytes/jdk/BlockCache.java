@@ -0,0 +1,223 @@
+package com.avast.bytes.jdk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache of fixed-size blocks of files used by {@link FileBytes}. One cache is usually shared by many files.
+ * <p>
+ * The cache is split into independently locked segments (each with its own LRU order), so concurrent readers
+ * rarely contend. Small caches use fewer segments, every segment holds at least one block. Blocks are loaded outside of the locks; two threads missing the same block at the same time may
+ * both read it, the second one is then discarded.
+ * <p>
+ * The cache exposes hit, miss, eviction and read-ahead counts for monitoring.
+ */
+public final class BlockCache {
+
+    /**
+     * Default size of the blocks.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 0x10000; // 64k
+
+    private static final int SEGMENTS = 16;
+
+    private final int blockSize;
+
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder readAheads = new LongAdder();
+
+    /**
+     * Creates cache of blocks of {@link #DEFAULT_BLOCK_SIZE} bytes.
+     *
+     * @param maxBytes maximum total size of the cached blocks
+     */
+    public BlockCache(final long maxBytes) {
+        this(maxBytes, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates cache of blocks of the given size.
+     *
+     * @param maxBytes  maximum total size of the cached blocks
+     * @param blockSize size of the blocks
+     */
+    public BlockCache(final long maxBytes, final int blockSize) {
+        if (blockSize <= 0 || maxBytes < blockSize) {
+            throw new IllegalArgumentException("Invalid cache size or block size: " + maxBytes + ", " + blockSize);
+        }
+        this.blockSize = blockSize;
+        final long maxBlocks = maxBytes / blockSize;
+        // the total number of blocks must not exceed the maximum
+        segments = new Segment[(int) Math.min(SEGMENTS, maxBlocks)];
+        final int blocksPerSegment = (int) Math.min(Integer.MAX_VALUE, maxBlocks / segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(blocksPerSegment);
+        }
+    }
+
+    /**
+     * Returns the default cache (64 MB of 64 kB blocks) shared by all {@link FileBytes} opened without an explicit cache.
+     *
+     * @return the default cache
+     */
+    public static BlockCache defaultCache() {
+        return DefaultCache.INSTANCE;
+    }
+
+    /**
+     * @return size of the blocks
+     */
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * @return number of lookups that found the block in the cache
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups that had to read the block from the file
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of blocks evicted from the cache
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of blocks read ahead of sequential readers
+     */
+    public long readAheads() {
+        return readAheads.sum();
+    }
+
+    /**
+     * @return number of blocks in the cache
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    byte[] get(final long fileId, final long blockIndex) {
+        final Key key = new Key(fileId, blockIndex);
+        final Segment segment = segment(key);
+        final byte[] block;
+        synchronized (segment) {
+            block = segment.get(key);
+        }
+        if (block == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return block;
+    }
+
+    void put(final long fileId, final long blockIndex, final byte[] block) {
+        final Key key = new Key(fileId, blockIndex);
+        final Segment segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, block);
+        }
+    }
+
+    void recordReadAhead(final long blocks) {
+        if (blocks > 0) {
+            readAheads.add(blocks);
+        }
+    }
+
+    /**
+     * Removes all blocks of the file.
+     */
+    void invalidate(final long fileId) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.keySet().removeIf(key -> key.fileId == fileId);
+            }
+        }
+    }
+
+    private Segment segment(final Key key) {
+        return segments[(key.hashCode() & 0x7FFFFFFF) % segments.length];
+    }
+
+    private static final class Key {
+
+        private final long fileId;
+
+        private final long blockIndex;
+
+        private Key(final long fileId, final long blockIndex) {
+            this.fileId = fileId;
+            this.blockIndex = blockIndex;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return fileId == other.fileId && blockIndex == other.blockIndex;
+        }
+
+        @Override
+        public int hashCode() {
+            final long h = (fileId * 0x9E3779B97F4A7C15L) ^ blockIndex;
+            return (int) (h ^ (h >>> 32));
+        }
+
+    }
+
+    private final class Segment extends LinkedHashMap<Key, byte[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxBlocks;
+
+        private Segment(final int maxBlocks) {
+            super(16, 0.75f, true);
+            this.maxBlocks = maxBlocks;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, byte[]> eldest) {
+            if (size() > maxBlocks) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+    private static final class DefaultCache {
+
+        private static final BlockCache INSTANCE = new BlockCache(64L << 20);
+
+    }
+
+}
@@ -38,13 +38,18 @@ package com.avast.bytes.jdk;
 
 import com.avast.bytes.AbstractBytes;
 import com.avast.bytes.Bytes;
+import com.avast.bytes.BytesInstrumentation;
+import com.avast.bytes.internal.Instrumentation;
 import com.avast.bytes.internal.StreamReader;
+import com.avast.bytes.internal.UnsafeBytes;
+import com.avast.bytes.internal.Varint;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -56,6 +61,11 @@ import java.nio.charset.StandardCharsets;
  */
 public final class ByteArrayBytes extends AbstractBytes {
 
+    static {
+        // before any instance is created, so that the wrapper is available to the static initializers
+        UnsafeBytes.register(new UnsafeWrapper());
+    }
+
     public static final ByteArrayBytes EMPTY = new ByteArrayBytes(new byte[0]);
 
     private final byte[] bytes;
@@ -68,7 +78,7 @@ public final class ByteArrayBytes extends AbstractBytes {
         this(bytes, 0, bytes.length);
     }
 
-    private ByteArrayBytes(final byte[] bytes, int offset, int length) {
+    ByteArrayBytes(final byte[] bytes, int offset, int length) {
         if (offset < 0 || offset > bytes.length) {
             throw new IllegalArgumentException("Invalid offset: " + offset + " for array of length: " + bytes.length);
         }
@@ -88,13 +98,78 @@ public final class ByteArrayBytes extends AbstractBytes {
         return bytes[offset + index];
     }
 
+    // the wrapping buffer does not escape, so the JIT eliminates its allocation and turns the read into a single load
+    @Override
+    public short getShort(final int index, final ByteOrder order) {
+        checkRange(index, Short.BYTES);
+        return ByteBuffer.wrap(bytes).order(order).getShort(offset + index);
+    }
+
+    @Override
+    public int getInt(final int index, final ByteOrder order) {
+        checkRange(index, Integer.BYTES);
+        return ByteBuffer.wrap(bytes).order(order).getInt(offset + index);
+    }
+
+    @Override
+    public long getLong(final int index, final ByteOrder order) {
+        checkRange(index, Long.BYTES);
+        return ByteBuffer.wrap(bytes).order(order).getLong(offset + index);
+    }
+
+    @Override
+    public long getVarint64(final int index) {
+        checkRange(index, 1);
+        final int end = offset + length;
+        long value = 0;
+        for (int i = 0, position = offset + index; i < Varint.MAX_LENGTH && position < end; i++, position++) {
+            final byte b = bytes[position];
+            value |= (long) (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                return value;
+            }
+        }
+        return throwMalformedVarint(index);
+    }
+
+    @Override
+    public int varintLength(final int index) {
+        checkRange(index, 1);
+        final int end = offset + length;
+        for (int i = 0, position = offset + index; i < Varint.MAX_LENGTH && position < end; i++, position++) {
+            if (bytes[position] >= 0) {
+                return i + 1;
+            }
+        }
+        return (int) throwMalformedVarint(index);
+    }
+
+    private long throwMalformedVarint(final int index) {
+        if (length - index < Varint.MAX_LENGTH) {
+            throw new IndexOutOfBoundsException(String.valueOf(length));
+        }
+        throw new IllegalArgumentException("Malformed varint at index " + index);
+    }
+
+    private void checkRange(final int index, final int count) {
+        if (index < 0 || index > length - count) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+    }
+
     @Override
     public int size() {
         return length;
     }
 
+    @Override
+    public long retainedSize() {
+        return bytes.length;
+    }
+
     @Override
     public byte[] toByteArray() {
+        Instrumentation.recordCopy(BytesInstrumentation.Operation.TO_BYTE_ARRAY, length);
         final byte[] copy = new byte[length];
         System.arraycopy(bytes, offset, copy, 0, length);
         return copy;
@@ -108,6 +183,7 @@ public final class ByteArrayBytes extends AbstractBytes {
 
     @Override
     public String toString(final Charset charset) {
+        Instrumentation.recordCopy(BytesInstrumentation.Operation.TO_STRING, length);
         return new String(bytes, offset, length, charset);
     }
 
@@ -239,6 +315,7 @@ public final class ByteArrayBytes extends AbstractBytes {
 
         private ByteArrayBuilder(int initialCapacity) {
             this.bout = new InnerStream(initialCapacity);
+            Instrumentation.recordAllocation(BytesInstrumentation.Operation.BUILDER, initialCapacity);
         }
 
         public ByteArrayBytes toBytes() {
@@ -255,7 +332,64 @@ public final class ByteArrayBytes extends AbstractBytes {
 
         @Override
         public void write(int b) throws IOException {
+            final byte[] buffer = bout.getBuffer();
             bout.write(b);
+            recordReallocation(buffer);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            final byte[] buffer = bout.getBuffer();
+            bout.write(b, off, len);
+            recordReallocation(buffer);
+        }
+
+        private void recordReallocation(byte[] previousBuffer) {
+            final byte[] buffer = bout.getBuffer();
+            if (buffer != previousBuffer) {
+                Instrumentation.recordAllocation(BytesInstrumentation.Operation.BUILDER, buffer.length);
+                Instrumentation.recordBuilderReallocation(previousBuffer.length, buffer.length);
+            }
+        }
+
+    }
+
+    /**
+     * Creates the implementations without copying for {@link UnsafeBytes}.
+     */
+    private static final class UnsafeWrapper implements UnsafeBytes.Wrapper {
+
+        @Override
+        public ByteArrayBytes wrap(final byte[] bytes, final int offset, final int length) {
+            return new ByteArrayBytes(bytes, offset, length);
+        }
+
+        @Override
+        public ByteBufferBytes wrap(final ByteBuffer buffer) {
+            return new ByteBufferBytes(buffer);
+        }
+
+        @Override
+        public boolean readArrays(final Bytes bytes, final UnsafeBytes.ArrayConsumer consumer) {
+            if (bytes instanceof ByteArrayBytes) {
+                final ByteArrayBytes array = (ByteArrayBytes) bytes;
+                consumer.accept(array.bytes, array.offset, array.length);
+                return true;
+            }
+            if (bytes instanceof ByteBufferBytes) {
+                return ((ByteBufferBytes) bytes).readArray(consumer);
+            }
+            if (bytes instanceof FileBytes) {
+                ((FileBytes) bytes).readBlocks(consumer);
+                return true;
+            }
+            if (bytes instanceof SmallBytes) {
+                // at most SmallBytes.MAX_SIZE bytes
+                final byte[] data = bytes.toByteArray();
+                consumer.accept(data, 0, data.length);
+                return true;
+            }
+            return false;
         }
 
     }
@@ -2,13 +2,19 @@ package com.avast.bytes.jdk;
 
 import com.avast.bytes.AbstractBytes;
 import com.avast.bytes.Bytes;
+import com.avast.bytes.BytesInstrumentation;
+import com.avast.bytes.internal.Instrumentation;
 import com.avast.bytes.internal.StreamReader;
+import com.avast.bytes.internal.TextCodec;
+import com.avast.bytes.internal.UnsafeBytes;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.util.Collections;
 
 /**
  * Implementation of {@link Bytes} backed by {@link ByteBuffer}.
@@ -23,7 +29,7 @@ public final class ByteBufferBytes extends AbstractBytes {
 
     private final ByteBuffer buffer;
 
-    private ByteBufferBytes(ByteBuffer buffer) {
+    ByteBufferBytes(ByteBuffer buffer) {
         this.buffer = buffer;
     }
 
@@ -37,8 +43,57 @@ public final class ByteBufferBytes extends AbstractBytes {
         return buffer.get(buffer.position() + index);
     }
 
+    @Override
+    public short getShort(int index, ByteOrder order) {
+        checkRange(index, Short.BYTES);
+        final short value = buffer.getShort(buffer.position() + index);
+        return buffer.order() == order ? value : Short.reverseBytes(value);
+    }
+
+    @Override
+    public int getInt(int index, ByteOrder order) {
+        checkRange(index, Integer.BYTES);
+        final int value = buffer.getInt(buffer.position() + index);
+        return buffer.order() == order ? value : Integer.reverseBytes(value);
+    }
+
+    @Override
+    public long getLong(int index, ByteOrder order) {
+        checkRange(index, Long.BYTES);
+        final long value = buffer.getLong(buffer.position() + index);
+        return buffer.order() == order ? value : Long.reverseBytes(value);
+    }
+
+    /**
+     * Passes the array backing the buffer to the consumer, if it's accessible.
+     */
+    boolean readArray(UnsafeBytes.ArrayConsumer consumer) {
+        if (!buffer.hasArray()) {
+            return false;
+        }
+        consumer.accept(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        return true;
+    }
+
+    private void checkRange(int index, int count) {
+        if (index < 0 || index > size() - count) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * For direct buffers, only the capacity of the wrapped buffer is known, so the memory retained by views
+     * of a larger direct buffer is underestimated.
+     */
+    @Override
+    public long retainedSize() {
+        return buffer.hasArray() ? buffer.array().length : buffer.capacity();
+    }
+
     @Override
     public byte[] toByteArray() {
+        Instrumentation.recordCopy(BytesInstrumentation.Operation.TO_BYTE_ARRAY, size());
         byte[] dest = new byte[size()];
         // create new read-only view so that we don't have to synchronize modifying the buffer's position
         toReadOnlyByteBuffer().get(dest);
@@ -52,7 +107,11 @@ public final class ByteBufferBytes extends AbstractBytes {
 
     @Override
     public String toString(Charset charset) {
-        return new String(toByteArray(), charset);
+        Instrumentation.recordCopy(BytesInstrumentation.Operation.TO_STRING, size());
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), charset);
+        }
+        return TextCodec.decode(Collections.singletonList(toReadOnlyByteBuffer()), size(), charset);
     }
 
     @Override
@@ -176,6 +235,7 @@ public final class ByteBufferBytes extends AbstractBytes {
 
         private ByteBufferBuilder(int initialCapacity) {
             buffer = ByteBuffer.allocate(initialCapacity);
+            Instrumentation.recordAllocation(BytesInstrumentation.Operation.BUILDER, initialCapacity);
         }
 
         @Override
@@ -183,7 +243,9 @@ public final class ByteBufferBytes extends AbstractBytes {
             // it's ok to call this multiple times
             // every time we create new view to the underlying buffer up to the current position
             // the buffer can only be appended to or reallocated, which cannot change the existing views
-            ByteBuffer wrapped = buffer.asReadOnlyBuffer();
+            // the buffer is never exposed as writable by ByteBufferBytes, so the duplicate doesn't have to be read-only
+            // (and keeps the backing array accessible for fast decoding of strings)
+            ByteBuffer wrapped = buffer.duplicate();
             ((Buffer) wrapped).flip();
             return new ByteBufferBytes(wrapped);
         }
@@ -219,6 +281,8 @@ public final class ByteBufferBytes extends AbstractBytes {
             }
 
             ByteBuffer newBuffer = ByteBuffer.allocate(newCapacity);
+            Instrumentation.recordAllocation(BytesInstrumentation.Operation.BUILDER, newCapacity);
+            Instrumentation.recordBuilderReallocation(oldCapacity, newCapacity);
             ((Buffer) buffer).flip();
             newBuffer.put(buffer);
             buffer = newBuffer;
@@ -0,0 +1,423 @@
+package com.avast.bytes.jdk;
+
+import com.avast.bytes.Bytes;
+import com.avast.bytes.BytesInstrumentation;
+import com.avast.bytes.internal.BitwiseKernels;
+import com.avast.bytes.internal.Instrumentation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Mutable sequence of bytes for building and patching binary data, which is turned into immutable {@link Bytes}
+ * by {@link #freeze()} without copying.
+ * <p>
+ * The buffer is backed by a growable array. It supports overwriting ({@link #put(int, byte)}, {@link #setInt(int, int, ByteOrder)}, ...),
+ * appending, inserting and deleting ranges, and in-place bitwise operations (see {@link com.avast.bytes.Bitwise}).
+ * Copies created by {@link #copyOf(Bytes)} (or {@link Bytes#mutableCopy()}) are copy-on-write: the data is copied
+ * only when the buffer is modified for the first time.
+ * <p>
+ * {@link #freeze()} hands the backing array over to {@link ByteArrayBytes} and invalidates the buffer; any further
+ * use of the buffer throws {@link IllegalStateException}, so the frozen data can never change.
+ * Instances are NOT thread-safe.
+ */
+public final class BytesBuffer {
+
+    private static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final int DEFAULT_CAPACITY = 32;
+
+    private static final byte[] NO_DATA = new byte[0];
+
+    private byte[] data;
+
+    private int size;
+
+    /**
+     * Data shared until the first modification, {@code null} if the data is in {@link #data}.
+     */
+    private Bytes shared;
+
+    private boolean frozen = false;
+
+    /**
+     * Creates empty buffer with the default capacity.
+     */
+    public BytesBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates empty buffer with the specified initial capacity (more bytes can be written however).
+     *
+     * @param initialCapacity initial capacity of the buffer
+     */
+    public BytesBuffer(final int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + initialCapacity);
+        }
+        this.data = initialCapacity == 0 ? NO_DATA : new byte[initialCapacity];
+        this.size = 0;
+        Instrumentation.recordAllocation(BytesInstrumentation.Operation.BUILDER, initialCapacity);
+    }
+
+    private BytesBuffer(final Bytes shared) {
+        this.data = NO_DATA;
+        this.size = shared.size();
+        this.shared = shared;
+    }
+
+    /**
+     * Creates copy-on-write buffer with the data of the given {@link Bytes}. The data is copied on the first modification.
+     *
+     * @param bytes initial data of the buffer
+     * @return new buffer
+     */
+    public static BytesBuffer copyOf(final Bytes bytes) {
+        return new BytesBuffer(bytes);
+    }
+
+    /**
+     * @return number of bytes in the buffer
+     */
+    public int size() {
+        checkNotFrozen();
+        return size;
+    }
+
+    public byte byteAt(final int index) {
+        checkRange(index, 1);
+        return shared != null ? shared.byteAt(index) : data[index];
+    }
+
+    public short getShort(final int index, final ByteOrder order) {
+        checkRange(index, Short.BYTES);
+        return shared != null ? shared.getShort(index, order) : ByteBuffer.wrap(data).order(order).getShort(index);
+    }
+
+    public int getInt(final int index, final ByteOrder order) {
+        checkRange(index, Integer.BYTES);
+        return shared != null ? shared.getInt(index, order) : ByteBuffer.wrap(data).order(order).getInt(index);
+    }
+
+    public long getLong(final int index, final ByteOrder order) {
+        checkRange(index, Long.BYTES);
+        return shared != null ? shared.getLong(index, order) : ByteBuffer.wrap(data).order(order).getLong(index);
+    }
+
+    /**
+     * Overwrites the byte at the index.
+     *
+     * @return this buffer
+     */
+    public BytesBuffer put(final int index, final byte value) {
+        checkRange(index, 1);
+        unshare(size);
+        data[index] = value;
+        return this;
+    }
+
+    /**
+     * Overwrites bytes starting at the index with the given part of the array. The data must fit within the current size.
+     *
+     * @return this buffer
+     */
+    public BytesBuffer put(final int index, final byte[] src, final int offset, final int length) {
+        checkArray(src, offset, length);
+        checkRange(index, length);
+        unshare(size);
+        System.arraycopy(src, offset, data, index, length);
+        return this;
+    }
+
+    /**
+     * Overwrites bytes starting at the index with the given data. The data must fit within the current size.
+     *
+     * @return this buffer
+     */
+    public BytesBuffer put(final int index, final Bytes src) {
+        checkRange(index, src.size());
+        unshare(size);
+        copy(src, data, index);
+        return this;
+    }
+
+    public BytesBuffer setShort(final int index, final short value, final ByteOrder order) {
+        checkRange(index, Short.BYTES);
+        unshare(size);
+        ByteBuffer.wrap(data).order(order).putShort(index, value);
+        return this;
+    }
+
+    public BytesBuffer setInt(final int index, final int value, final ByteOrder order) {
+        checkRange(index, Integer.BYTES);
+        unshare(size);
+        ByteBuffer.wrap(data).order(order).putInt(index, value);
+        return this;
+    }
+
+    public BytesBuffer setLong(final int index, final long value, final ByteOrder order) {
+        checkRange(index, Long.BYTES);
+        unshare(size);
+        ByteBuffer.wrap(data).order(order).putLong(index, value);
+        return this;
+    }
+
+    /**
+     * Appends the byte at the end of the buffer.
+     *
+     * @return this buffer
+     */
+    public BytesBuffer append(final byte value) {
+        checkNotFrozen();
+        final int index = size;
+        open(index, 1);
+        data[index] = value;
+        return this;
+    }
+
+    /**
+     * Appends the part of the array at the end of the buffer.
+     *
+     * @return this buffer
+     */
+    public BytesBuffer append(final byte[] src, final int offset, final int length) {
+        checkNotFrozen();
+        return insert(size, src, offset, length);
+    }
+
+    /**
+     * Appends the data at the end of the buffer.
+     *
+     * @return this buffer
+     */
+    public BytesBuffer append(final Bytes src) {
+        checkNotFrozen();
+        return insert(size, src);
+    }
+
+    /**
+     * Inserts the part of the array at the index, moving the following bytes towards the end.
+     *
+     * @param index index in the range {@code [0, size()]}
+     * @return this buffer
+     */
+    public BytesBuffer insert(final int index, final byte[] src, final int offset, final int length) {
+        checkArray(src, offset, length);
+        checkRange(index, 0);
+        open(index, length);
+        System.arraycopy(src, offset, data, index, length);
+        return this;
+    }
+
+    /**
+     * Inserts the data at the index, moving the following bytes towards the end.
+     *
+     * @param index index in the range {@code [0, size()]}
+     * @return this buffer
+     */
+    public BytesBuffer insert(final int index, final Bytes src) {
+        checkRange(index, 0);
+        open(index, src.size());
+        copy(src, data, index);
+        return this;
+    }
+
+    /**
+     * Removes bytes in the range {@code [beginIndex, endIndex)}, moving the following bytes towards the beginning.
+     *
+     * @return this buffer
+     */
+    public BytesBuffer delete(final int beginIndex, final int endIndex) {
+        checkRange(beginIndex, endIndex - beginIndex);
+        if (shared != null && (beginIndex == 0 || endIndex == size)) {
+            // removing a prefix or a suffix does not need any copying
+            shared = shared.view(beginIndex == 0 ? endIndex : 0, beginIndex == 0 ? size : beginIndex);
+            size = shared.size();
+            return this;
+        }
+        unshare(size);
+        System.arraycopy(data, endIndex, data, beginIndex, size - endIndex);
+        size -= endIndex - beginIndex;
+        return this;
+    }
+
+    /**
+     * Computes {@code this & other} in place.
+     *
+     * @return this buffer
+     * @throws IllegalArgumentException if the other data has a different size
+     */
+    public BytesBuffer and(final Bytes other) {
+        return combine(BitwiseKernels.Op.AND, other);
+    }
+
+    /**
+     * Computes {@code this | other} in place.
+     *
+     * @return this buffer
+     * @throws IllegalArgumentException if the other data has a different size
+     */
+    public BytesBuffer or(final Bytes other) {
+        return combine(BitwiseKernels.Op.OR, other);
+    }
+
+    /**
+     * Computes {@code this ^ other} in place.
+     *
+     * @return this buffer
+     * @throws IllegalArgumentException if the other data has a different size
+     */
+    public BytesBuffer xor(final Bytes other) {
+        return combine(BitwiseKernels.Op.XOR, other);
+    }
+
+    /**
+     * Inverts all bits in place.
+     *
+     * @return this buffer
+     */
+    public BytesBuffer not() {
+        checkNotFrozen();
+        BitwiseKernels.not(detach(), data, 0);
+        return this;
+    }
+
+    /**
+     * Xors the data with the key repeated over the whole buffer in place.
+     *
+     * @param key non-empty key
+     * @return this buffer
+     */
+    public BytesBuffer xorWithKey(final Bytes key) {
+        checkNotFrozen();
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Key cannot be empty");
+        }
+        BitwiseKernels.xorWithKey(detach(), key.toByteArray(), data, 0);
+        return this;
+    }
+
+    private BytesBuffer combine(final BitwiseKernels.Op op, final Bytes other) {
+        checkNotFrozen();
+        if (other.size() != size) {
+            throw new IllegalArgumentException("Operands have different sizes: " + size + ", " + other.size());
+        }
+        BitwiseKernels.combine(op, detach(), other.asReadOnlyByteBufferList(), data, 0, size);
+        return this;
+    }
+
+    /**
+     * Returns immutable {@link Bytes} with the data of this buffer and invalidates the buffer. The data is not copied:
+     * the backing array is handed over to {@link ByteArrayBytes} (or the original {@link Bytes} of an unmodified
+     * copy-on-write buffer is returned).
+     *
+     * @return the data of this buffer
+     * @throws IllegalStateException if the buffer has already been frozen
+     */
+    public Bytes freeze() {
+        checkNotFrozen();
+        final Bytes result = shared != null ? shared : new ByteArrayBytes(data, 0, size);
+        frozen = true;
+        data = null;
+        shared = null;
+        return result;
+    }
+
+    /**
+     * @return copy of the current data; the buffer can still be modified
+     */
+    public Bytes toBytes() {
+        checkNotFrozen();
+        if (shared != null) {
+            return shared;
+        }
+        return ByteArrayBytes.copyFrom(data, 0, size);
+    }
+
+    @Override
+    public String toString() {
+        if (frozen) {
+            return getClass().getCanonicalName() + "(frozen)";
+        }
+        return getClass().getCanonicalName() + "(size:" + size + ")";
+    }
+
+    /**
+     * Makes space for {@code length} bytes at the index.
+     */
+    private void open(final int index, final int length) {
+        if (length > MAX_SIZE - size) {
+            throw new IllegalStateException("Size of Bytes cannot exceed " + MAX_SIZE + " bytes");
+        }
+        final int newSize = size + length;
+        unshare(newSize);
+        System.arraycopy(data, index, data, index + length, size - index);
+        size = newSize;
+    }
+
+    /**
+     * Returns segments of the current data and makes {@link #data} writable. Shared data is not copied,
+     * a new array is allocated instead, so the segments must be read before the array is written.
+     */
+    private List<ByteBuffer> detach() {
+        if (shared == null) {
+            return Collections.singletonList(ByteBuffer.wrap(data, 0, size));
+        }
+        final List<ByteBuffer> segments = shared.asReadOnlyByteBufferList();
+        data = new byte[size];
+        Instrumentation.recordAllocation(BytesInstrumentation.Operation.BUILDER, size);
+        shared = null;
+        return segments;
+    }
+
+    /**
+     * Copies the shared data into an own array and ensures the capacity.
+     */
+    private void unshare(final int minCapacity) {
+        if (shared != null) {
+            final byte[] copy = new byte[minCapacity];
+            Instrumentation.recordAllocation(BytesInstrumentation.Operation.BUILDER, minCapacity);
+            copy(shared, copy, 0);
+            data = copy;
+            shared = null;
+        } else if (minCapacity > data.length) {
+            final int newCapacity = (int) Math.min(MAX_SIZE, Math.max(minCapacity, 2L * data.length));
+            final byte[] grown = new byte[newCapacity];
+            Instrumentation.recordAllocation(BytesInstrumentation.Operation.BUILDER, newCapacity);
+            Instrumentation.recordBuilderReallocation(data.length, newCapacity);
+            System.arraycopy(data, 0, grown, 0, size);
+            data = grown;
+        }
+    }
+
+    private static void copy(final Bytes src, final byte[] dest, int offset) {
+        for (ByteBuffer buffer : src.asReadOnlyByteBufferList()) {
+            final int n = buffer.remaining();
+            buffer.get(dest, offset, n);
+            offset += n;
+        }
+    }
+
+    private void checkRange(final int index, final int count) {
+        checkNotFrozen();
+        if (index < 0 || count < 0 || index > size - count) {
+            throw new IndexOutOfBoundsException("Invalid range " + index + "+" + count + " for size " + size);
+        }
+    }
+
+    private static void checkArray(final byte[] src, final int offset, final int length) {
+        if (offset < 0 || length < 0 || length > src.length - offset) {
+            throw new IndexOutOfBoundsException("Invalid range " + offset + "+" + length + " for array of length " + src.length);
+        }
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("BytesBuffer has been frozen");
+        }
+    }
+
+}
@@ -0,0 +1,536 @@
+package com.avast.bytes.jdk;
+
+import com.avast.bytes.AbstractBytes;
+import com.avast.bytes.Bytes;
+import com.avast.bytes.BytesInstrumentation;
+import com.avast.bytes.internal.Instrumentation;
+import com.avast.bytes.internal.TextCodec;
+import com.avast.bytes.internal.UnsafeBytes;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation of {@link Bytes} backed by a file that is read on demand, for files that cannot or should not
+ * be memory-mapped.
+ * <p>
+ * The data is read by positional reads of fixed-size blocks that are kept in a {@link BlockCache} (usually shared
+ * by many files, see {@link BlockCache#defaultCache()}). When the blocks are accessed sequentially, the following
+ * blocks are read ahead. Views share the file and its cached blocks; large bulk copies ({@link #toByteArray()})
+ * read the file directly, bypassing the cache.
+ * <p>
+ * The file must not be modified while it is open. Reading methods throw {@link UncheckedIOException} if reading
+ * the file fails. {@link #close()} closes the file for this instance and all its views.
+ */
+public final class FileBytes extends AbstractBytes implements Closeable {
+
+    /**
+     * Number of blocks read ahead when a sequential access is detected.
+     */
+    private static final int READ_AHEAD_BLOCKS = 4;
+
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private final Source source;
+
+    private final long offset;
+
+    private final int length;
+
+    /**
+     * The block accessed last, so that reading nearby bytes does not look up the cache every time. Racy updates are
+     * safe, the holder is immutable.
+     */
+    private LastBlock last;
+
+    private volatile int hash = 0;
+
+    private FileBytes(final Source source, final long offset, final int length) {
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Opens the whole file using the default cache.
+     *
+     * @param path path of the file
+     * @return new instance that must be closed
+     * @throws IOException              if the file cannot be opened
+     * @throws IllegalArgumentException if the file is larger than {@link Integer#MAX_VALUE} bytes
+     */
+    public static FileBytes open(final Path path) throws IOException {
+        return open(path, BlockCache.defaultCache());
+    }
+
+    /**
+     * Opens the whole file using the given cache.
+     *
+     * @param path  path of the file
+     * @param cache cache of the blocks of the file
+     * @return new instance that must be closed
+     * @throws IOException              if the file cannot be opened
+     * @throws IllegalArgumentException if the file is larger than {@link Integer#MAX_VALUE} bytes
+     */
+    public static FileBytes open(final Path path, final BlockCache cache) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Size of Bytes cannot exceed " + Integer.MAX_VALUE + " bytes, file has " + size + " bytes");
+            }
+            return new FileBytes(new Source(channel, size, cache), 0, (int) size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a part of the file using the given cache.
+     *
+     * @param path   path of the file
+     * @param offset offset of the part in the file
+     * @param length length of the part
+     * @param cache  cache of the blocks of the file
+     * @return new instance that must be closed
+     * @throws IOException              if the file cannot be opened
+     * @throws IllegalArgumentException if the part is not within the file
+     */
+    public static FileBytes open(final Path path, final long offset, final int length, final BlockCache cache) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            final long size = channel.size();
+            if (offset < 0 || length < 0 || offset > size - length) {
+                throw new IllegalArgumentException("Invalid range " + offset + "+" + length + " for file of size " + size);
+            }
+            return new FileBytes(new Source(channel, size, cache), offset, length);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public byte byteAt(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        final long position = offset + index;
+        return block(position / source.blockSize)[(int) (position % source.blockSize)];
+    }
+
+    @Override
+    public short getShort(final int index, final ByteOrder order) {
+        checkRange(index, Short.BYTES);
+        final long position = offset + index;
+        final int inBlock = (int) (position % source.blockSize);
+        if (inBlock > source.blockSize - Short.BYTES) {
+            // crosses blocks
+            return super.getShort(index, order);
+        }
+        return ByteBuffer.wrap(block(position / source.blockSize)).order(order).getShort(inBlock);
+    }
+
+    @Override
+    public int getInt(final int index, final ByteOrder order) {
+        checkRange(index, Integer.BYTES);
+        final long position = offset + index;
+        final int inBlock = (int) (position % source.blockSize);
+        if (inBlock > source.blockSize - Integer.BYTES) {
+            // crosses blocks
+            return super.getInt(index, order);
+        }
+        return ByteBuffer.wrap(block(position / source.blockSize)).order(order).getInt(inBlock);
+    }
+
+    @Override
+    public long getLong(final int index, final ByteOrder order) {
+        checkRange(index, Long.BYTES);
+        final long position = offset + index;
+        final int inBlock = (int) (position % source.blockSize);
+        if (inBlock > source.blockSize - Long.BYTES) {
+            // crosses blocks
+            return super.getLong(index, order);
+        }
+        return ByteBuffer.wrap(block(position / source.blockSize)).order(order).getLong(inBlock);
+    }
+
+    private void checkRange(final int index, final int count) {
+        if (index < 0 || index > length - count) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+    }
+
+    private byte[] block(final long index) {
+        final LastBlock block = last;
+        if (block != null && block.index == index) {
+            if (!source.channel.isOpen()) {
+                throw new UncheckedIOException(new ClosedChannelException());
+            }
+            return block.data;
+        }
+        final byte[] data = source.block(index);
+        last = new LastBlock(index, data);
+        return data;
+    }
+
+    private long firstBlock() {
+        return offset / source.blockSize;
+    }
+
+    private long lastBlock() {
+        return (offset + length - 1) / source.blockSize;
+    }
+
+    /**
+     * @return offset of the first byte of this instance in the block
+     */
+    private int from(final long index) {
+        final long blockStart = index * source.blockSize;
+        return (int) (Math.max(offset, blockStart) - blockStart);
+    }
+
+    /**
+     * @return offset after the last byte of this instance in the block
+     */
+    private int to(final long index) {
+        final long blockStart = index * source.blockSize;
+        return (int) Math.min(source.blockSize, offset + length - blockStart);
+    }
+
+    /**
+     * Compares the bytes a block at a time, so the cache is looked up once per block.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Bytes)) {
+            return false;
+        }
+        final Bytes other = (Bytes) o;
+        if (length != other.size()) {
+            return false;
+        }
+        if (length == 0) {
+            return true;
+        }
+        int position = 0;
+        for (long index = firstBlock(), lastBlock = lastBlock(); index <= lastBlock; index++) {
+            final byte[] block = block(index);
+            for (int i = from(index), to = to(index); i < to; i++) {
+                if (block[i] != other.byteAt(position++)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the same value as {@link AbstractBytes#hashCode()}, looking up the cache once per block.
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = length;
+            if (length > 0) {
+                for (long index = firstBlock(), lastBlock = lastBlock(); index <= lastBlock; index++) {
+                    final byte[] block = block(index);
+                    for (int i = from(index), to = to(index); i < to; i++) {
+                        h = h * 31 + block[i];
+                    }
+                }
+            }
+            if (h == 0) {
+                h = 1;
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        Instrumentation.recordCopy(BytesInstrumentation.Operation.TO_BYTE_ARRAY, length);
+        final byte[] dest = new byte[length];
+        if (length >= (long) READ_AHEAD_BLOCKS * source.blockSize) {
+            // large copies would only evict other blocks from the cache
+            source.read(ByteBuffer.wrap(dest), offset);
+        } else {
+            int position = 0;
+            for (ByteBuffer buffer : asReadOnlyByteBufferList()) {
+                final int n = buffer.remaining();
+                buffer.get(dest, position, n);
+                position += n;
+            }
+        }
+        return dest;
+    }
+
+    @Override
+    public ByteBuffer toReadOnlyByteBuffer() {
+        final List<ByteBuffer> buffers = asReadOnlyByteBufferList();
+        if (buffers.size() == 1) {
+            return buffers.get(0);
+        }
+        return ByteBuffer.wrap(toByteArray()).asReadOnlyBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The buffers are read-only views of the cached blocks. The list is lazy: a block is loaded when its buffer
+     * is first requested, so iterating over the list does not keep the whole file in memory.
+     */
+    @Override
+    public List<ByteBuffer> asReadOnlyByteBufferList() {
+        if (length == 0) {
+            return Collections.singletonList(ByteBuffer.allocate(0).asReadOnlyBuffer());
+        }
+        return new BlockList();
+    }
+
+    /**
+     * Passes the cached blocks of this instance to the consumer, one at a time.
+     */
+    void readBlocks(final UnsafeBytes.ArrayConsumer consumer) {
+        if (length == 0) {
+            return;
+        }
+        for (long index = firstBlock(), lastBlock = lastBlock(); index <= lastBlock; index++) {
+            final int from = from(index);
+            consumer.accept(source.block(index), from, to(index) - from);
+        }
+    }
+
+    @Override
+    public String toString(final Charset charset) {
+        Instrumentation.recordCopy(BytesInstrumentation.Operation.TO_STRING, length);
+        if (length > 0 && firstBlock() == lastBlock()) {
+            final long index = firstBlock();
+            final int from = from(index);
+            return new String(block(index), from, to(index) - from, charset);
+        }
+        return TextCodec.decode(asReadOnlyByteBufferList(), length, charset);
+    }
+
+    @Override
+    public InputStream newInputStream() {
+        return new FileBytesInputStream();
+    }
+
+    @Override
+    public FileBytes view(final int beginIndex, final int endIndex) {
+        if (beginIndex < 0) {
+            throw new IndexOutOfBoundsException(String.valueOf(beginIndex));
+        }
+        if (endIndex > length) {
+            throw new IndexOutOfBoundsException(String.valueOf(endIndex));
+        }
+        final int subLen = endIndex - beginIndex;
+        if (subLen < 0) {
+            throw new IndexOutOfBoundsException(String.valueOf(subLen));
+        }
+        return new FileBytes(source, offset + beginIndex, subLen);
+    }
+
+    /**
+     * Closes the file and removes its blocks from the cache. Views of this instance (and the instance it is a view of)
+     * cannot be read afterwards.
+     *
+     * @throws IOException if closing the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Buffers of the blocks of this instance, loaded on demand. The list holds only the buffers that were requested,
+     * every one of them is created once, so that changes of its position are visible to subsequent calls of {@link #get(int)}.
+     */
+    private final class BlockList extends AbstractList<ByteBuffer> implements RandomAccess {
+
+        private final long firstBlock = firstBlock();
+
+        private final ByteBuffer[] buffers = new ByteBuffer[(int) (lastBlock() - firstBlock + 1)];
+
+        @Override
+        public ByteBuffer get(final int i) {
+            if (i < 0 || i >= buffers.length) {
+                throw new IndexOutOfBoundsException(String.valueOf(i));
+            }
+            ByteBuffer buffer = buffers[i];
+            if (buffer == null) {
+                final long index = firstBlock + i;
+                final int from = from(index);
+                buffer = ByteBuffer.wrap(source.block(index), from, to(index) - from).slice().asReadOnlyBuffer();
+                buffers[i] = buffer;
+            }
+            return buffer;
+        }
+
+        @Override
+        public int size() {
+            return buffers.length;
+        }
+
+    }
+
+    private static final class LastBlock {
+
+        private final long index;
+
+        private final byte[] data;
+
+        private LastBlock(final long index, final byte[] data) {
+            this.index = index;
+            this.data = data;
+        }
+
+    }
+
+    /**
+     * Open file shared by an instance and all its views.
+     */
+    private static final class Source {
+
+        private final FileChannel channel;
+
+        private final long fileSize;
+
+        private final BlockCache cache;
+
+        private final int blockSize;
+
+        private final long id = IDS.incrementAndGet();
+
+        /**
+         * Index of the last block read from the file; racy updates only affect read-ahead decisions.
+         */
+        private volatile long lastLoaded = -2;
+
+        private Source(final FileChannel channel, final long fileSize, final BlockCache cache) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.cache = cache;
+            this.blockSize = cache.blockSize();
+        }
+
+        private byte[] block(final long index) {
+            final byte[] cached = cache.get(id, index);
+            if (cached != null) {
+                return cached;
+            }
+            // a miss right after the previous block (or right after the blocks read ahead) means sequential access
+            final boolean sequential = lastLoaded == index - 1;
+            final long lastBlock = (fileSize - 1) / blockSize;
+            final long last = sequential ? Math.min(lastBlock, index + READ_AHEAD_BLOCKS) : index;
+            byte[] result = null;
+            for (long i = index; i <= last; i++) {
+                final byte[] block = new byte[(int) Math.min(blockSize, fileSize - i * blockSize)];
+                read(ByteBuffer.wrap(block), i * blockSize);
+                cache.put(id, i, block);
+                if (i == index) {
+                    result = block;
+                }
+            }
+            cache.recordReadAhead(last - index);
+            lastLoaded = last;
+            return result;
+        }
+
+        private void read(final ByteBuffer dest, long position) {
+            try {
+                while (dest.hasRemaining()) {
+                    final int n = channel.read(dest, position);
+                    if (n < 0) {
+                        throw new EOFException("Unexpected end of file at position " + position);
+                    }
+                    position += n;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                cache.invalidate(id);
+            }
+        }
+
+    }
+
+    private final class FileBytesInputStream extends InputStream {
+
+        private int position = 0;
+
+        @Override
+        public int available() {
+            return length - position;
+        }
+
+        @Override
+        public int read() {
+            if (position >= length) {
+                return -1;
+            }
+            return byteAt(position++) & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (position >= length) {
+                return -1;
+            }
+            final int count = Math.min(len, length - position);
+            int read = 0;
+            while (read < count) {
+                final long filePosition = offset + position;
+                final long index = filePosition / source.blockSize;
+                final int inBlock = (int) (filePosition - index * source.blockSize);
+                final byte[] block = block(index);
+                final int n = Math.min(count - read, block.length - inBlock);
+                System.arraycopy(block, inBlock, b, off + read, n);
+                position += n;
+                read += n;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) {
+            final int skipped = (int) Math.max(0, Math.min(n, length - position));
+            position += skipped;
+            return skipped;
+        }
+
+    }
+
+}
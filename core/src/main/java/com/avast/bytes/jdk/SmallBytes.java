@@ -0,0 +1,354 @@
+package com.avast.bytes.jdk;
+
+import com.avast.bytes.Bytes;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+/**
+ * Compact implementation of {@link Bytes} for small values (hashes, identifiers, short keys) storing the data
+ * directly in {@code long} fields instead of a separate array.
+ * <p>
+ * There are variants for up to 16, 24 and {@link #MAX_SIZE} bytes; {@link #copyFrom(byte[], int, int)} chooses
+ * the smallest one. The bytes are packed into big-endian words, so {@link #equals(Object)}, {@link #hashCode()} and
+ * {@link #getLong(int, ByteOrder)} work on whole words. Instances are fully interchangeable with the other
+ * implementations ({@code equals} and {@code hashCode} are consistent with {@link com.avast.bytes.AbstractBytes}).
+ * <p>
+ * There is no backing array or buffer, so {@link #toReadOnlyByteBuffer()} and {@link #asReadOnlyByteBufferList()}
+ * return a new copy of the data on every call; prefer the word accessors where possible. The hashing and key comparison
+ * of {@link com.avast.bytes.BytesHashMap}, {@link com.avast.bytes.BytesToLongMap} and the filters read the words
+ * directly.
+ * <p>
+ * {@link Bytes#copyFrom(byte[])} and {@link Bytes#copyFromHex(String)} return this implementation for data
+ * of at most {@link #MAX_SIZE} bytes.
+ */
+public abstract class SmallBytes implements Bytes {
+
+    /**
+     * Maximum number of bytes stored in {@link SmallBytes}.
+     */
+    public static final int MAX_SIZE = 32;
+
+    /**
+     * Powers of 31 for computing {@link #hashCode()} of a whole word at once.
+     */
+    private static final int P1 = 31;
+    private static final int P2 = P1 * 31;
+    private static final int P3 = P2 * 31;
+    private static final int P4 = P3 * 31;
+    private static final int P5 = P4 * 31;
+    private static final int P6 = P5 * 31;
+    private static final int P7 = P6 * 31;
+    private static final int P8 = P7 * 31;
+
+    private final int length;
+
+    SmallBytes(final int length) {
+        this.length = length;
+    }
+
+    /**
+     * Returns word (8 bytes in big-endian order) at the specified index; bytes past the end are zero.
+     */
+    abstract long word(int index);
+
+    /**
+     * Copies the given part of an array.
+     *
+     * @param bytes  source array
+     * @param offset offset of the first copied byte
+     * @param length number of copied bytes (at most {@link #MAX_SIZE})
+     * @return new {@link SmallBytes}
+     * @throws IllegalArgumentException if the length is greater than {@link #MAX_SIZE}
+     */
+    public static SmallBytes copyFrom(final byte[] bytes, final int offset, final int length) {
+        if (offset < 0 || length < 0 || length > bytes.length - offset) {
+            throw new ArrayIndexOutOfBoundsException("Invalid range " + offset + "+" + length + " for array of length " + bytes.length);
+        }
+        if (length > MAX_SIZE) {
+            throw new IllegalArgumentException("Too many bytes for SmallBytes: " + length);
+        }
+        final long w0 = pack(bytes, offset, length, 0);
+        final long w1 = pack(bytes, offset, length, 1);
+        if (length <= 16) {
+            return new Small16(length, w0, w1);
+        }
+        final long w2 = pack(bytes, offset, length, 2);
+        if (length <= 24) {
+            return new Small24(length, w0, w1, w2);
+        }
+        return new Small32(length, w0, w1, w2, pack(bytes, offset, length, 3));
+    }
+
+    /**
+     * Copies the given array.
+     *
+     * @param bytes source array (at most {@link #MAX_SIZE} bytes)
+     * @return new {@link SmallBytes}
+     * @throws IllegalArgumentException if the length of the array is greater than {@link #MAX_SIZE}
+     */
+    public static SmallBytes copyFrom(final byte[] bytes) {
+        return copyFrom(bytes, 0, bytes.length);
+    }
+
+    private static long pack(final byte[] bytes, final int offset, final int length, final int wordIndex) {
+        final int start = wordIndex << 3;
+        final int end = Math.min(length, start + Long.BYTES);
+        long word = 0;
+        for (int i = start; i < start + Long.BYTES; i++) {
+            word = (word << 8) | (i < end ? bytes[offset + i] & 0xFF : 0);
+        }
+        return word;
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public byte byteAt(final int index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return (byte) (word(index >>> 3) >>> (56 - ((index & 7) << 3)));
+    }
+
+    @Override
+    public long getLong(final int index, final ByteOrder order) {
+        if (index < 0 || index > length - Long.BYTES) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        final long value = readWord(index);
+        return order == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    @Override
+    public int getInt(final int index, final ByteOrder order) {
+        if (index < 0 || index > length - Integer.BYTES) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        final int value = (int) (readWord(index) >>> 32);
+        return order == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+    @Override
+    public short getShort(final int index, final ByteOrder order) {
+        if (index < 0 || index > length - Short.BYTES) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        final short value = (short) (readWord(index) >>> 48);
+        return order == ByteOrder.BIG_ENDIAN ? value : Short.reverseBytes(value);
+    }
+
+    /**
+     * Returns 8 bytes starting at the index (bytes past the end are zero).
+     */
+    private long readWord(final int index) {
+        final int shift = (index & 7) << 3;
+        final long first = word(index >>> 3);
+        return shift == 0 ? first : (first << shift) | (word((index >>> 3) + 1) >>> (64 - shift));
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        final byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte) (word(i >>> 3) >>> (56 - ((i & 7) << 3)));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The buffer is a new copy of the data.
+     */
+    @Override
+    public ByteBuffer toReadOnlyByteBuffer() {
+        final ByteBuffer buffer = ByteBuffer.allocate((length + 7) & ~7);
+        for (int i = 0; i < buffer.capacity(); i += Long.BYTES) {
+            buffer.putLong(i, word(i >>> 3));
+        }
+        ((Buffer) buffer).limit(length);
+        return buffer.asReadOnlyBuffer();
+    }
+
+    @Override
+    public String toString(final Charset charset) {
+        return new String(toByteArray(), charset);
+    }
+
+    @Override
+    public InputStream newInputStream() {
+        return new ByteArrayInputStream(toByteArray());
+    }
+
+    @Override
+    public SmallBytes view(final int beginIndex, final int endIndex) {
+        if (beginIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException(beginIndex);
+        }
+        if (endIndex > length) {
+            throw new ArrayIndexOutOfBoundsException(endIndex);
+        }
+        if (endIndex - beginIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException(endIndex - beginIndex);
+        }
+        if (beginIndex == 0 && endIndex == length) {
+            return this;
+        }
+        // copying at most 32 bytes is cheaper than keeping a reference to this instance
+        return copyFrom(toByteArray(), beginIndex, endIndex - beginIndex);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o instanceof SmallBytes) {
+            final SmallBytes other = (SmallBytes) o;
+            if (length != other.length) {
+                return false;
+            }
+            for (int i = 0, words = (length + 7) >>> 3; i < words; i++) {
+                if (word(i) != other.word(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (!(o instanceof Bytes)) {
+            return false;
+        }
+        final Bytes other = (Bytes) o;
+        if (length != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (byteAt(i) != other.byteAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the same value as {@link com.avast.bytes.AbstractBytes#hashCode()}, a whole word at a time.
+     */
+    @Override
+    public int hashCode() {
+        int h = length;
+        final int fullWords = length >>> 3;
+        for (int i = 0; i < fullWords; i++) {
+            final long w = word(i);
+            h = h * P8
+                    + (byte) (w >>> 56) * P7 + (byte) (w >>> 48) * P6 + (byte) (w >>> 40) * P5 + (byte) (w >>> 32) * P4
+                    + (byte) (w >>> 24) * P3 + (byte) (w >>> 16) * P2 + (byte) (w >>> 8) * P1 + (byte) w;
+        }
+        if ((length & 7) != 0) {
+            final long w = word(fullWords);
+            for (int shift = 56, n = length & 7; n > 0; shift -= 8, n--) {
+                h = h * 31 + (byte) (w >>> shift);
+            }
+        }
+        return h == 0 ? 1 : h;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getCanonicalName() + "(size:" + length + ", bytes: " + toHexString() + ")";
+    }
+
+    private static final class Small16 extends SmallBytes {
+
+        private final long w0;
+        private final long w1;
+
+        private Small16(final int length, final long w0, final long w1) {
+            super(length);
+            this.w0 = w0;
+            this.w1 = w1;
+        }
+
+        @Override
+        long word(final int index) {
+            switch (index) {
+                case 0:
+                    return w0;
+                case 1:
+                    return w1;
+                default:
+                    return 0;
+            }
+        }
+
+    }
+
+    private static final class Small24 extends SmallBytes {
+
+        private final long w0;
+        private final long w1;
+        private final long w2;
+
+        private Small24(final int length, final long w0, final long w1, final long w2) {
+            super(length);
+            this.w0 = w0;
+            this.w1 = w1;
+            this.w2 = w2;
+        }
+
+        @Override
+        long word(final int index) {
+            switch (index) {
+                case 0:
+                    return w0;
+                case 1:
+                    return w1;
+                case 2:
+                    return w2;
+                default:
+                    return 0;
+            }
+        }
+
+    }
+
+    private static final class Small32 extends SmallBytes {
+
+        private final long w0;
+        private final long w1;
+        private final long w2;
+        private final long w3;
+
+        private Small32(final int length, final long w0, final long w1, final long w2, final long w3) {
+            super(length);
+            this.w0 = w0;
+            this.w1 = w1;
+            this.w2 = w2;
+            this.w3 = w3;
+        }
+
+        @Override
+        long word(final int index) {
+            switch (index) {
+                case 0:
+                    return w0;
+                case 1:
+                    return w1;
+                case 2:
+                    return w2;
+                case 3:
+                    return w3;
+                default:
+                    return 0;
+            }
+        }
+
+    }
+
+}
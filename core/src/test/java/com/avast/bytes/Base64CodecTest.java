@@ -0,0 +1,122 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class Base64CodecTest {
+
+    private static byte[] randomData(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Splits the data into many segments of different lengths so that groups cross segment boundaries.
+     */
+    private static Bytes segmented(byte[] data) {
+        List<Bytes> segments = new ArrayList<>();
+        int start = 0;
+        int segment = 1;
+        while (start < data.length) {
+            int end = Math.min(data.length, start + segment);
+            Bytes part = segment % 2 == 0
+                    ? ByteBufferBytes.copyFrom(ByteBuffer.wrap(data, start, end - start).slice())
+                    : Bytes.copyFrom(data, start, end - start);
+            segments.add(part);
+            start = end;
+            segment = segment % 7 + 1;
+        }
+        return segments.isEmpty() ? Bytes.empty() : ConcatBytes.wrap(segments);
+    }
+
+    @Test
+    public void testEncodeMatchesJdk() {
+        for (int size = 0; size < 40; size++) {
+            byte[] data = randomData(size);
+            assertEquals(Base64.getEncoder().encodeToString(data), Base64Codec.BASIC.encode(Bytes.copyFrom(data)));
+            assertEquals(Base64.getEncoder().encodeToString(data), Base64Codec.BASIC.encode(segmented(data)));
+            assertEquals(Base64.getUrlEncoder().encodeToString(data), Base64Codec.URL.encode(segmented(data)));
+            assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(data), Base64Codec.URL.withoutPadding().encode(segmented(data)));
+            assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(data).length(), Base64Codec.URL.withoutPadding().encodedLength(size));
+        }
+    }
+
+    @Test
+    public void testLargeRoundTrip() {
+        byte[] data = randomData(100_000);
+        Bytes encoded = Base64Codec.BASIC.encodeToBytes(segmented(data));
+        assertEquals(Base64.getEncoder().encodeToString(data), encoded.toString(StandardCharsets.US_ASCII));
+        assertEquals(Bytes.copyFrom(data), Base64Codec.BASIC.decode(encoded));
+        assertEquals(Bytes.copyFrom(data), Base64Codec.BASIC.decode(segmented(encoded.toByteArray())));
+    }
+
+    @Test
+    public void testDecode() {
+        for (int size = 0; size < 40; size++) {
+            byte[] data = randomData(size);
+            String padded = Base64.getUrlEncoder().encodeToString(data);
+            String unpadded = Base64.getUrlEncoder().withoutPadding().encodeToString(data);
+            assertEquals(Bytes.copyFrom(data), Base64Codec.URL.decode(padded));
+            assertEquals(Bytes.copyFrom(data), Base64Codec.URL.decode(new StringBuilder(unpadded)));
+            assertEquals(Bytes.copyFrom(data), Base64Codec.URL.decode(segmented(unpadded.getBytes())));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeInvalid() {
+        Base64Codec.BASIC.decode("ab-_");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodePaddingInsideSegments() {
+        Base64Codec.BASIC.decode(ConcatBytes.wrap(Bytes.copyFromUtf8("QQ=="), Bytes.copyFromUtf8("QQ==")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodePaddingAtChunkBoundary() {
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < 4095; i++) {
+            encoded.append("AAAA");
+        }
+        Base64Codec.BASIC.decode(encoded.append("QQ==").append("QQ=="));
+    }
+
+    @Test
+    public void testStreams() throws IOException {
+        byte[] data = randomData(10_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream encoding = Base64Codec.BASIC.newEncodingStream(out)) {
+            encoding.write(data);
+        }
+        assertEquals(Base64.getEncoder().encodeToString(data), out.toString("US-ASCII"));
+
+        try (InputStream decoding = Base64Codec.BASIC.newDecodingStream(Bytes.copyFrom(out.toByteArray()))) {
+            assertEquals(Bytes.copyFrom(data), Bytes.copyFrom(readAll(decoding)));
+        }
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.BytesBuffer;
+import org.junit.Test;
+
+import static com.avast.bytes.TestUtils.randomBytes;
+import static org.junit.Assert.*;
+
+public class BitwiseTest {
+
+    /**
+     * Splits the data into segments of various sizes, so that the words are not aligned with the segments.
+     */
+    private static Bytes segmented(byte[] data) {
+        ConcatBytes.Builder builder = ConcatBytes.newBuilder(0);
+        int position = 0;
+        for (int length = 1; position < data.length; length = length * 3 % 29 + 1) {
+            int n = Math.min(length, data.length - position);
+            builder.append(Bytes.copyFrom(data, position, n));
+            position += n;
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testBinaryOperations() {
+        for (int size : new int[]{0, 1, 7, 8, 9, 100, 1001}) {
+            byte[] a = randomBytes(size, 1);
+            byte[] b = randomBytes(size, 2);
+            byte[] and = new byte[size];
+            byte[] or = new byte[size];
+            byte[] xor = new byte[size];
+            byte[] not = new byte[size];
+            long popcount = 0;
+            for (int i = 0; i < size; i++) {
+                and[i] = (byte) (a[i] & b[i]);
+                or[i] = (byte) (a[i] | b[i]);
+                xor[i] = (byte) (a[i] ^ b[i]);
+                not[i] = (byte) ~a[i];
+                popcount += Integer.bitCount(a[i] & 0xFF);
+            }
+
+            for (Bytes x : new Bytes[]{Bytes.copyFrom(a), segmented(a)}) {
+                for (Bytes y : new Bytes[]{Bytes.copyFrom(b), segmented(b)}) {
+                    assertEquals(Bytes.copyFrom(and), Bitwise.and(x, y));
+                    assertEquals(Bytes.copyFrom(or), Bitwise.or(x, y));
+                    assertEquals(Bytes.copyFrom(xor), Bitwise.xor(x, y));
+                }
+                assertEquals(Bytes.copyFrom(not), Bitwise.not(x));
+                assertEquals(popcount, Bitwise.popcount(x));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentSizes() {
+        Bitwise.xor(Bytes.copyFromHex("01"), Bytes.copyFromHex("0102"));
+    }
+
+    @Test
+    public void testXorWithKey() {
+        byte[] data = randomBytes(1000, 3);
+        for (int keySize : new int[]{1, 3, 8, 13, 2000}) {
+            byte[] key = randomBytes(keySize, keySize);
+            byte[] expected = new byte[data.length];
+            for (int i = 0; i < data.length; i++) {
+                expected[i] = (byte) (data[i] ^ key[i % keySize]);
+            }
+            Bytes xored = Bitwise.xorWithKey(segmented(data), Bytes.copyFrom(key));
+            assertEquals(Bytes.copyFrom(expected), xored);
+            assertEquals(Bytes.copyFrom(data), Bitwise.xorWithKey(xored, Bytes.copyFrom(key)));
+        }
+    }
+
+    @Test
+    public void testInPlace() {
+        byte[] a = randomBytes(100, 4);
+        byte[] b = randomBytes(100, 5);
+        Bytes x = Bytes.copyFrom(a);
+        Bytes y = segmented(b);
+
+        BytesBuffer buffer = x.mutableCopy();
+        buffer.xor(y).xor(y);
+        assertEquals(x, buffer.toBytes());
+        buffer.and(y).or(x).not().not();
+        assertEquals(Bitwise.or(Bitwise.and(x, y), x), buffer.toBytes());
+        buffer.xorWithKey(Bytes.copyFromHex("a5"));
+        assertEquals(Bitwise.xorWithKey(Bitwise.or(Bitwise.and(x, y), x), Bytes.copyFromHex("a5")), buffer.freeze());
+
+        // the shared data of a copy is not modified
+        BytesBuffer copy = x.mutableCopy().not();
+        assertEquals(Bitwise.not(x), copy.freeze());
+        assertEquals(Bytes.copyFrom(a), x);
+    }
+
+}
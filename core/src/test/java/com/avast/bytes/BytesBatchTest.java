@@ -0,0 +1,116 @@
+package com.avast.bytes;
+
+import com.avast.bytes.internal.UnsafeBytes;
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BytesBatchTest {
+
+    private static List<Bytes> randomElements(int count) {
+        Random random = new Random(count);
+        List<Bytes> elements = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] data = new byte[random.nextInt(5) == 0 ? random.nextInt(500) : random.nextInt(20)];
+            random.nextBytes(data);
+            elements.add(Bytes.copyFrom(data));
+        }
+        return elements;
+    }
+
+    @Test
+    public void testBuilder() {
+        List<Bytes> elements = randomElements(1000);
+        BytesBatch.Builder builder = BytesBatch.newBuilder(1, 1);
+        for (Bytes element : elements) {
+            builder.append(element);
+        }
+        assertEquals(1000, builder.count());
+        BytesBatch batch = builder.build();
+        assertEquals(elements, batch);
+        assertEquals(0, builder.count());
+
+        // the builder is reusable
+        builder.append(new byte[]{1, 2, 3}, 1, 2).append(new byte[0]).append(Bytes.copyFromUtf8("abc").concat(Bytes.copyFromUtf8("def")));
+        BytesBatch another = builder.build();
+        assertEquals(3, another.size());
+        assertEquals(Bytes.copyFromHex("0203"), another.get(0));
+        assertTrue(another.get(1).isEmpty());
+        assertEquals("abcdef", another.get(2).toStringUtf8());
+        assertEquals(elements, batch);
+    }
+
+    @Test
+    public void testPackedRoundTrip() {
+        List<Bytes> elements = randomElements(500);
+        BytesBatch batch = BytesBatch.of(elements);
+        Bytes packed = batch.toBytes();
+
+        // e.g. received over network into a direct buffer
+        ByteBuffer received = ByteBuffer.allocateDirect(packed.size());
+        received.put(packed.toReadOnlyByteBuffer());
+        received.flip();
+        BytesBatch wrapped = BytesBatch.wrap(UnsafeBytes.unsafeWrap(received));
+        assertEquals(elements, wrapped);
+        assertEquals(elements.get(123), wrapped.get(123));
+
+        BytesBatch empty = BytesBatch.wrap(BytesBatch.of(Collections.emptyList()).toBytes());
+        assertTrue(empty.isEmpty());
+        assertEquals(8, empty.toBytes().size());
+    }
+
+    @Test
+    public void testLengthPrefixedRoundTrip() {
+        List<Bytes> elements = randomElements(300);
+        Bytes encoded = BytesBatch.encodeLengthPrefixed(elements);
+        BytesBatch decoded = BytesBatch.decodeLengthPrefixed(encoded);
+        assertEquals(elements, decoded);
+        assertSame(encoded, decoded.encodeLengthPrefixed());
+        assertEquals(encoded, BytesBatch.of(elements).encodeLengthPrefixed());
+        assertEquals(BytesBatch.of(elements).toBytes(), decoded.toBytes());
+
+        Bytes segmented = ConcatBytes.wrap(encoded.view(0, 100), ByteBufferBytes.copyFrom(encoded.view(100, encoded.size()).toReadOnlyByteBuffer().slice()));
+        assertEquals(elements, BytesBatch.decodeLengthPrefixed(segmented));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedLengthPrefixed() {
+        Bytes encoded = BytesBatch.encodeLengthPrefixed(randomElements(10));
+        BytesBatch.decodeLengthPrefixed(encoded.view(0, encoded.size() - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTrailingLengthPrefixed() {
+        BytesBatch.decodeLengthPrefixed(BytesBatch.encodeLengthPrefixed(randomElements(10)).concat(Bytes.copyFromHex("00")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingLengthPrefixedElement() {
+        BytesBatch.decodeLengthPrefixed(Bytes.copyFromHex("05"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapWithoutHeader() {
+        Bytes packed = BytesBatch.of(randomElements(10)).toBytes();
+        BytesBatch.wrap(packed.view(1, packed.size()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapTruncated() {
+        Bytes packed = BytesBatch.of(randomElements(10)).toBytes();
+        BytesBatch.wrap(packed.view(0, packed.size() - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapInvalid() {
+        BytesBatch.wrap(Bytes.copyFromHex("00"));
+    }
+
+}
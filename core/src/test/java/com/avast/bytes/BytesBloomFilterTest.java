@@ -0,0 +1,165 @@
+package com.avast.bytes;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BytesBloomFilterTest {
+
+    private static Bytes key(int i) {
+        return Bytes.copyFrom(ByteBuffer.allocate(20).putInt(16, i).array());
+    }
+
+    private static int falsePositives(BytesBloomFilter filter, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (filter.mightContain(key(i))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        for (BytesBloomFilter filter : new BytesBloomFilter[]{BytesBloomFilter.create(10_000, 0.01), BytesBloomFilter.createBlocked(10_000, 0.01)}) {
+            for (int i = 0; i < 10_000; i++) {
+                filter.put(key(i));
+            }
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(filter.mightContain(key(i)));
+            }
+            int falsePositives = falsePositives(filter, 10_000, 110_000);
+            assertTrue(filter + ": " + falsePositives, falsePositives < 1200);
+            assertTrue(filter.bitCount() > 0 && filter.bitCount() < filter.bitSize());
+        }
+    }
+
+    @Test
+    public void testLowFalsePositiveRate() {
+        BytesBloomFilter standard = BytesBloomFilter.create(10_000, 0.0001);
+        BytesBloomFilter blocked = BytesBloomFilter.createBlocked(10_000, 0.0001);
+        // the blocked filter is sized up to reach the same rate
+        assertTrue(blocked.bitSize() > standard.bitSize());
+        for (BytesBloomFilter filter : new BytesBloomFilter[]{standard, blocked}) {
+            for (int i = 0; i < 10_000; i++) {
+                filter.put(key(i));
+            }
+            int falsePositives = falsePositives(filter, 10_000, 1_010_000);
+            assertTrue(filter + ": " + falsePositives, falsePositives < 150);
+        }
+    }
+
+    @Test
+    public void testSegmentedKeys() {
+        BytesBloomFilter filter = BytesBloomFilter.create(100, 0.01);
+        Bytes key = Bytes.copyFromUtf8("some key of several segments");
+        assertTrue(filter.put(key.view(0, 5).concat(key.view(5, key.size()))));
+        assertTrue(filter.mightContain(key));
+        assertFalse(filter.put(key));
+    }
+
+    @Test
+    public void testSerialization() {
+        BytesBloomFilter filter = BytesBloomFilter.createBlocked(1000, 0.001);
+        for (int i = 0; i < 1000; i++) {
+            filter.put(key(i));
+        }
+        Bytes serialized = filter.toBytes();
+
+        BytesBloomFilter wrapped = BytesBloomFilter.wrap(serialized);
+        assertTrue(wrapped.isBlocked());
+        assertEquals(filter.hashCount(), wrapped.hashCount());
+        assertEquals(filter.bitCount(), wrapped.bitCount());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(wrapped.mightContain(key(i)));
+        }
+        assertEquals(falsePositives(filter, 1000, 10_000), falsePositives(wrapped, 1000, 10_000));
+
+        BytesBloomFilter copy = BytesBloomFilter.copyFrom(serialized);
+        assertTrue(copy.put(key(-1)));
+        assertTrue(copy.mightContain(key(-1)));
+        assertEquals(serialized, filter.toBytes());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testWrappedIsReadOnly() {
+        BytesBloomFilter.wrap(BytesBloomFilter.createBlocked(1000, 0.001).toBytes()).put(key(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapTruncated() {
+        Bytes serialized = BytesBloomFilter.createBlocked(1000, 0.001).toBytes();
+        BytesBloomFilter.wrap(serialized.view(0, serialized.size() - 8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapInvalid() {
+        BytesBloomFilter.wrap(Bytes.copyFrom(new byte[64]));
+    }
+
+    @Test
+    public void testConcurrentInserts() throws InterruptedException {
+        BytesBloomFilter filter = BytesBloomFilter.create(80_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            executor.execute(() -> {
+                for (int i = thread; i < 80_000; i += 8) {
+                    filter.put(key(i));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        for (int i = 0; i < 80_000; i++) {
+            assertTrue(filter.mightContain(key(i)));
+        }
+    }
+
+    @Test
+    public void testXorFilter() {
+        List<Bytes> keys = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            keys.add(key(i));
+        }
+        keys.add(key(0)); // duplicate
+        BytesXorFilter filter = BytesXorFilter.build(keys);
+        for (Bytes key : keys) {
+            assertTrue(filter.mightContain(key));
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(key(i))) {
+                falsePositives++;
+            }
+        }
+        // expected rate is 1/256
+        assertTrue(String.valueOf(falsePositives), falsePositives < 800);
+        // about 9.84 bits per key
+        assertTrue(filter.toBytes().size() < 10_000 * 10 / 8 + 100);
+
+        BytesXorFilter wrapped = BytesXorFilter.wrap(filter.toBytes());
+        for (Bytes key : keys) {
+            assertTrue(wrapped.mightContain(key));
+        }
+        assertFalse(BytesXorFilter.build(new ArrayList<>()).mightContain(key(1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testXorFilterWrapTruncated() {
+        List<Bytes> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add(key(i));
+        }
+        BytesXorFilter.wrap(BytesXorFilter.build(keys).toBytes().view(0, 100));
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.avast.bytes;
+
+import org.junit.Test;
+
+import static com.avast.bytes.TestUtils.randomBytes;
+import static org.junit.Assert.*;
+
+public class BytesDeltaTest {
+
+    private static void assertRoundTrip(Bytes base, Bytes target) {
+        Bytes delta = BytesDelta.compute(base, target);
+        assertEquals(target, BytesDelta.apply(base, delta));
+    }
+
+    @Test
+    public void testSmallChange() {
+        byte[] data = randomBytes(100_000);
+        Bytes base = Bytes.copyFrom(data);
+
+        // patch a few bytes, insert and delete some data
+        byte[] modified = data.clone();
+        modified[500] ^= 1;
+        modified[70_000] ^= 1;
+        Bytes target = Bytes.copyFrom(modified, 0, 40_000)
+                .concat(Bytes.copyFromUtf8("inserted"))
+                .concat(Bytes.copyFrom(modified, 41_000, modified.length - 41_000));
+
+        Bytes delta = BytesDelta.compute(base, target);
+        // transferring the delta is much cheaper than the whole target
+        assertTrue(delta.size() < 200);
+        Bytes patched = BytesDelta.apply(base, delta);
+        assertEquals(target, patched);
+        assertTrue(patched instanceof ConcatBytes);
+        assertTrue(patched.asReadOnlyByteBufferList().size() < 10);
+    }
+
+    @Test
+    public void testEdgeCases() {
+        Bytes data = Bytes.copyFrom(randomBytes(1000));
+        assertRoundTrip(Bytes.empty(), Bytes.empty());
+        assertRoundTrip(Bytes.empty(), data);
+        assertRoundTrip(data, Bytes.empty());
+        assertRoundTrip(data, data);
+        assertRoundTrip(data, Bytes.copyFromUtf8("short"));
+        assertRoundTrip(data, Bytes.copyFrom(randomBytes(999)));
+        // repeated and reordered blocks
+        assertRoundTrip(data, data.view(500, 1000).concat(data).concat(data.view(0, 100)));
+
+        Bytes delta = BytesDelta.compute(data, data);
+        assertTrue(delta.size() < 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentBase() {
+        Bytes base = Bytes.copyFrom(randomBytes(1000));
+        Bytes delta = BytesDelta.compute(base, base.view(100, 900).concat(Bytes.copyFromUtf8("tail")));
+        BytesDelta.apply(base.view(0, 999), delta);
+    }
+
+    @Test
+    public void testTruncatedDelta() {
+        Bytes base = Bytes.copyFrom(randomBytes(1000));
+        Bytes delta = BytesDelta.compute(base, base.view(100, 900).concat(Bytes.copyFromUtf8("tail")));
+        // every prefix of the delta must be rejected
+        int rejected = 0;
+        for (int length = 0; length < delta.size(); length++) {
+            try {
+                BytesDelta.apply(base, delta.view(0, length));
+            } catch (IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        assertEquals(delta.size(), rejected);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BytesHashMapTest {
+
+    private static Bytes key(int i) {
+        return Bytes.copyFromUtf8("key-" + i + (i % 3 == 0 ? "-with-a-longer-suffix" : ""));
+    }
+
+    private static Bytes segmented(Bytes bytes) {
+        int middle = bytes.size() / 2;
+        return ConcatBytes.wrap(bytes.view(0, middle), ByteBufferBytes.copyFrom(ByteBuffer.wrap(bytes.toByteArray(), middle, bytes.size() - middle).slice()));
+    }
+
+    @Test
+    public void testHashIndependentOfSegmentation() {
+        byte[] data = new byte[100];
+        new Random(1).nextBytes(data);
+        for (int length = 0; length <= data.length; length++) {
+            Bytes bytes = Bytes.copyFrom(data, 0, length);
+            long expected = Hashing.hash64(bytes);
+            assertEquals(expected, Hashing.hash64(data, 0, length));
+            for (int split = 0; split <= length; split += 3) {
+                assertEquals(expected, Hashing.hash64(ConcatBytes.wrap(bytes.view(0, split), bytes.view(split, length))));
+            }
+        }
+        assertNotEquals(Hashing.hash64(Bytes.copyFrom(new byte[1])), Hashing.hash64(Bytes.copyFrom(new byte[2])));
+    }
+
+    @Test
+    public void testBasicOperations() {
+        BytesHashMap<String> map = new BytesHashMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(Bytes.copyFromUtf8("abc"), "first"));
+        assertEquals("first", map.put(Bytes.copyFromUtf8("abc"), "second"));
+        assertNull(map.put(Bytes.empty(), "empty"));
+
+        assertEquals(2, map.size());
+        assertEquals("second", map.get(segmented(Bytes.copyFromUtf8("abc"))));
+        assertEquals("second", map.get(Bytes.copyFromUtf8("xabcx").view(1, 4)));
+        assertEquals("empty", map.get(Bytes.empty()));
+        assertNull(map.get(Bytes.copyFromUtf8("ab")));
+        assertFalse(map.containsKey(Bytes.copyFromUtf8("abcd")));
+
+        assertEquals("computed", map.computeIfAbsent(Bytes.copyFromUtf8("new"), k -> "computed"));
+        assertEquals("computed", map.computeIfAbsent(Bytes.copyFromUtf8("new"), k -> "other"));
+
+        assertEquals("second", map.remove(Bytes.copyFromUtf8("abc")));
+        assertNull(map.remove(Bytes.copyFromUtf8("abc")));
+        assertEquals(2, map.size());
+
+        Map<Bytes, String> entries = new HashMap<>();
+        map.forEach(entries::put);
+        assertEquals(2, entries.size());
+        assertEquals("computed", entries.get(Bytes.copyFromUtf8("new")));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(Bytes.copyFromUtf8("new")));
+        // keys handed out before clear are still valid
+        assertTrue(entries.containsKey(Bytes.copyFromUtf8("new")));
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        Random random = new Random(42);
+        BytesHashMap<Integer> map = new BytesHashMap<>();
+        Map<Bytes, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            Bytes key = key(random.nextInt(20_000));
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else if (operation < 7) {
+                assertEquals(expected.remove(key), map.remove(segmented(key)));
+            } else {
+                assertEquals(expected.get(key), map.get(segmented(key)));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (Map.Entry<Bytes, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        map.forEach((key, value) -> assertEquals(expected.get(key), value));
+    }
+
+    @Test
+    public void testToLongMap() {
+        BytesToLongMap map = new BytesToLongMap(4);
+        for (int i = 0; i < 10_000; i++) {
+            map.addTo(key(i % 1000), 1);
+        }
+        assertEquals(1000, map.size());
+        assertEquals(10, map.get(key(7), -1));
+        assertEquals(10, map.get(segmented(key(7)), -1));
+        assertEquals(-1, map.get(Bytes.copyFromUtf8("missing"), -1));
+
+        map.put(key(7), 100);
+        assertEquals(100, map.get(key(7), -1));
+        assertTrue(map.remove(key(7)));
+        assertFalse(map.remove(key(7)));
+        assertFalse(map.containsKey(key(7)));
+
+        // removals followed by insertions reuse the space
+        for (int i = 0; i < 1000; i++) {
+            map.remove(key(i));
+            map.put(key(i + 1000), i);
+        }
+        assertEquals(1000, map.size());
+        long[] sum = new long[1];
+        map.forEach((key, value) -> sum[0] += value);
+        assertEquals(999 * 1000 / 2, sum[0]);
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.avast.bytes;
+
+import com.avast.bytes.BytesInstrumentation.Counters;
+import com.avast.bytes.BytesInstrumentation.Operation;
+import com.avast.bytes.jdk.ByteArrayBytes;
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class BytesInstrumentationTest {
+
+    private final Counters counters = new Counters();
+
+    @Before
+    public void setUp() {
+        BytesInstrumentation.setListener(counters);
+    }
+
+    @After
+    public void tearDown() {
+        BytesInstrumentation.setListener(null);
+    }
+
+    @Test
+    public void testCopies() {
+        Bytes array = ByteArrayBytes.copyFrom(new byte[100]);
+        Bytes buffer = ByteBufferBytes.copyFrom(ByteBuffer.allocate(50));
+        Bytes concat = ConcatBytes.wrap(array, buffer);
+
+        array.toByteArray();
+        buffer.toByteArray();
+        assertEquals(2, counters.copies(Operation.TO_BYTE_ARRAY));
+        assertEquals(150, counters.copiedBytes(Operation.TO_BYTE_ARRAY));
+
+        concat.toByteArray();
+        concat.toString(StandardCharsets.US_ASCII);
+        concat.toReadOnlyByteBuffer();
+        // segments are copied directly, so each operation is counted once
+        assertEquals(3, counters.copies(Operation.TO_BYTE_ARRAY));
+        assertEquals(300, counters.copiedBytes(Operation.TO_BYTE_ARRAY));
+        assertEquals(150, counters.copiedBytes(Operation.TO_STRING));
+        assertEquals(150, counters.copiedBytes(Operation.TO_BYTE_BUFFER));
+
+        counters.reset();
+        assertEquals(0, counters.copies(Operation.TO_BYTE_ARRAY));
+        BytesInstrumentation.setListener(null);
+        array.toByteArray();
+        assertEquals(0, counters.copies(Operation.TO_BYTE_ARRAY));
+    }
+
+    @Test
+    public void testConcatShape() {
+        Bytes a = ByteArrayBytes.copyFrom(new byte[100]);
+        Bytes nested = ConcatBytes.wrap(a, a, a);
+        ConcatBytes.wrap(nested, ConcatBytes.wrap(a, nested));
+        assertEquals(3, counters.concats());
+        assertEquals(3 + 2 + 2, counters.concatSegments());
+        assertEquals(3, counters.maxConcatDepth());
+
+        counters.reset();
+        nested.view(10, 250);
+        assertEquals(0, counters.concats());
+        ConcatBytes.newBuilder().append(nested).append(nested).build();
+        assertEquals(1, counters.concats());
+        assertEquals(6, counters.concatSegments());
+        assertEquals(1, counters.maxConcatDepth());
+    }
+
+    @Test
+    public void testBuilderReallocations() throws IOException {
+        for (Bytes.BuilderStream builder : new Bytes.BuilderStream[]{ByteArrayBytes.newBuilder(16), ByteBufferBytes.newBuilder(16)}) {
+            counters.reset();
+            builder.write(new byte[10]);
+            assertEquals(0, counters.builderReallocations());
+            builder.write(new byte[10]);
+            builder.write(new byte[100]);
+            assertEquals(2, counters.builderReallocations());
+            assertEquals(120, builder.toBytes().size());
+            assertEquals(2, counters.allocations(Operation.BUILDER));
+        }
+
+        counters.reset();
+        ConcatBytes.Builder builder = ConcatBytes.newBuilder();
+        builder.append((byte) 1).append((byte) 2);
+        assertEquals(1, counters.allocations(Operation.CONCAT_BUILDER));
+    }
+
+    @Test
+    public void testStreamAndSlowPaths() throws IOException {
+        Bytes read = ByteArrayBytes.readFrom(new ByteArrayInputStream(new byte[1000]));
+        assertEquals(1000, read.size());
+        assertEquals(1000, counters.copiedBytes(Operation.READ_STREAM));
+        assertTrue(counters.allocations(Operation.READ_STREAM) > 1);
+
+        Bytes concat = ConcatBytes.wrap(Bytes.copyFromHex("0102"), ByteArrayBytes.copyFrom(new byte[]{3, 4, 5, 6, 7, 8, 9, 10}));
+        assertEquals(0x0102030405060708L, concat.getLong(0, ByteOrder.BIG_ENDIAN));
+        assertEquals(1, counters.slowPaths(Operation.PRIMITIVE_READ));
+        concat.getLong(2, ByteOrder.BIG_ENDIAN);
+        assertEquals(1, counters.slowPaths(Operation.PRIMITIVE_READ));
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class BytesInternerTest {
+
+    @Test
+    public void testInternReturnsCanonicalInstance() {
+        BytesInterner interner = new BytesInterner(100);
+        Bytes first = Bytes.copyFromHex("cafebabe");
+        Bytes second = ByteBufferBytes.copyFrom(ByteBuffer.wrap(first.toByteArray()));
+
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(second));
+        assertSame(first, interner.get(Bytes.copyFromHex("cafebabe")));
+        assertNull(interner.get(Bytes.copyFromHex("00")));
+
+        BytesInterner.Stats stats = interner.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(4, stats.savedBytes());
+        assertEquals(1, stats.size());
+        assertEquals(0.5, stats.hitRate(), 0);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        BytesInterner interner = new BytesInterner(2, 1);
+        Bytes a = Bytes.copyFromUtf8("a");
+        Bytes b = Bytes.copyFromUtf8("b");
+        interner.intern(a);
+        interner.intern(b);
+        interner.intern(Bytes.copyFromUtf8("a")); // a is now the most recently used
+        interner.intern(Bytes.copyFromUtf8("c"));
+
+        assertSame(a, interner.get(Bytes.copyFromUtf8("a")));
+        assertNull(interner.get(Bytes.copyFromUtf8("b")));
+        assertEquals(2, interner.size());
+        assertEquals(1, interner.stats().evictions());
+
+        interner.clear();
+        assertEquals(0, interner.size());
+    }
+
+    @Test
+    public void testConcurrentIntern() throws Exception {
+        BytesInterner interner = new BytesInterner(10_000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Bytes>>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Bytes> result = new ArrayList<>();
+                    for (int i = 0; i < 1000; i++) {
+                        result.add(interner.intern(Bytes.copyFromUtf8("key" + i)));
+                    }
+                    return result;
+                }));
+            }
+            List<Bytes> expected = futures.get(0).get();
+            for (Future<List<Bytes>> future : futures) {
+                List<Bytes> actual = future.get();
+                for (int i = 0; i < expected.size(); i++) {
+                    assertSame(expected.get(i), actual.get(i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1000, interner.stats().misses());
+        assertEquals(3000, interner.stats().hits());
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class BytesReaderTest {
+
+    private static final byte[] Data = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20};
+
+    private static Bytes segmented() {
+        return ConcatBytes.wrap(
+                Bytes.copyFrom(Data, 0, 3),
+                Bytes.empty(),
+                ByteBufferBytes.copyFrom(ByteBuffer.wrap(Data, 3, 6).slice()),
+                Bytes.copyFrom(Data, 9, 1),
+                Bytes.copyFrom(Data, 10, 10)
+        );
+    }
+
+    @Test
+    public void testReadPrimitives() {
+        for (Bytes bytes : new Bytes[]{Bytes.copyFrom(Data), segmented()}) {
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                ByteBuffer expected = ByteBuffer.wrap(Data).order(order);
+                BytesReader reader = bytes.newReader().order(order);
+                assertEquals(order, reader.order());
+                assertEquals(expected.get(), reader.readByte());
+                assertEquals(expected.getShort(), reader.readShort());
+                assertEquals(expected.getInt(), reader.readInt());
+                assertEquals(expected.getLong(), reader.readLong());
+                assertEquals(15, reader.position());
+                assertEquals(expected.getInt(), reader.readInt());
+                assertEquals(1, reader.remaining());
+                assertEquals(expected.get() & 0xFF, reader.readUnsignedByte());
+                assertFalse(reader.hasRemaining());
+            }
+        }
+    }
+
+    @Test
+    public void testReadBytesIsView() {
+        BytesReader reader = segmented().newReader();
+        reader.skip(2);
+        Bytes part = reader.readBytes(9);
+        assertEquals(Bytes.copyFrom(Data, 2, 9), part);
+        assertEquals(11, reader.position());
+        assertEquals(12, reader.readByte());
+
+        byte[] dest = new byte[8];
+        reader.readFully(dest, 0, 8);
+        assertEquals(Bytes.copyFrom(Data, 12, 8), Bytes.copyFrom(dest));
+    }
+
+    @Test
+    public void testPositionAndSkip() {
+        BytesReader reader = segmented().newReader();
+        reader.position(9);
+        assertEquals(10, reader.readByte());
+        reader.skip(5);
+        assertEquals(16, reader.readByte());
+        reader.position(20);
+        assertEquals(0, reader.remaining());
+        reader.position(0);
+        assertEquals(1, reader.readByte());
+    }
+
+    @Test
+    public void testVarints() {
+        BytesReader reader = Bytes.copyFromHex("01ac02").concat(Bytes.copyFromHex("ffffffff0f")).newReader();
+        assertEquals(1, reader.readVarint32());
+        assertEquals(300, reader.readVarint32());
+        assertEquals(-1, reader.readVarint32());
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    public void testEmpty() {
+        BytesReader reader = Bytes.empty().concat(Bytes.empty()).newReader();
+        assertEquals(0, reader.position());
+        assertEquals(0, reader.remaining());
+        reader.position(0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testReadEmpty() {
+        Bytes.empty().concat(Bytes.empty()).newReader().readByte();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testReadPastEnd() {
+        BytesReader reader = segmented().newReader();
+        reader.skip(17);
+        reader.readInt();
+    }
+
+}
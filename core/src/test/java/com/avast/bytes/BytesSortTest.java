@@ -0,0 +1,115 @@
+package com.avast.bytes;
+
+import org.junit.Test;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BytesSortTest {
+
+    private static final List<AbstractBytesComparator> Comparators = Arrays.asList(
+            new UnsignedBytesComparator(),
+            new UnsignedBytesComparator(false),
+            new BytesComparator(),
+            new BytesComparator(false)
+    );
+
+    /**
+     * Keys with long common prefixes, keys being prefixes of other keys, empty keys and bytes with the highest bit set.
+     */
+    private static Bytes[] randomKeys(int count, long seed) {
+        Random random = new Random(seed);
+        byte[] prefix = new byte[40];
+        random.nextBytes(prefix);
+        Bytes[] keys = new Bytes[count];
+        for (int i = 0; i < count; i++) {
+            int prefixLength = random.nextInt(4) * 10;
+            byte[] suffix = new byte[random.nextInt(12)];
+            for (int j = 0; j < suffix.length; j++) {
+                suffix[j] = (byte) (random.nextInt(3) == 0 ? 0 : random.nextInt(256));
+            }
+            keys[i] = Bytes.copyFrom(prefix, 0, prefixLength).concat(Bytes.copyFrom(suffix));
+        }
+        return keys;
+    }
+
+    private static void assertSameOrder(Bytes[] expected, Bytes[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("Index " + i, expected[i], actual[i]);
+        }
+    }
+
+    @Test
+    public void testSortMatchesComparator() {
+        for (AbstractBytesComparator comparator : Comparators) {
+            for (int count : new int[]{0, 1, 10, 1000, 20_000}) {
+                Bytes[] keys = randomKeys(count, count);
+                Bytes[] expected = keys.clone();
+                Arrays.sort(expected, comparator);
+
+                Bytes[] sorted = keys.clone();
+                BytesSort.sort(sorted, comparator);
+                assertSameOrder(expected, sorted);
+
+                Bytes[] parallelSorted = keys.clone();
+                BytesSort.parallelSort(parallelSorted, comparator);
+                assertSameOrder(expected, parallelSorted);
+            }
+        }
+    }
+
+    @Test
+    public void testSortList() {
+        Bytes[] keys = randomKeys(5000, 1);
+        List<Bytes> list = new LinkedList<>(Arrays.asList(keys));
+        BytesSort.sort(list, new UnsignedBytesComparator());
+        Arrays.sort(keys, new UnsignedBytesComparator());
+        assertSameOrder(keys, list.toArray(new Bytes[0]));
+
+        List<Bytes> parallelList = new ArrayList<>(list);
+        BytesSort.parallelSort(parallelList, new BytesComparator());
+        Arrays.sort(keys, new BytesComparator());
+        assertSameOrder(keys, parallelList.toArray(new Bytes[0]));
+    }
+
+    @Test
+    public void testCustomComparatorFallback() {
+        AbstractBytesComparator reversed = new AbstractBytesComparator() {
+            @Override
+            protected int compare(byte a, byte b) {
+                return (b & 0xFF) - (a & 0xFF);
+            }
+        };
+        assertFalse(reversed.supportsNormalizedKeys());
+        Bytes[] keys = randomKeys(1000, 2);
+        Bytes[] expected = keys.clone();
+        Arrays.sort(expected, reversed);
+        BytesSort.sort(keys, reversed);
+        assertSameOrder(expected, keys);
+    }
+
+    @Test
+    public void testComparatorHelpers() {
+        UnsignedBytesComparator unsigned = new UnsignedBytesComparator();
+        assertEquals(2, unsigned.commonPrefixLength(Bytes.copyFromHex("0102"), Bytes.copyFromHex("010203")));
+        assertEquals(1, unsigned.commonPrefixLength(Bytes.copyFromHex("0102"), Bytes.copyFromHex("0103")));
+        assertEquals(0, unsigned.commonPrefixLength(Bytes.empty(), Bytes.copyFromHex("01")));
+
+        BytesComparator signed = new BytesComparator();
+        long a = Bytes.copyFromHex("80000000000000ff").getLong(0, ByteOrder.BIG_ENDIAN);
+        long b = Bytes.copyFromHex("0000000000000000").getLong(0, ByteOrder.BIG_ENDIAN);
+        assertTrue(Long.compareUnsigned(signed.normalizedKey(a), signed.normalizedKey(b)) < 0);
+        assertTrue(Long.compareUnsigned(unsigned.normalizedKey(a), unsigned.normalizedKey(b)) > 0);
+
+        assertTrue(unsigned.isShorterIsLess());
+        assertFalse(new UnsignedBytesComparator(false).isShorterIsLess());
+        assertTrue(new UnsignedBytesComparator(false).compare(Bytes.copyFromHex("01"), Bytes.copyFromHex("0100")) > 0);
+    }
+
+}
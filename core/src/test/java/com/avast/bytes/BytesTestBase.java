@@ -5,6 +5,7 @@ import org.junit.Test;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
@@ -96,6 +97,74 @@ public abstract class BytesTestBase {
         }
     }
 
+    @Test
+    public void testCompact() {
+        byte[] data = new byte[10_000];
+        System.arraycopy(TestData, 0, data, 5000, TestData.length);
+        Bytes b = fromByteArray(data);
+        assertEquals(b, b.compact());
+        assertTrue(b.retainedSize() >= b.size());
+
+        Bytes v = b.view(5000, 5000 + TestData.length);
+        Bytes compacted = v.compact();
+        assertEquals(TestString, compacted.toStringUtf8());
+        assertFalse(compacted.isShared());
+        assertTrue(compacted.retainedSize() <= v.retainedSize());
+    }
+
+    @Test
+    public void testPrimitiveAccessors() {
+        byte[] data = new byte[]{0, 1, 2, 3, 4, 5, 6, 7, (byte) 0x88, (byte) 0x99, (byte) 0xAA, (byte) 0xBB};
+        Bytes b = fromByteArray(data);
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            ByteBuffer expected = ByteBuffer.wrap(data).order(order);
+            for (int i = 0; i < data.length - 7; i++) {
+                assertEquals(expected.getShort(i), b.getShort(i, order));
+                assertEquals(expected.getShort(i) & 0xFFFF, b.getUnsignedShort(i, order));
+                assertEquals(expected.getInt(i), b.getInt(i, order));
+                assertEquals(expected.getInt(i) & 0xFFFFFFFFL, b.getUnsignedInt(i, order));
+                assertEquals(expected.getLong(i), b.getLong(i, order));
+                assertEquals(expected.getFloat(i), b.getFloat(i, order), 0);
+                assertEquals(expected.getDouble(i), b.getDouble(i, order), 0);
+            }
+        }
+        assertEquals(0xBB, b.getUnsignedByte(data.length - 1));
+
+        Bytes view = b.view(4, 8);
+        assertEquals(0x04050607, view.getInt(0, ByteOrder.BIG_ENDIAN));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPrimitiveOutOfView() {
+        fromByteArray(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}).view(4, 8).getInt(1, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testVarints() {
+        // 1, 300, -1 (10 bytes), 2^35
+        byte[] data = new byte[]{0x01, (byte) 0xAC, 0x02, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0x01, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+        Bytes b = fromByteArray(data);
+        assertEquals(1, b.getVarint32(0));
+        assertEquals(1, b.varintLength(0));
+        assertEquals(300, b.getVarint32(1));
+        assertEquals(2, b.varintLength(1));
+        assertEquals(-1L, b.getVarint64(3));
+        assertEquals(-1, b.getVarint32(3));
+        assertEquals(10, b.varintLength(3));
+        assertEquals(1L << 35, b.getVarint64(13));
+        assertEquals(6, b.varintLength(13));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testTruncatedVarint() {
+        fromByteArray(new byte[]{0x01, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01}).view(1, 4).getVarint64(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLongVarint() {
+        fromByteArray(new byte[]{-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0}).getVarint64(0);
+    }
+
     @Test
     public void testToHexString() {
         Bytes bytes = Bytes.copyFromHex("FEEDFACECAFEBEEF");
@@ -0,0 +1,110 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChecksumsTest {
+
+    private static final byte[] Data = new byte[100_003];
+
+    static {
+        new Random(42).nextBytes(Data);
+    }
+
+    private static Bytes segmented() {
+        List<Bytes> segments = new ArrayList<>();
+        for (int start = 0, i = 0; start < Data.length; i++) {
+            int end = Math.min(Data.length, start + 1 + i * 37 % 5000);
+            segments.add(i % 2 == 0
+                    ? Bytes.copyFrom(Data, start, end - start)
+                    : ByteBufferBytes.copyFrom(ByteBuffer.wrap(Data, start, end - start).slice()));
+            start = end;
+        }
+        return ConcatBytes.wrap(segments);
+    }
+
+    @Test
+    public void testCrc32c() {
+        // check value from RFC 3720
+        assertEquals(0xE3069283L, Bytes.copyFromUtf8("123456789").crc32c());
+        assertEquals(0, Bytes.empty().crc32c());
+
+        Crc32c software = new Crc32c();
+        software.update(Data, 0, Data.length);
+        assertEquals(software.getValue(), Bytes.copyFrom(Data).crc32c());
+        assertEquals(software.getValue(), segmented().crc32c());
+    }
+
+    @Test
+    public void testParallelCrc32c() {
+        ConcatBytes bytes = (ConcatBytes) segmented();
+        assertEquals(bytes.crc32c(), bytes.parallelCrc32c());
+        ConcatBytes view = (ConcatBytes) bytes.view(1000, 90_000);
+        assertEquals(Bytes.copyFrom(Data, 1000, 89_000).crc32c(), view.parallelCrc32c());
+    }
+
+    @Test
+    public void testCrc32AndAdler32() {
+        CRC32 crc32 = new CRC32();
+        crc32.update(Data);
+        Adler32 adler32 = new Adler32();
+        adler32.update(Data);
+
+        Bytes bytes = segmented();
+        assertEquals(crc32.getValue(), bytes.crc32());
+        assertEquals(adler32.getValue(), bytes.adler32());
+        // cached values
+        assertEquals(crc32.getValue(), bytes.crc32());
+        assertEquals(adler32.getValue(), bytes.adler32());
+    }
+
+    @Test
+    public void testDigest() throws Exception {
+        byte[] expected = MessageDigest.getInstance("SHA-256").digest(Data);
+        assertArrayEquals(expected, segmented().digest(MessageDigest.getInstance("SHA-256")));
+        ByteBuffer direct = ByteBuffer.allocateDirect(Data.length);
+        direct.put(Data).flip();
+        assertArrayEquals(expected, Bytes.copyFrom(direct).digest(MessageDigest.getInstance("SHA-256")));
+    }
+
+    @Test
+    public void testHeapSegmentsAreNotCopied() throws Exception {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        List<Bytes> segments = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            segments.add(i % 2 == 0 ? Bytes.copyFrom(new byte[4096]) : ByteBufferBytes.copyFrom(ByteBuffer.wrap(new byte[4096])));
+        }
+        Bytes bytes = ConcatBytes.wrap(segments);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        long threadId = Thread.currentThread().getId();
+        long allocated = Long.MAX_VALUE;
+        // the minimum of several runs, so that allocations of the compilation do not count
+        for (int run = 0; run < 20; run++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            Checksums.crc32(bytes);
+            Checksums.crc32c(bytes);
+            Checksums.adler32(bytes);
+            Checksums.digest(bytes, digest);
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(threadId) - before);
+        }
+        assertTrue("Allocated " + allocated + " bytes", allocated < bytes.size() / 16);
+    }
+
+}
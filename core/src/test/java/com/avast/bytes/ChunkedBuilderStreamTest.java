@@ -0,0 +1,90 @@
+package com.avast.bytes;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import static com.avast.bytes.TestUtils.randomBytes;
+import static org.junit.Assert.*;
+
+public class ChunkedBuilderStreamTest extends BytesTestBase {
+
+    @Override
+    protected Bytes fromByteArray(byte[] array) {
+        ChunkedBuilderStream builder = ConcatBytes.newBuilderStream(4, 1024);
+        builder.write(array, 0, array.length);
+        return builder.toBytes();
+    }
+
+    @Override
+    protected Bytes.BuilderStream newBuilder(int size) {
+        return ConcatBytes.newBuilderStream(4, 16);
+    }
+
+    @Test
+    public void testChunksAreNotReallocated() {
+        ChunkedBuilderStream builder = ConcatBytes.newBuilderStream(8, 32);
+        assertTrue(builder.toBytes().isEmpty());
+
+        builder.write(new byte[]{1, 2, 3}, 0, 3);
+        Bytes single = builder.toBytes();
+        assertFalse(single instanceof ConcatBytes);
+        assertEquals(Bytes.copyFromHex("010203"), single);
+
+        byte[] data = randomBytes(200);
+        builder.write(data, 0, data.length);
+        Bytes all = builder.toBytes();
+        assertEquals(203, builder.size());
+        assertEquals(203, all.size());
+        assertEquals(Bytes.copyFromHex("010203").concat(Bytes.copyFrom(data)), all);
+        // 8 + 16 + 32 + 32 + ... bytes
+        assertEquals(8, all.asReadOnlyByteBufferList().get(0).remaining());
+        assertEquals(16, all.asReadOnlyByteBufferList().get(1).remaining());
+        assertEquals(32, all.asReadOnlyByteBufferList().get(2).remaining());
+        assertEquals(all.retainedSize(), 8 + 16 + 32 * 6);
+
+        // previously returned instances are not affected by further writes
+        builder.write(9);
+        assertEquals(Bytes.copyFromHex("010203"), single);
+        assertEquals(203, all.size());
+        assertEquals(all, builder.toBytes().view(0, 203));
+    }
+
+    @Test
+    public void testWriteFrom() throws IOException {
+        byte[] data = randomBytes(100_000);
+        ChunkedBuilderStream fromStream = ConcatBytes.newBuilderStream();
+        fromStream.write(Bytes.copyFromUtf8("header"));
+        assertEquals(data.length, fromStream.writeFrom(new ByteArrayInputStream(data)));
+        assertEquals(Bytes.copyFromUtf8("header").concat(Bytes.copyFrom(data)), fromStream.toBytes());
+
+        ChunkedBuilderStream fromChannel = ConcatBytes.newBuilderStream(1000, 1000);
+        assertEquals(data.length, fromChannel.writeFrom(Channels.newChannel(new ByteArrayInputStream(data))));
+        Bytes result = fromChannel.toBytes();
+        assertArrayEquals(data, result.toByteArray());
+        assertEquals(100, result.asReadOnlyByteBufferList().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidChunkSizes() {
+        ConcatBytes.newBuilderStream(16, 8);
+    }
+
+    @Test
+    public void testLargeWrites() {
+        byte[] data = randomBytes(10_000);
+        ChunkedBuilderStream builder = ConcatBytes.newBuilderStream(16, 1024);
+        for (int i = 0; i < 10; i++) {
+            builder.write(data, 0, data.length);
+        }
+        byte[] expected = new byte[100_000];
+        for (int i = 0; i < 10; i++) {
+            System.arraycopy(data, 0, expected, i * data.length, data.length);
+        }
+        assertTrue(Arrays.equals(expected, builder.toBytes().toByteArray()));
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class CompressionCodecTest {
+
+    private static final byte[] Data = createData();
+
+    private static byte[] createData() {
+        // compressible, but not trivially
+        Random random = new Random(1);
+        byte[] data = new byte[300_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(6));
+        }
+        return data;
+    }
+
+    private static Bytes segmented(byte[] data) {
+        List<Bytes> segments = new ArrayList<>();
+        for (int start = 0, i = 0; start < data.length; i++) {
+            int end = Math.min(data.length, start + 1 + i * 7919 % 20_000);
+            segments.add(i % 2 == 0
+                    ? Bytes.copyFrom(data, start, end - start)
+                    : ByteBufferBytes.copyFrom(ByteBuffer.wrap(data, start, end - start).slice()));
+            start = end;
+        }
+        return ConcatBytes.wrap(segments);
+    }
+
+    @Test
+    public void testRoundTrip() throws DataFormatException {
+        for (CompressionCodec codec : new CompressionCodec[]{CompressionCodec.DEFLATE, CompressionCodec.ZLIB, CompressionCodec.GZIP, CompressionCodec.GZIP.withLevel(1)}) {
+            Bytes compressed = codec.compress(segmented(Data));
+            assertTrue(compressed.size() < Data.length / 2);
+            assertEquals(Bytes.copyFrom(Data), codec.decompress(compressed));
+            assertEquals(Bytes.copyFrom(Data), codec.decompress(segmented(compressed.toByteArray())));
+            assertEquals(Bytes.empty(), codec.decompress(codec.compress(Bytes.empty())));
+        }
+    }
+
+    @Test
+    public void testCompatibleWithJdkStreams() throws IOException, DataFormatException {
+        Bytes gzipped = CompressionCodec.GZIP.compress(Bytes.copyFrom(Data));
+        try (InputStream is = new GZIPInputStream(gzipped.newInputStream())) {
+            assertArrayEquals(Data, readAll(is));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(Data);
+        }
+        // concatenated members
+        out.write(out.toByteArray());
+        Bytes decompressed = CompressionCodec.GZIP.decompress(Bytes.copyFrom(out.toByteArray()));
+        assertEquals(Bytes.copyFrom(Data).concat(Bytes.copyFrom(Data)), decompressed);
+
+        ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(zlib, new Deflater(9))) {
+            deflater.write(Data);
+        }
+        assertEquals(Bytes.copyFrom(Data), CompressionCodec.ZLIB.decompress(Bytes.copyFrom(zlib.toByteArray())));
+    }
+
+    @Test
+    public void testDecompressPrefix() throws DataFormatException, IOException {
+        for (CompressionCodec codec : new CompressionCodec[]{CompressionCodec.DEFLATE, CompressionCodec.ZLIB, CompressionCodec.GZIP}) {
+            Bytes compressed = codec.compress(Bytes.copyFrom(Data));
+            assertEquals(Bytes.copyFrom(Data, 0, 1000), codec.decompressPrefix(compressed, 1000));
+            assertEquals(Bytes.copyFrom(Data), codec.decompressPrefix(compressed, Data.length * 2));
+
+            try (InputStream is = codec.newDecompressingStream(compressed)) {
+                byte[] prefix = new byte[10];
+                assertEquals(10, is.read(prefix));
+                assertEquals(Bytes.copyFrom(Data, 0, 10), Bytes.copyFrom(prefix));
+            }
+        }
+    }
+
+    @Test(expected = DataFormatException.class)
+    public void testTruncated() throws DataFormatException {
+        Bytes compressed = CompressionCodec.GZIP.compress(Bytes.copyFrom(Data));
+        CompressionCodec.GZIP.decompress(compressed.view(0, compressed.size() - 4));
+    }
+
+    @Test(expected = DataFormatException.class)
+    public void testCorruptedCrc() throws DataFormatException {
+        byte[] compressed = CompressionCodec.GZIP.compress(Bytes.copyFrom(Data)).toByteArray();
+        compressed[compressed.length - 8] ^= 1;
+        CompressionCodec.GZIP.decompress(Bytes.copyFrom(compressed));
+    }
+
+    @Test(expected = DataFormatException.class)
+    public void testNotGzip() throws DataFormatException {
+        CompressionCodec.GZIP.decompress(Bytes.copyFromUtf8("definitely not gzip data"));
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -7,6 +7,8 @@ import org.junit.Test;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.junit.Assert.*;
@@ -134,4 +136,120 @@ public class ConcatBytesTest {
         }
     }
 
+    @Test
+    public void testPrimitiveAccessorsAcrossSegments() {
+        byte[] data = new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17};
+        Bytes concatenated = ConcatBytes.wrap(
+                Bytes.copyFrom(data, 0, 3),
+                ByteBufferBytes.copyFrom(ByteBuffer.wrap(data, 3, 2).slice()),
+                Bytes.empty(),
+                Bytes.copyFrom(data, 5, 10),
+                Bytes.copyFrom(data, 15, 3)
+        ).view(1, 17);
+        Bytes expected = Bytes.copyFrom(data, 1, 16);
+
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            for (int i = 0; i < expected.size() - 7; i++) {
+                assertEquals(expected.getShort(i, order), concatenated.getShort(i, order));
+                assertEquals(expected.getInt(i, order), concatenated.getInt(i, order));
+                assertEquals(expected.getLong(i, order), concatenated.getLong(i, order));
+            }
+        }
+        assertEquals(0x0F10, concatenated.getShort(14, ByteOrder.BIG_ENDIAN));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPrimitiveAccessorOutOfView() {
+        Bytes concatenated = Bytes.copyFromHex("0001").concat(Bytes.copyFromHex("0203")).view(0, 3);
+        concatenated.getInt(0, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testVarintAcrossSegments() {
+        Bytes concatenated = Bytes.copyFromHex("0080").concat(Bytes.copyFromHex("8001")).concat(Bytes.copyFromHex("ac02"));
+        assertEquals(1 << 14, concatenated.getVarint32(1));
+        assertEquals(3, concatenated.varintLength(1));
+        assertEquals(300, concatenated.getVarint32(4));
+        assertEquals(300, concatenated.view(4, 6).getVarint32(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testTruncatedVarintAcrossSegments() {
+        Bytes.copyFromHex("0080").concat(Bytes.copyFromHex("8001")).view(0, 3).getVarint64(1);
+    }
+
+    @Test
+    public void testBuilder() {
+        Bytes big = Bytes.copyFrom(new byte[100]);
+        Bytes nested = Bytes.copyFromUtf8("nested ").concat(Bytes.copyFromUtf8("concat ")).concat(big).view(1, 107);
+
+        ConcatBytes.Builder builder = ConcatBytes.newBuilder(8);
+        builder.append(Bytes.copyFromUtf8("ab"))
+                .append((byte) 'c')
+                .append("defghijklmnop".getBytes(US_ASCII))
+                .append(nested)
+                .append(Bytes.empty())
+                .append(Bytes.copyFromUtf8("The quick brown fox"), 4, 9);
+        assertEquals(2 + 1 + 13 + 106 + 5, builder.size());
+
+        Bytes built = builder.build();
+        byte[] expected = ("abcdefghijklmnop" + "ested concat " + new String(new byte[93], US_ASCII) + "quick").getBytes(US_ASCII);
+        assertArrayEquals(expected, built.toByteArray());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], built.byteAt(i));
+        }
+        assertEquals("ested concat ", built.view(16, 29).toStringUtf8());
+
+        // the builder is reset after build
+        assertEquals(0, builder.size());
+        assertEquals(Bytes.empty(), builder.build());
+        assertEquals("x", builder.append((byte) 'x').build().toStringUtf8());
+    }
+
+    @Test
+    public void testBuilderManyFragments() {
+        ConcatBytes.Builder builder = ConcatBytes.newBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            String fragment = Integer.toString(i);
+            expected.append(fragment);
+            builder.append(Bytes.copyFromUtf8(fragment));
+            if (i % 1000 == 0) {
+                builder.append(Bytes.copyFrom(new byte[200]));
+                expected.append(new String(new byte[200], US_ASCII));
+            }
+        }
+        Bytes built = builder.build();
+        assertEquals(expected.toString(), built.toStringUtf8());
+        assertEquals(expected.substring(5, 5000), built.view(5, 5000).toStringUtf8());
+    }
+
+    @Test
+    public void testViewTrimsChain() {
+        Bytes first = Bytes.copyFrom(new byte[1000]);
+        Bytes second = Bytes.copyFrom(TestData);
+        Bytes third = Bytes.copyFrom(new byte[2000]);
+        Bytes concatenated = ConcatBytes.wrap(first, second, third);
+        assertEquals(3000 + TestData.length, concatenated.retainedSize());
+
+        // range within a single segment
+        Bytes single = concatenated.view(1004, 1009);
+        assertFalse(single instanceof ConcatBytes);
+        assertEquals("quick", single.toStringUtf8());
+        assertSame(second, concatenated.view(1000, 1000 + TestData.length));
+
+        // the view of the first two segments does not retain the third one
+        Bytes trimmed = concatenated.view(990, 1009);
+        assertTrue(trimmed instanceof ConcatBytes);
+        assertEquals(1000 + TestData.length, trimmed.retainedSize());
+        assertTrue(trimmed.isShared());
+        assertEquals(concatenated.view(995, 1009), trimmed.view(5, 19));
+        assertArrayEquals(Arrays.copyOfRange(TestData, 0, 9), trimmed.view(10, 19).toByteArray());
+
+        Bytes compacted = trimmed.compact();
+        assertEquals(trimmed, compacted);
+        assertFalse(compacted.isShared());
+        assertTrue(concatenated.view(5, 5).isEmpty());
+    }
+
 }
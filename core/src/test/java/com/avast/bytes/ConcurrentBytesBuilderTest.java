@@ -0,0 +1,122 @@
+package com.avast.bytes;
+
+import org.junit.Test;
+
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentBytesBuilderTest {
+
+    private static final int Threads = 8;
+    private static final int RecordsPerThread = 2000;
+
+    @Test
+    public void testCommittedPrefix() {
+        ConcurrentBytesBuilder builder = new ConcurrentBytesBuilder(10);
+        ConcurrentBytesBuilder.Region first = builder.reserve(3);
+        ConcurrentBytesBuilder.Region second = builder.reserve(4);
+        assertEquals(7, builder.reserved());
+
+        second.write(Bytes.copyFromHex("04050607")).commit();
+        // the first region blocks the prefix
+        assertEquals(0, builder.committed());
+        assertTrue(builder.toBytes().isEmpty());
+
+        first.write((byte) 1).write(new byte[]{2, 3}, 0, 2).commit();
+        assertEquals(7, builder.committed());
+        assertEquals(Bytes.copyFromHex("01020304050607"), builder.toBytes());
+
+        builder.reserve(0).commit();
+        ConcurrentBytesBuilder.Region last = builder.reserve(3);
+        last.buffer().put((byte) 8);
+        last.commit();
+        assertEquals(Bytes.copyFromHex("01020304050607080000"), builder.toBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReserveBeyondCapacity() {
+        ConcurrentBytesBuilder builder = new ConcurrentBytesBuilder(10);
+        builder.reserve(10).commit();
+        builder.reserve(1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWriteAfterCommit() {
+        ConcurrentBytesBuilder.Region region = new ConcurrentBytesBuilder(10).reserve(3);
+        region.commit();
+        region.write((byte) 1);
+    }
+
+    @Test
+    public void testParallelWriters() throws InterruptedException, ExecutionException {
+        ConcurrentBytesBuilder builder = new ConcurrentBytesBuilder(Threads * RecordsPerThread * 8);
+        ExecutorService executor = Executors.newFixedThreadPool(Threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < Threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < RecordsPerThread; i++) {
+                    ConcurrentBytesBuilder.Region region = builder.reserve(8);
+                    region.buffer().putInt(thread).putInt(i);
+                    region.commit();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Bytes result = builder.toBytes();
+        assertEquals(Threads * RecordsPerThread * 8, result.size());
+        Set<Long> records = new HashSet<>();
+        for (int i = 0; i < result.size(); i += 8) {
+            records.add(result.getLong(i, ByteOrder.BIG_ENDIAN));
+        }
+        assertEquals(Threads * RecordsPerThread, records.size());
+    }
+
+    @Test
+    public void testSegmentsBuilder() throws InterruptedException, ExecutionException {
+        ConcurrentSegmentsBuilder builder = new ConcurrentSegmentsBuilder(100);
+        ExecutorService executor = Executors.newFixedThreadPool(Threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < Threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                ConcurrentSegmentsBuilder.Writer writer = builder.newWriter();
+                for (int i = 0; i < RecordsPerThread; i++) {
+                    // records of variable size, some of them spanning chunks
+                    String record = "[" + thread + ":" + i + (i % 100 == 0 ? new String(new char[150]).replace('\0', '-') : "") + "]";
+                    byte[] data = record.getBytes(StandardCharsets.US_ASCII);
+                    writer.write(data, 0, data.length);
+                    assertEquals(data.length, writer.publish());
+                }
+                assertEquals(0, writer.publish());
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        String result = builder.toBytes().toStringUtf8();
+        Set<String> records = new HashSet<>();
+        for (String record : result.substring(1, result.length() - 1).split("]\\[")) {
+            assertTrue(record, record.matches("\\d+:\\d+-*"));
+            records.add(record);
+        }
+        assertEquals(Threads * RecordsPerThread, records.size());
+    }
+
+}
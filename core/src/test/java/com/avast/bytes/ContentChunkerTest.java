@@ -0,0 +1,113 @@
+package com.avast.bytes;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static com.avast.bytes.TestUtils.randomBytes;
+import static org.junit.Assert.*;
+
+public class ContentChunkerTest {
+
+    private static final ContentChunker Chunker = ContentChunker.create(256, 1024, 4096);
+
+    private static Set<Long> fingerprints(List<ContentChunker.Chunk> chunks) {
+        Set<Long> fingerprints = new HashSet<>();
+        for (ContentChunker.Chunk chunk : chunks) {
+            fingerprints.add(chunk.fingerprint());
+        }
+        return fingerprints;
+    }
+
+    @Test
+    public void testSizes() {
+        byte[] data = randomBytes(200_000);
+        List<Bytes> chunks = Chunker.split(Bytes.copyFrom(data));
+        int total = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            Bytes chunk = chunks.get(i);
+            assertEquals(Bytes.copyFrom(data, total, chunk.size()), chunk);
+            assertTrue(chunk.size() <= 4096);
+            assertTrue(i == chunks.size() - 1 || chunk.size() >= 256);
+            total += chunk.size();
+        }
+        assertEquals(data.length, total);
+        // the average is close to the configured one
+        int average = data.length / chunks.size();
+        assertTrue(String.valueOf(average), average > 600 && average < 1800);
+
+        assertTrue(Chunker.split(Bytes.empty()).isEmpty());
+        assertEquals(1, Chunker.split(Bytes.copyFromHex("0102")).size());
+        // constant data has no content-defined cut points
+        for (Bytes chunk : Chunker.split(Bytes.copyFrom(new byte[10_000]))) {
+            assertTrue(chunk.size() == 4096 || chunk.size() == 10_000 % 4096);
+        }
+    }
+
+    @Test
+    public void testShiftedContent() {
+        byte[] data = randomBytes(100_000);
+        Bytes original = Bytes.copyFrom(data);
+        Bytes shifted = Bytes.copyFromUtf8("prefix inserted at the beginning").concat(original);
+
+        Set<Long> before = fingerprints(Chunker.splitWithFingerprints(original));
+        List<ContentChunker.Chunk> after = Chunker.splitWithFingerprints(shifted);
+        int shared = 0;
+        for (ContentChunker.Chunk chunk : after) {
+            assertEquals(ContentChunker.fingerprint(chunk.bytes()), chunk.fingerprint());
+            if (before.contains(chunk.fingerprint())) {
+                shared++;
+            }
+        }
+        // all chunks except the first one are the same
+        assertTrue(shared >= after.size() - 2);
+    }
+
+    @Test
+    public void testSegmentsAreNotFlattened() {
+        byte[] data = randomBytes(50_000);
+        Bytes contiguous = Bytes.copyFrom(data);
+        ConcatBytes.Builder builder = ConcatBytes.newBuilder(0);
+        for (int i = 0; i < data.length; i += 777) {
+            builder.append(Bytes.copyFrom(data, i, Math.min(777, data.length - i)));
+        }
+        Bytes segmented = builder.build();
+        assertEquals(Chunker.split(contiguous), Chunker.split(segmented));
+    }
+
+    @Test
+    public void testStream() {
+        byte[] data = randomBytes(100_000);
+        List<Bytes> expected = Chunker.split(Bytes.copyFrom(data));
+
+        // returns at most 100 bytes per read
+        InputStream stream = new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 100));
+            }
+        };
+        List<Bytes> chunks = new ArrayList<>();
+        Iterator<Bytes> iterator = Chunker.split(stream);
+        while (iterator.hasNext()) {
+            chunks.add(iterator.next());
+        }
+        assertEquals(expected, chunks);
+
+        // reads whole buffers
+        chunks.clear();
+        Chunker.split(new ByteArrayInputStream(data)).forEachRemaining(chunks::add);
+        assertEquals(expected, chunks);
+
+        assertFalse(Chunker.split(new ByteArrayInputStream(new byte[0])).hasNext());
+    }
+
+}
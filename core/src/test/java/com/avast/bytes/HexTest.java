@@ -0,0 +1,74 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class HexTest {
+
+    private static final Bytes Concatenated = Bytes.copyFromHex("0001")
+            .concat(ByteBufferBytes.copyFrom(ByteBuffer.wrap(new byte[]{(byte) 0xAB, (byte) 0xCD})))
+            .concat(Bytes.copyFromHex("EFff"))
+            .view(1, 5);
+
+    @Test
+    public void testEncodeAllByteValues() {
+        byte[] data = new byte[256];
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+            expected.append(String.format("%02x", i));
+        }
+        Bytes bytes = Bytes.copyFrom(data);
+        assertEquals(expected.toString(), Hex.encode(bytes));
+        assertEquals(expected.toString().toUpperCase(), Hex.encode(bytes, true));
+        assertEquals(bytes, Hex.decode(expected.toString().toUpperCase()));
+    }
+
+    @Test
+    public void testEncodeConcat() {
+        assertEquals("01abcdef", Hex.encode(Concatenated));
+        assertEquals("01abcdef", Concatenated.toHexString());
+    }
+
+    @Test
+    public void testEncodeTo() throws IOException {
+        StringWriter writer = new StringWriter();
+        Hex.encodeTo(Concatenated, writer, true);
+        assertEquals("01ABCDEF", writer.toString());
+
+        StringBuilder sb = new StringBuilder("x");
+        Hex.encodeTo(Bytes.copyFrom(new byte[5000]), sb);
+        assertEquals(10001, sb.length());
+    }
+
+    @Test
+    public void testDecodeCharSequence() {
+        assertEquals(Concatenated, Hex.decode(new StringBuilder("01AbCdEf")));
+        assertEquals(Bytes.empty(), Hex.decode(""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeOddLength() {
+        Hex.decode("abc");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeNonAscii() {
+        Hex.decode("a\u0130");
+    }
+
+    @Test
+    public void testHexDump() {
+        String dump = Hex.hexDump(Bytes.copyFromUtf8("The quick brown fox"));
+        assertEquals("00000000  54 68 65 20 71 75 69 63  6b 20 62 72 6f 77 6e 20  |The quick brown |\n" +
+                "00000010  66 6f 78                                          |fox|\n", dump);
+        assertEquals("", Hex.hexDump(Bytes.empty()));
+    }
+
+}
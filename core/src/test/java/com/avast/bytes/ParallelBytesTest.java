@@ -0,0 +1,122 @@
+package com.avast.bytes;
+
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ParallelBytesTest {
+
+    private static final byte[] Data = new byte[200_003];
+
+    static {
+        new Random(42).nextBytes(Data);
+        // make sure some value does not occur at all
+        for (int i = 0; i < Data.length; i++) {
+            if (Data[i] == 7) {
+                Data[i] = 8;
+            }
+        }
+    }
+
+    // small threshold, so that even the test data is split into many parts
+    private final ParallelBytes parallel = new ParallelBytes(new ForkJoinPool(4), 1000);
+
+    private static Bytes segmented(byte[] data) {
+        List<Bytes> segments = new ArrayList<>();
+        for (int start = 0, i = 0; start < data.length; i++) {
+            int end = Math.min(data.length, start + 1 + i * 37 % 5000);
+            segments.add(i % 2 == 0
+                    ? Bytes.copyFrom(data, start, end - start)
+                    : ByteBufferBytes.copyFrom(ByteBuffer.wrap(data, start, end - start).slice()));
+            start = end;
+        }
+        return ConcatBytes.wrap(segments);
+    }
+
+    @Test
+    public void testMismatchAndEquals() {
+        Bytes contiguous = Bytes.copyFrom(Data);
+        Bytes segmented = segmented(Data);
+        assertTrue(parallel.equals(contiguous, segmented));
+        assertEquals(-1, parallel.mismatch(segmented, contiguous));
+
+        for (int index : new int[]{0, 7, 999, 1000, 150_001, Data.length - 1}) {
+            byte[] modified = Data.clone();
+            modified[index]++;
+            assertEquals(index, parallel.mismatch(segmented, Bytes.copyFrom(modified)));
+            assertFalse(parallel.equals(segmented(modified), contiguous));
+        }
+
+        assertEquals(1000, parallel.mismatch(segmented, contiguous.view(0, 1000)));
+        assertFalse(parallel.equals(segmented, contiguous.view(0, 1000)));
+        assertEquals(-1, ParallelBytes.common().mismatch(Bytes.empty(), Bytes.empty()));
+    }
+
+    @Test
+    public void testIndexOfByte() {
+        Bytes bytes = segmented(Data);
+        assertEquals(-1, parallel.indexOf(bytes, (byte) 7));
+
+        for (int index : new int[]{0, 5, 1003, 123_456, Data.length - 1}) {
+            byte[] modified = Data.clone();
+            modified[index] = 7;
+            modified[Data.length - 1] = 7;
+            assertEquals(index, parallel.indexOf(segmented(modified), (byte) 7));
+            assertEquals(index, parallel.indexOf(Bytes.copyFrom(modified), (byte) 7));
+        }
+    }
+
+    @Test
+    public void testIndexOfPattern() {
+        Bytes bytes = segmented(Data);
+        for (int index : new int[]{0, 998, 999, 77_777, Data.length - 20}) {
+            assertEquals(index, parallel.indexOf(bytes, Bytes.copyFrom(Data, index, 20)));
+        }
+        assertEquals(Data.length - 3, parallel.indexOf(bytes, Bytes.copyFrom(Data, Data.length - 3, 3)));
+        assertEquals(-1, parallel.indexOf(bytes, Bytes.copyFrom(new byte[]{7, 7, 7})));
+        assertEquals(0, parallel.indexOf(bytes, Bytes.empty()));
+        assertEquals(-1, parallel.indexOf(Bytes.copyFrom(Data, 0, 10), bytes));
+
+        // overlapping occurrences
+        Bytes aaab = Bytes.copyFromUtf8("aaaaab");
+        assertEquals(3, parallel.indexOf(aaab, Bytes.copyFromUtf8("aab")));
+    }
+
+    @Test
+    public void testHistogram() {
+        long[] expected = new long[256];
+        for (byte b : Data) {
+            expected[b & 0xFF]++;
+        }
+        assertArrayEquals(expected, parallel.histogram(segmented(Data)));
+        assertArrayEquals(expected, parallel.histogram(Bytes.copyFrom(Data)));
+        assertEquals(0, Arrays.stream(parallel.histogram(Bytes.empty())).sum());
+    }
+
+    @Test
+    public void testCopyTo() {
+        byte[] dest = new byte[Data.length + 10];
+        parallel.copyTo(segmented(Data), dest, 5);
+        assertArrayEquals(Data, Arrays.copyOfRange(dest, 5, 5 + Data.length));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCopyToOutOfRange() {
+        parallel.copyTo(segmented(Data), new byte[Data.length + 10], 11);
+    }
+
+    @Test
+    public void testCrc32c() {
+        assertEquals(Bytes.copyFrom(Data).crc32c(), parallel.crc32c(segmented(Data)));
+        assertEquals(Bytes.copyFrom(Data, 1, 100_000).crc32c(), parallel.crc32c(segmented(Data).view(1, 100_001)));
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.avast.bytes;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.avast.bytes.TestUtils.randomBytes;
+import static org.junit.Assert.*;
+
+public class PrefetchingReaderTest {
+
+    /**
+     * Returns at most 100 bytes per read to check that the chunks are filled completely.
+     */
+    private static InputStream slowStream(byte[] data) {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 100));
+            }
+        };
+    }
+
+    @Test
+    public void testIterator() {
+        byte[] data = randomBytes(10_500);
+        try (PrefetchingReader reader = PrefetchingReader.start(slowStream(data), 1000, 2)) {
+            int offset = 0;
+            int chunks = 0;
+            while (reader.hasNext()) {
+                Bytes chunk = reader.next();
+                assertEquals(Bytes.copyFrom(data, offset, chunk.size()), chunk);
+                offset += chunk.size();
+                chunks++;
+            }
+            assertEquals(data.length, offset);
+            assertEquals(11, chunks);
+            assertEquals(data.length, reader.bytesRead());
+            assertFalse(reader.hasNext());
+            assertTrue(reader.consumerWaitNanos() >= 0);
+            assertTrue(reader.producerStallNanos() >= 0);
+        }
+    }
+
+    @Test
+    public void testReadAll() throws IOException {
+        byte[] data = randomBytes(100_000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (PrefetchingReader reader = PrefetchingReader.start(new ByteArrayInputStream(data), 4096, 1, executor)) {
+            Bytes all = reader.readAll();
+            assertArrayEquals(data, all.toByteArray());
+        } finally {
+            executor.shutdown();
+        }
+
+        try (PrefetchingReader reader = PrefetchingReader.start(new ByteArrayInputStream(new byte[0]))) {
+            assertTrue(reader.readAll().isEmpty());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailure() throws IOException {
+        InputStream failing = new InputStream() {
+            private int count = 0;
+
+            @Override
+            public int read() throws IOException {
+                if (count++ == 50) {
+                    throw new IOException("Broken stream");
+                }
+                return 1;
+            }
+        };
+        try (PrefetchingReader reader = PrefetchingReader.start(failing, 10, 8)) {
+            reader.readAll();
+        }
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testFailureInIterator() {
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Broken stream");
+            }
+        };
+        try (PrefetchingReader reader = PrefetchingReader.start(broken, 10, 8)) {
+            reader.hasNext();
+        }
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+        // infinite stream; closing the reader stops the background reader
+        InputStream infinite = new InputStream() {
+            @Override
+            public int read() {
+                return 0;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return len;
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        PrefetchingReader reader = PrefetchingReader.start(infinite, 100, 2, executor);
+        assertEquals(100, reader.next().size());
+        reader.close();
+        assertFalse(reader.hasNext());
+
+        // the background reader finishes and stops reading the stream
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        long bytesRead = reader.bytesRead();
+        assertTrue(bytesRead <= 100 * 4);
+        assertEquals(bytesRead, reader.bytesRead());
+    }
+
+    @Test(expected = IOException.class)
+    public void testError() throws IOException {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("Broken stream");
+            }
+        };
+        // the error is rethrown on the background thread after the consumer has been notified
+        Executor executor = command -> new Thread(() -> {
+            try {
+                command.run();
+            } catch (AssertionError e) {
+                // expected
+            }
+        }).start();
+        try (PrefetchingReader reader = PrefetchingReader.start(failing, 10, 1, executor)) {
+            reader.readAll();
+        }
+    }
+
+}
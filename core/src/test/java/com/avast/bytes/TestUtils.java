@@ -0,0 +1,26 @@
+package com.avast.bytes;
+
+import java.util.Random;
+
+public final class TestUtils {
+
+    private TestUtils() {
+    }
+
+    /**
+     * @return pseudo-random data, the same for the same length
+     */
+    public static byte[] randomBytes(int length) {
+        return randomBytes(length, length);
+    }
+
+    /**
+     * @return pseudo-random data, the same for the same length and seed
+     */
+    public static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.avast.bytes.internal;
+
+import com.avast.bytes.Bytes;
+import com.avast.bytes.ConcatBytes;
+import com.avast.bytes.jdk.ByteArrayBytes;
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TextCodecTest {
+
+    private static final String Text = "P\u0159\u00EDli\u0161 \u017Elu\u0165ou\u010Dk\u00FD k\u016F\u0148 \u00FAp\u011Bl \u010F\u00E1belsk\u00E9 \u00F3dy \uD83D\uDC0E, plain ASCII text follows: the quick brown fox";
+
+    /**
+     * UTF-32 decodes the emoji into more chars than its average chars per byte, so the output buffer has to grow.
+     */
+    private static final List<Charset> Charsets = Arrays.asList(StandardCharsets.UTF_8, StandardCharsets.UTF_16LE, StandardCharsets.ISO_8859_1, Charset.forName("windows-1250"), Charset.forName("UTF-32"));
+
+    /**
+     * Splits the data into segments of the given size, so that multi-byte characters are split between segments.
+     */
+    private static Bytes segmented(byte[] data, int segmentSize) {
+        List<Bytes> segments = new ArrayList<>();
+        for (int i = 0; i < data.length; i += segmentSize) {
+            ByteBuffer direct = ByteBuffer.allocateDirect(Math.min(segmentSize, data.length - i));
+            direct.put(data, i, direct.capacity()).flip();
+            segments.add(UnsafeBytes.unsafeWrap(direct));
+        }
+        return ConcatBytes.wrap(segments);
+    }
+
+    private static String readAll(Reader reader, int bufferSize) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[bufferSize];
+        int n;
+        while ((n = reader.read(buffer)) != -1) {
+            sb.append(buffer, 0, n);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testDecodeSegments() throws IOException {
+        for (Charset charset : Charsets) {
+            byte[] data = Text.getBytes(charset);
+            String expected = new String(data, charset);
+            for (int segmentSize : new int[]{1, 2, 3, 7, 64, data.length}) {
+                Bytes bytes = segmented(data, segmentSize);
+                assertEquals(charset + "/" + segmentSize, expected, bytes.toString(charset));
+                try (Reader reader = bytes.newReader(charset)) {
+                    assertEquals(charset + "/" + segmentSize, expected, readAll(reader, 5));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadCharsOneByOne() throws IOException {
+        String text = "a\uD83D\uDE00b\uD83D\uDC0E";
+        for (int segmentSize : new int[]{1, 2, 3, 100}) {
+            Bytes bytes = segmented(text.getBytes(StandardCharsets.UTF_8), segmentSize).concat(Bytes.copyFromUtf8("c"));
+            try (Reader reader = bytes.newReader(StandardCharsets.UTF_8)) {
+                StringBuilder sb = new StringBuilder();
+                int c;
+                while ((c = reader.read()) != -1) {
+                    sb.append((char) c);
+                }
+                assertEquals(text + "c", sb.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testAsciiFastPath() {
+        byte[] ascii = "ASCII only, more than eight bytes".getBytes(StandardCharsets.US_ASCII);
+        assertTrue(TextCodec.isAscii(segmented(ascii, 5).asReadOnlyByteBufferList()));
+        assertEquals(new String(ascii, StandardCharsets.US_ASCII), segmented(ascii, 5).toStringUtf8());
+        byte[] latin = Text.getBytes(StandardCharsets.ISO_8859_1);
+        assertFalse(TextCodec.isAscii(segmented(latin, 100).asReadOnlyByteBufferList()));
+        assertEquals(new String(latin, StandardCharsets.ISO_8859_1), segmented(latin, 3).toString(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testMalformedInput() throws IOException {
+        byte[] data = {'a', (byte) 0xC5, 'b', (byte) 0xF0, (byte) 0x9F, (byte) 0x90};
+        String expected = new String(data, StandardCharsets.UTF_8);
+        assertEquals(expected, segmented(data, 2).toStringUtf8());
+        assertEquals(expected, readAll(segmented(data, 1).newReader(StandardCharsets.UTF_8), 1));
+        assertEquals(expected, ByteBufferBytes.copyFrom(ByteBuffer.wrap(data)).toStringUtf8());
+        assertEquals("", readAll(Bytes.empty().newReader(StandardCharsets.UTF_8), 4));
+    }
+
+    @Test
+    public void testEncode() {
+        String unpaired = "a\uD83Db\uDC0Ec";
+        for (String text : new String[]{Text, unpaired, ""}) {
+            for (Charset charset : Charsets) {
+                byte[] expected = text.getBytes(charset);
+                assertArrayEquals(expected, Bytes.copyFrom(new StringBuilder(text), charset).toByteArray());
+                assertArrayEquals(expected, Bytes.copyFrom(text, charset).toByteArray());
+            }
+            assertEquals(text.getBytes(StandardCharsets.UTF_8).length, TextCodec.utf8Length(new StringBuilder(text)));
+        }
+        assertEquals(ByteArrayBytes.copyFromUtf8(Text), Bytes.copyFromUtf8(Text));
+    }
+
+}
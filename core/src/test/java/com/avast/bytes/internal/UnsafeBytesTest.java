@@ -0,0 +1,43 @@
+package com.avast.bytes.internal;
+
+import com.avast.bytes.Bytes;
+import com.avast.bytes.jdk.ByteArrayBytes;
+import com.avast.bytes.jdk.ByteBufferBytes;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class UnsafeBytesTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForeignWrapperIsRejected() {
+        UnsafeBytes.Wrapper foreign = new UnsafeBytes.Wrapper() {
+            @Override
+            public ByteArrayBytes wrap(byte[] bytes, int offset, int length) {
+                throw new AssertionError("Foreign wrapper must not be used");
+            }
+
+            @Override
+            public ByteBufferBytes wrap(ByteBuffer buffer) {
+                throw new AssertionError("Foreign wrapper must not be used");
+            }
+
+            @Override
+            public boolean readArrays(Bytes bytes, UnsafeBytes.ArrayConsumer consumer) {
+                throw new AssertionError("Foreign wrapper must not be used");
+            }
+        };
+        UnsafeBytes.register(foreign);
+    }
+
+    @Test
+    public void testWrapDoesNotCopy() {
+        byte[] data = new byte[]{1, 2, 3};
+        ByteArrayBytes wrapped = UnsafeBytes.unsafeWrap(data);
+        data[0] = 4;
+        assertEquals(4, wrapped.byteAt(0));
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.avast.bytes.jdk;
+
+import com.avast.bytes.Bytes;
+import com.avast.bytes.BytesInstrumentation;
+import org.junit.Test;
+
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class BytesBufferTest {
+
+    @Test
+    public void testEditing() {
+        BytesBuffer buffer = new BytesBuffer(4);
+        buffer.append(Bytes.copyFromUtf8("Hello World"));
+        buffer.insert(5, new byte[]{','}, 0, 1);
+        buffer.put(7, (byte) 'w');
+        buffer.append((byte) '!');
+        assertEquals("Hello, world!", buffer.toBytes().toStringUtf8());
+
+        buffer.delete(5, 6);
+        buffer.insert(0, Bytes.copyFromHex("00000000"));
+        buffer.setInt(0, 12, ByteOrder.BIG_ENDIAN);
+        assertEquals(12, buffer.getInt(0, ByteOrder.BIG_ENDIAN));
+        buffer.setShort(0, (short) 0x0102, ByteOrder.LITTLE_ENDIAN);
+        assertEquals((byte) 0x02, buffer.byteAt(0));
+        buffer.setLong(4, 0x48454C4C4F20574FL, ByteOrder.BIG_ENDIAN);
+        buffer.put(12, Bytes.copyFromUtf8("RLD"));
+        assertEquals(16, buffer.size());
+
+        Bytes frozen = buffer.freeze();
+        assertEquals("HELLO WORLD!", frozen.view(4, 16).toStringUtf8());
+        assertEquals(0x0C000102, frozen.getInt(0, ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPutAfterFreeze() {
+        BytesBuffer buffer = Bytes.copyFromHex("0102").mutableCopy();
+        buffer.freeze();
+        buffer.put(0, (byte) 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFreezeTwice() {
+        BytesBuffer buffer = Bytes.copyFromHex("0102").mutableCopy();
+        buffer.freeze();
+        buffer.freeze();
+    }
+
+    @Test
+    public void testFreezeDoesNotCopy() {
+        BytesBuffer buffer = new BytesBuffer(16);
+        buffer.append(new byte[]{1, 2, 3}, 0, 3);
+        BytesInstrumentation.Counters counters = new BytesInstrumentation.Counters();
+        BytesInstrumentation.setListener(counters);
+        try {
+            Bytes frozen = buffer.freeze();
+            assertTrue(frozen instanceof ByteArrayBytes);
+            assertEquals(Bytes.copyFromHex("010203"), frozen);
+            assertEquals(0, counters.allocatedBytes(BytesInstrumentation.Operation.BUILDER));
+            assertEquals(0, counters.copiedBytes(BytesInstrumentation.Operation.TO_BYTE_ARRAY));
+        } finally {
+            BytesInstrumentation.setListener(null);
+        }
+    }
+
+    @Test
+    public void testMutableCopy() {
+        Bytes original = Bytes.copyFromUtf8("immutable data");
+
+        BytesBuffer unmodified = original.mutableCopy();
+        assertSame(original, unmodified.freeze());
+
+        BytesBuffer trimmed = original.mutableCopy();
+        trimmed.delete(0, 10);
+        assertEquals("data", trimmed.freeze().toStringUtf8());
+
+        BytesBuffer copy = original.mutableCopy();
+        assertEquals('i', copy.byteAt(0));
+        copy.put(0, (byte) 'I').append(Bytes.copyFromUtf8("!"));
+        assertEquals("Immutable data!", copy.freeze().toStringUtf8());
+        assertEquals("immutable data", original.toStringUtf8());
+    }
+
+    @Test
+    public void testInsertAtEnd() {
+        BytesBuffer buffer = Bytes.copyFromHex("0102").mutableCopy();
+        buffer.insert(2, new byte[]{3}, 0, 1);
+        assertEquals(Bytes.copyFromHex("010203"), buffer.freeze());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPutOutOfRange() {
+        Bytes.copyFromHex("0102").mutableCopy().put(2, (byte) 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSetIntOutOfRange() {
+        Bytes.copyFromHex("0102").mutableCopy().setInt(0, 1, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testDeleteInvalidRange() {
+        Bytes.copyFromHex("0102").mutableCopy().delete(1, 0);
+    }
+
+}
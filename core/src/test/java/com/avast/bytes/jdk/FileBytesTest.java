@@ -0,0 +1,219 @@
+package com.avast.bytes.jdk;
+
+import com.avast.bytes.Bytes;
+import com.avast.bytes.BytesTestBase;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.avast.bytes.TestUtils.randomBytes;
+import static org.junit.Assert.*;
+
+public class FileBytesTest extends BytesTestBase {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<FileBytes> opened = new ArrayList<>();
+
+    /**
+     * Small blocks, so that the tests cross block boundaries.
+     */
+    private final BlockCache cache = new BlockCache(256, 8);
+
+    @After
+    public void closeFiles() throws IOException {
+        for (FileBytes bytes : opened) {
+            bytes.close();
+        }
+    }
+
+    private FileBytes open(byte[] data, BlockCache cache) {
+        try {
+            Path file = folder.newFile().toPath();
+            Files.write(file, data);
+            FileBytes bytes = FileBytes.open(file, cache);
+            opened.add(bytes);
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected Bytes fromByteArray(byte[] array) {
+        return open(array, cache);
+    }
+
+    @Override
+    protected Bytes.BuilderStream newBuilder(int size) {
+        ByteArrayOutputStream data = new ByteArrayOutputStream(size);
+        return new Bytes.BuilderStream() {
+            @Override
+            public Bytes toBytes() {
+                return open(data.toByteArray(), cache);
+            }
+
+            @Override
+            public void write(int b) {
+                data.write(b);
+            }
+        };
+    }
+
+    @Test
+    public void testBlocks() throws IOException {
+        byte[] data = randomBytes(1000);
+        FileBytes bytes = open(data, new BlockCache(4096, 64));
+        assertEquals(Bytes.copyFrom(data), bytes);
+        assertArrayEquals(data, bytes.toByteArray());
+        assertEquals(Bytes.copyFrom(data, 60, 100), bytes.view(60, 160));
+        assertEquals(16, bytes.asReadOnlyByteBufferList().size());
+        assertEquals(2, bytes.view(60, 70).asReadOnlyByteBufferList().size());
+
+        ByteBuffer expected = ByteBuffer.wrap(data);
+        for (int i = 0; i < data.length - 7; i++) {
+            assertEquals(expected.getLong(i), bytes.getLong(i, ByteOrder.BIG_ENDIAN));
+            assertEquals(Integer.reverseBytes(expected.getInt(i)), bytes.getInt(i, ByteOrder.LITTLE_ENDIAN));
+        }
+
+        try (InputStream stream = bytes.view(10, 990).newInputStream()) {
+            byte[] read = new byte[980];
+            int position = 0;
+            int n;
+            while ((n = stream.read(read, position, read.length - position)) > 0) {
+                position += n;
+            }
+            assertEquals(980, position);
+            assertEquals(Bytes.copyFrom(data, 10, 980), Bytes.copyFrom(read));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfRange() {
+        open(randomBytes(1000), new BlockCache(4096, 64)).byteAt(1000);
+    }
+
+    @Test
+    public void testCacheMetrics() {
+        BlockCache cache = new BlockCache(1024, 16);
+        byte[] data = randomBytes(10_000);
+        FileBytes bytes = open(data, cache);
+
+        bytes.byteAt(5000);
+        assertEquals(1, cache.misses());
+        assertEquals(0, cache.hits());
+        // the same block is not looked up again
+        bytes.byteAt(5001);
+        assertEquals(0, cache.hits());
+        bytes.byteAt(4990);
+        assertEquals(2, cache.misses());
+        bytes.byteAt(5000);
+        assertEquals(1, cache.hits());
+
+        // sequential reading triggers read-ahead, so most blocks are hits
+        for (int i = 0; i < 1600; i++) {
+            assertEquals(data[i], bytes.byteAt(i));
+        }
+        assertTrue(cache.readAheads() > 0);
+        assertTrue(cache.misses() < 100 / 2);
+
+        // the cache is bounded
+        for (int i = 0; i < data.length; i += 16) {
+            bytes.byteAt(i);
+        }
+        assertTrue(cache.size() <= 1024 / 16);
+        assertTrue(cache.evictions() > 0);
+
+        // fewer blocks than segments
+        BlockCache small = new BlockCache(3 * 16, 16);
+        assertEquals(Bytes.copyFrom(data), open(data, small));
+        assertTrue(small.size() <= 3);
+    }
+
+    @Test
+    public void testHashCodeLooksUpBlocks() {
+        BlockCache cache = new BlockCache(8192, 64);
+        byte[] data = randomBytes(10_000);
+        FileBytes bytes = open(data, cache);
+        FileBytes view = bytes.view(0, 4096);
+        assertEquals(Bytes.copyFrom(data, 0, 4096).hashCode(), view.hashCode());
+        assertEquals(4096 / 64, cache.hits() + cache.misses());
+
+        assertTrue(view.equals(Bytes.copyFrom(data, 0, 4096)));
+        assertEquals(2 * 4096 / 64, cache.hits() + cache.misses());
+        assertFalse(view.equals(Bytes.copyFrom(data, 1, 4096)));
+    }
+
+    @Test
+    public void testLazyBufferList() {
+        BlockCache cache = new BlockCache(1024, 16);
+        byte[] data = randomBytes(10_000);
+        FileBytes bytes = open(data, cache);
+        List<ByteBuffer> buffers = bytes.view(8, 10_000).asReadOnlyByteBufferList();
+        assertEquals(625, buffers.size());
+        assertEquals(0, cache.misses());
+
+        assertEquals(Bytes.copyFrom(data, 1600, 16), ByteBufferBytes.copyFrom(buffers.get(100)));
+        assertEquals(1, cache.misses());
+        assertEquals(8, buffers.get(0).remaining());
+        assertEquals(data[8], buffers.get(0).get());
+        // the same buffer is returned again
+        assertEquals(7, buffers.get(0).remaining());
+
+        // streaming over the whole file keeps only the cache full
+        assertEquals(Bytes.copyFrom(data).crc32(), bytes.crc32());
+        assertTrue(cache.size() <= 1024 / 16);
+    }
+
+    @Test
+    public void testToString() {
+        String text = "P\u0159\u00EDli\u0161 \u017Elu\u0165ou\u010Dk\u00FD k\u016F\u0148";
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+        // within a single block
+        assertEquals(text, open(data, new BlockCache(4096, 64)).toStringUtf8());
+        // split between blocks
+        assertEquals(text, open(data, cache).toStringUtf8());
+        assertEquals(text.substring(1), open(data, cache).view(1, data.length).toStringUtf8());
+    }
+
+    @Test
+    public void testOpenPart() throws IOException {
+        byte[] data = randomBytes(100);
+        Path file = folder.newFile().toPath();
+        Files.write(file, data);
+        try (FileBytes bytes = FileBytes.open(file, 30, 40, cache)) {
+            assertEquals(Bytes.copyFrom(data, 30, 40), bytes);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenPartBeyondEnd() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, randomBytes(100));
+        FileBytes.open(file, 90, 20, cache);
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testClose() throws IOException {
+        FileBytes bytes = open(randomBytes(100), cache);
+        FileBytes view = bytes.view(10, 20);
+        view.byteAt(0);
+        bytes.close();
+        view.byteAt(5);
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.avast.bytes.jdk;
+
+import com.avast.bytes.Bytes;
+import com.avast.bytes.BytesHashMap;
+import com.avast.bytes.BytesToLongMap;
+import com.avast.bytes.UnsignedBytesComparator;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import static com.avast.bytes.TestUtils.randomBytes;
+import static org.junit.Assert.*;
+
+public class SmallBytesTest {
+
+    /**
+     * Fails on any access that would copy the data, delegates the words to the real instance.
+     */
+    private static final class NoCopySmallBytes extends SmallBytes {
+
+        private final SmallBytes data;
+
+        NoCopySmallBytes(SmallBytes data) {
+            super(data.size());
+            this.data = data;
+        }
+
+        @Override
+        long word(int index) {
+            return data.word(index);
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            throw new AssertionError("Data copied");
+        }
+
+        @Override
+        public ByteBuffer toReadOnlyByteBuffer() {
+            throw new AssertionError("Data copied");
+        }
+
+        @Override
+        public List<ByteBuffer> asReadOnlyByteBufferList() {
+            throw new AssertionError("Data copied");
+        }
+
+    }
+
+    @Test
+    public void testInteroperability() {
+        for (int length = 0; length <= SmallBytes.MAX_SIZE; length++) {
+            byte[] data = randomBytes(length);
+            SmallBytes small = SmallBytes.copyFrom(data);
+            Bytes array = ByteArrayBytes.copyFrom(data);
+            Bytes buffer = ByteBufferBytes.copyFrom(ByteBuffer.wrap(data));
+
+            assertEquals(length, small.size());
+            assertArrayEquals(data, small.toByteArray());
+            for (int i = 0; i < length; i++) {
+                assertEquals(data[i], small.byteAt(i));
+            }
+
+            assertEquals(array, small);
+            assertEquals(small, array);
+            assertEquals(small, buffer);
+            assertEquals(array.hashCode(), small.hashCode());
+            assertEquals(small, SmallBytes.copyFrom(data.clone()));
+            assertEquals(0, new UnsignedBytesComparator().compare(small, array));
+
+            ByteBuffer readOnly = small.toReadOnlyByteBuffer();
+            assertTrue(readOnly.isReadOnly());
+            assertEquals(ByteBuffer.wrap(data), readOnly);
+        }
+    }
+
+    @Test
+    public void testNotEquals() {
+        byte[] data = randomBytes(20);
+        SmallBytes small = SmallBytes.copyFrom(data);
+        data[19]++;
+        assertNotEquals(small, SmallBytes.copyFrom(data));
+        assertNotEquals(small, ByteArrayBytes.copyFrom(data));
+        // trailing zero must not be ignored
+        assertNotEquals(SmallBytes.copyFrom(new byte[]{1}), SmallBytes.copyFrom(new byte[]{1, 0}));
+    }
+
+    @Test
+    public void testPrimitiveAccessors() {
+        byte[] data = randomBytes(SmallBytes.MAX_SIZE);
+        SmallBytes small = SmallBytes.copyFrom(data);
+        ByteBuffer big = ByteBuffer.wrap(data);
+        ByteBuffer little = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i <= data.length - Long.BYTES; i++) {
+            assertEquals(big.getLong(i), small.getLong(i, ByteOrder.BIG_ENDIAN));
+            assertEquals(little.getLong(i), small.getLong(i, ByteOrder.LITTLE_ENDIAN));
+        }
+        for (int i = 0; i <= data.length - Integer.BYTES; i++) {
+            assertEquals(big.getInt(i), small.getInt(i, ByteOrder.BIG_ENDIAN));
+            assertEquals(little.getShort(i), small.getShort(i, ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPrimitiveAccessorOutOfRange() {
+        SmallBytes.copyFrom(randomBytes(10)).getLong(3, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testViewAndStream() throws IOException {
+        byte[] data = randomBytes(30);
+        SmallBytes small = SmallBytes.copyFrom(data);
+        assertEquals(ByteArrayBytes.copyFrom(data, 5, 20), small.view(5, 25));
+        assertSame(small, small.view(0, 30));
+        assertTrue(small.view(3, 3).isEmpty());
+
+        try (InputStream is = small.newInputStream()) {
+            byte[] read = new byte[30];
+            assertEquals(30, is.read(read));
+            assertArrayEquals(data, read);
+        }
+    }
+
+    @Test
+    public void testChosenByFactoryMethods() {
+        assertTrue(Bytes.copyFrom(randomBytes(32)) instanceof SmallBytes);
+        assertTrue(Bytes.copyFromUtf8("short key") instanceof SmallBytes);
+        assertTrue(Bytes.copyFromHex("0123456789abcdef") instanceof SmallBytes);
+        assertTrue(Bytes.copyFrom(randomBytes(33)) instanceof ByteArrayBytes);
+        assertTrue(Bytes.copyFrom(new byte[0]).isEmpty());
+        assertTrue(ByteArrayBytes.copyFrom(randomBytes(8)) instanceof ByteArrayBytes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() {
+        SmallBytes.copyFrom(new byte[SmallBytes.MAX_SIZE + 1]);
+    }
+
+    @Test
+    public void testMapLookupsDoNotCopy() {
+        BytesHashMap<Integer> map = new BytesHashMap<>();
+        BytesToLongMap counts = new BytesToLongMap();
+        for (int length = 0; length <= SmallBytes.MAX_SIZE; length++) {
+            Bytes key = new NoCopySmallBytes(SmallBytes.copyFrom(randomBytes(length)));
+            assertNull(map.put(key, length));
+            counts.addTo(key, length);
+        }
+        for (int length = 0; length <= SmallBytes.MAX_SIZE; length++) {
+            byte[] data = randomBytes(length);
+            Bytes key = new NoCopySmallBytes(SmallBytes.copyFrom(data));
+            assertEquals(Integer.valueOf(length), map.get(key));
+            assertEquals(length, counts.get(key, -1));
+            // interchangeable with keys of the other implementations
+            assertEquals(Integer.valueOf(length), map.get(ByteArrayBytes.copyFrom(data)));
+            assertEquals(length, counts.get(ByteBufferBytes.copyFrom(ByteBuffer.wrap(data)), -1));
+        }
+        Bytes missing = new NoCopySmallBytes(SmallBytes.copyFrom(new byte[]{1, 2, 3}));
+        assertNull(map.get(missing));
+        assertEquals(Integer.valueOf(5), map.remove(new NoCopySmallBytes(SmallBytes.copyFrom(randomBytes(5)))));
+        assertFalse(map.containsKey(ByteArrayBytes.copyFrom(randomBytes(5))));
+    }
+
+}
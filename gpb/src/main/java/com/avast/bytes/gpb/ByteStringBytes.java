@@ -7,7 +7,10 @@ import com.google.protobuf.ByteString;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Implementation of {@link Bytes} that wraps {@link ByteString}.
@@ -20,6 +23,11 @@ public final class ByteStringBytes extends AbstractBytes {
     // the ByteString itself is immutable, so this implementation is trivial
     private final ByteString wrapped;
 
+    /**
+     * Buffers of the nodes, created when a primitive value is read for the first time.
+     */
+    private Segments segments;
+
     private ByteStringBytes(ByteString wrapped) {
         this.wrapped = wrapped;
     }
@@ -34,6 +42,104 @@ public final class ByteStringBytes extends AbstractBytes {
         return wrapped.byteAt(index);
     }
 
+    @Override
+    public short getShort(int index, ByteOrder order) {
+        final short value = (short) read(index, Short.BYTES);
+        return order == ByteOrder.BIG_ENDIAN ? value : Short.reverseBytes(value);
+    }
+
+    @Override
+    public int getInt(int index, ByteOrder order) {
+        final int value = (int) read(index, Integer.BYTES);
+        return order == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+    @Override
+    public long getLong(int index, ByteOrder order) {
+        final long value = read(index, Long.BYTES);
+        return order == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    /**
+     * Reads big-endian value stored in {@code count} bytes with an absolute get on the buffer of the node containing it.
+     * The value is composed from single bytes only if it crosses nodes of a rope.
+     */
+    private long read(int index, int count) {
+        if (index < 0 || index > size() - count) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        final Segments segments = segments();
+        int i = segments.find(index);
+        ByteBuffer buffer = segments.buffers[i];
+        int position = index - segments.starts[i];
+        if (position + count <= buffer.limit()) {
+            switch (count) {
+                case Short.BYTES:
+                    return buffer.getShort(position);
+                case Integer.BYTES:
+                    return buffer.getInt(position);
+                default:
+                    return buffer.getLong(position);
+            }
+        }
+
+        long value = 0;
+        for (int read = 0; read < count; read++) {
+            while (position == buffer.limit()) {
+                buffer = segments.buffers[++i];
+                position = 0;
+            }
+            value = (value << 8) | (buffer.get(position++) & 0xFF);
+        }
+        return value;
+    }
+
+    private Segments segments() {
+        Segments s = segments;
+        if (s == null) {
+            // racy initialization is fine, every thread would compute the same segments
+            s = new Segments(wrapped.asReadOnlyByteBufferList());
+            segments = s;
+        }
+        return s;
+    }
+
+    /**
+     * Non-empty buffers of the nodes of the {@link ByteString} (there is a single one unless it is a rope),
+     * sliced to start at zero and in the big-endian order.
+     */
+    private static final class Segments {
+
+        private final ByteBuffer[] buffers;
+
+        /**
+         * Index of the first byte of each buffer.
+         */
+        private final int[] starts;
+
+        Segments(List<ByteBuffer> list) {
+            final ByteBuffer[] buffers = new ByteBuffer[list.size()];
+            final int[] starts = new int[list.size()];
+            int count = 0;
+            int start = 0;
+            for (ByteBuffer buffer : list) {
+                if (buffer.hasRemaining()) {
+                    buffers[count] = buffer.slice();
+                    starts[count++] = start;
+                    start += buffer.remaining();
+                }
+            }
+            this.buffers = Arrays.copyOf(buffers, count);
+            this.starts = Arrays.copyOf(starts, count);
+        }
+
+        int find(int index) {
+            final int i = Arrays.binarySearch(starts, index);
+            return i >= 0 ? i : -i - 2;
+        }
+
+    }
+
     @Override
     public byte[] toByteArray() {
         return wrapped.toByteArray();
@@ -44,6 +150,11 @@ public final class ByteStringBytes extends AbstractBytes {
         return wrapped.asReadOnlyByteBuffer();
     }
 
+    @Override
+    public List<ByteBuffer> asReadOnlyByteBufferList() {
+        return wrapped.asReadOnlyByteBufferList();
+    }
+
     @Override
     public String toString(Charset charset) {
         try {
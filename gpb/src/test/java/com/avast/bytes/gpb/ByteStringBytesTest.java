@@ -6,6 +6,7 @@ import org.junit.Test;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import static org.junit.Assert.*;
 
@@ -56,4 +57,40 @@ public class ByteStringBytesTest {
         assertEquals("jumps", v.toStringUtf8());
     }
 
+    @Test
+    public void testPrimitiveAccessors() {
+        ByteStringBytes b = ByteStringBytes.wrap(ByteString.copyFrom(new byte[]{1, 2}).concat(ByteString.copyFrom(new byte[]{3, 4, 5, 6, 7, 8, 9})));
+        assertEquals(0x02030405, b.getInt(1, ByteOrder.BIG_ENDIAN));
+        assertEquals(0x05040302, b.getInt(1, ByteOrder.LITTLE_ENDIAN));
+        assertEquals(0x0203, b.getShort(1, ByteOrder.BIG_ENDIAN));
+        assertEquals(0x0908070605040302L, b.getLong(1, ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    public void testPrimitiveAccessorsOfRope() {
+        byte[] data = new byte[600];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        // large enough parts are not copied into a flat string, so the values cross the nodes of the rope
+        ByteString rope = ByteString.copyFrom(data, 0, 200).concat(ByteString.copyFrom(data, 200, 201)).concat(ByteString.copyFrom(data, 401, 199));
+        assertTrue(rope.asReadOnlyByteBufferList().size() > 1);
+        ByteStringBytes b = ByteStringBytes.wrap(rope);
+        ByteBuffer expected = ByteBuffer.wrap(data);
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            expected.order(order);
+            for (int i = 0; i <= data.length - Long.BYTES; i++) {
+                assertEquals(expected.getShort(i), b.getShort(i, order));
+                assertEquals(expected.getInt(i), b.getInt(i, order));
+                assertEquals(expected.getLong(i), b.getLong(i, order));
+            }
+        }
+        assertEquals(expected.getLong(10), b.view(10, 18).getLong(0, expected.order()));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testPrimitiveAccessorOutOfRange() {
+        ByteStringBytes.wrap(TestData).getLong(TestData.size() - 7, ByteOrder.BIG_ENDIAN);
+    }
+
 }